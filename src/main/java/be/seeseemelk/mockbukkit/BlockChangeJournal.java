@@ -0,0 +1,278 @@
+package be.seeseemelk.mockbukkit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bukkit.Material;
+
+/**
+ * Records the blocks that are changed in a world, so that tests can check
+ * which blocks were changed between two points in time. A journal is attached
+ * to a world using {@link WorldMock#setJournal(BlockChangeJournal)}.
+ * <p>
+ * Every change is stored as a packed position and the states of the block
+ * before and after the change, in a ring buffer of fixed capacity. Once the
+ * buffer is full, the oldest changes are overwritten.
+ * <p>
+ * Points in time are identified by checkpoints, which are the number of
+ * changes that have been recorded so far.
+ */
+public class BlockChangeJournal
+{
+	private final int capacity;
+	private final long[] positions;
+	private final int[] oldStates;
+	private final int[] newStates;
+	private long checkpoint = 0;
+	private long start = 0;
+
+	/**
+	 * Creates an empty journal.
+	 *
+	 * @param capacity The number of changes the journal keeps.
+	 * @throws IllegalArgumentException if the capacity is not positive.
+	 */
+	public BlockChangeJournal(int capacity)
+	{
+		if (capacity <= 0)
+		{
+			throw new IllegalArgumentException("Capacity must be positive");
+		}
+		this.capacity = capacity;
+		positions = new long[capacity];
+		oldStates = new int[capacity];
+		newStates = new int[capacity];
+	}
+
+	/**
+	 * Records that a block was changed.
+	 *
+	 * @param x The x coordinate of the block.
+	 * @param y The y coordinate of the block.
+	 * @param z The z coordinate of the block.
+	 * @param oldState The state the block had, as returned by
+	 *        {@link ChunkSection#getState}.
+	 * @param newState The state the block has now.
+	 */
+	void record(int x, int y, int z, int oldState, int newState)
+	{
+		int slot = (int) (checkpoint % capacity);
+		positions[slot] = getPosition(x, y, z);
+		oldStates[slot] = oldState;
+		newStates[slot] = newState;
+		checkpoint++;
+	}
+
+	/**
+	 * Get the checkpoint of the current point in time.
+	 *
+	 * @return The number of changes that have been recorded so far.
+	 */
+	public long checkpoint()
+	{
+		return checkpoint;
+	}
+
+	/**
+	 * Get the oldest checkpoint of which the journal still contains every
+	 * change that was made since.
+	 *
+	 * @return The oldest checkpoint that can be passed to {@link #diff(long)}.
+	 */
+	public long getOldestCheckpoint()
+	{
+		return Math.max(start, checkpoint - capacity);
+	}
+
+	/**
+	 * Get the number of changes the journal keeps.
+	 *
+	 * @return The capacity of the journal.
+	 */
+	public int getCapacity()
+	{
+		return capacity;
+	}
+
+	/**
+	 * Get the number of changes the journal currently contains.
+	 *
+	 * @return The number of changes since the oldest checkpoint.
+	 */
+	public int size()
+	{
+		return (int) (checkpoint - getOldestCheckpoint());
+	}
+
+	/**
+	 * Forgets every recorded change. Checkpoints keep counting from where they
+	 * were, so a checkpoint taken before the journal was cleared can no longer
+	 * be used.
+	 */
+	public void clear()
+	{
+		start = checkpoint;
+	}
+
+	/**
+	 * Get the blocks that were changed since a checkpoint.
+	 *
+	 * @param from The checkpoint.
+	 * @return The blocks that were changed, as described by
+	 *         {@link #diff(long, long)}.
+	 * @throws IllegalStateException if the journal no longer contains every
+	 *         change since the checkpoint.
+	 */
+	public List<Change> diff(long from)
+	{
+		return diff(from, checkpoint);
+	}
+
+	/**
+	 * Get the blocks that were changed between two checkpoints.
+	 * <p>
+	 * A block that was changed more than once is only listed once, with the
+	 * state it had at the first checkpoint and the state it had at the second.
+	 * Blocks that were changed back to the state they had at the first
+	 * checkpoint are not listed. The blocks are listed in the order in which
+	 * they were first changed.
+	 *
+	 * @param from The first checkpoint.
+	 * @param to The second checkpoint.
+	 * @return The blocks that were changed.
+	 * @throws IllegalArgumentException if {@code from} is after {@code to} or
+	 *         {@code to} is after the current checkpoint.
+	 * @throws IllegalStateException if the journal no longer contains every
+	 *         change since {@code from}.
+	 */
+	public List<Change> diff(long from, long to)
+	{
+		if (from > to || to > checkpoint)
+		{
+			throw new IllegalArgumentException("Invalid checkpoints " + from + " and " + to);
+		}
+		if (from < getOldestCheckpoint())
+		{
+			throw new IllegalStateException("Journal no longer contains the changes since checkpoint " + from);
+		}
+
+		LongMap<Change> byPosition = new LongMap<>();
+		List<Change> changes = new ArrayList<>();
+		for (long index = from; index < to; index++)
+		{
+			int slot = (int) (index % capacity);
+			Change change = byPosition.get(positions[slot]);
+			if (change == null)
+			{
+				change = new Change(positions[slot], oldStates[slot], newStates[slot]);
+				byPosition.put(positions[slot], change);
+				changes.add(change);
+			}
+			else
+			{
+				change.newState = newStates[slot];
+			}
+		}
+		changes.removeIf(change -> change.oldState == change.newState);
+		return changes;
+	}
+
+	private static long getPosition(int x, int y, int z)
+	{
+		return ((long) x & 0x3FFFFFF) << 38 | ((long) z & 0x3FFFFFF) << 12 | y & 0xFFF;
+	}
+
+	/**
+	 * The net change of a single block.
+	 */
+	public static class Change
+	{
+		private final long position;
+		private final int oldState;
+		private int newState;
+
+		private Change(long position, int oldState, int newState)
+		{
+			this.position = position;
+			this.oldState = oldState;
+			this.newState = newState;
+		}
+
+		/**
+		 * Get the x coordinate of the block.
+		 *
+		 * @return The x coordinate of the block.
+		 */
+		public int getX()
+		{
+			return (int) (position >> 38);
+		}
+
+		/**
+		 * Get the y coordinate of the block.
+		 *
+		 * @return The y coordinate of the block.
+		 */
+		public int getY()
+		{
+			return (int) (position & 0xFFF);
+		}
+
+		/**
+		 * Get the z coordinate of the block.
+		 *
+		 * @return The z coordinate of the block.
+		 */
+		public int getZ()
+		{
+			return (int) (position << 26 >> 38);
+		}
+
+		/**
+		 * Get the material the block had before it was changed.
+		 *
+		 * @return The old material of the block.
+		 */
+		public Material getOldType()
+		{
+			return ChunkSection.getMaterial(oldState);
+		}
+
+		/**
+		 * Get the data the block had before it was changed.
+		 *
+		 * @return The old data of the block.
+		 */
+		public byte getOldData()
+		{
+			return ChunkSection.getData(oldState);
+		}
+
+		/**
+		 * Get the material the block has after it was changed.
+		 *
+		 * @return The new material of the block.
+		 */
+		public Material getNewType()
+		{
+			return ChunkSection.getMaterial(newState);
+		}
+
+		/**
+		 * Get the data the block has after it was changed.
+		 *
+		 * @return The new data of the block.
+		 */
+		public byte getNewData()
+		{
+			return ChunkSection.getData(newState);
+		}
+
+		@Override
+		public String toString()
+		{
+			return "Change(" + getX() + ", " + getY() + ", " + getZ() + ": " + getOldType() + " -> " + getNewType()
+					+ ")";
+		}
+	}
+}
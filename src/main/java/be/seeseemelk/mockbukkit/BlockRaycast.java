@@ -0,0 +1,218 @@
+package be.seeseemelk.mockbukkit;
+
+/**
+ * Walks along a ray through the blocks of a {@link WorldMock}, visiting every
+ * block the ray passes through in order.
+ * <p>
+ * The walk uses the voxel traversal algorithm by Amanatides and Woo, which
+ * only needs a few additions per block. No objects are created while walking,
+ * the position and state of the current block can be read directly from the
+ * raycast instead.
+ * <p>
+ * A ray that starts above or below the world is first moved to the point where
+ * it enters the world, so that only blocks inside the world are visited.
+ *
+ * <pre>
+ * BlockRaycast ray = new BlockRaycast(world, x, y, z, dx, dy, dz, 100);
+ * while (ray.next())
+ * {
+ * 	if (ray.getState() != air)
+ * 		...
+ * }
+ * </pre>
+ */
+public class BlockRaycast
+{
+	private final WorldMock world;
+	private final double maxDistance;
+	private final int stepX;
+	private final int stepY;
+	private final int stepZ;
+	private final double deltaX;
+	private final double deltaY;
+	private final double deltaZ;
+	private double maxX;
+	private double maxY;
+	private double maxZ;
+	private int x;
+	private int y;
+	private int z;
+	private boolean started = false;
+	private boolean ended = false;
+
+	/**
+	 * Creates a raycast.
+	 *
+	 * @param world The world to walk through.
+	 * @param x The x coordinate of the start of the ray.
+	 * @param y The y coordinate of the start of the ray.
+	 * @param z The z coordinate of the start of the ray.
+	 * @param dx The x component of the direction of the ray.
+	 * @param dy The y component of the direction of the ray.
+	 * @param dz The z component of the direction of the ray.
+	 * @param maxDistance The distance after which to stop walking.
+	 */
+	public BlockRaycast(WorldMock world, double x, double y, double z, double dx, double dy, double dz,
+			double maxDistance)
+	{
+		double length = Math.sqrt(dx * dx + dy * dy + dz * dz);
+		if (length == 0)
+		{
+			throw new IllegalArgumentException("Direction cannot be zero");
+		}
+		dx /= length;
+		dy /= length;
+		dz /= length;
+
+		// Move the start of the ray to where it enters the world.
+		int height = world.getMaxHeight();
+		double entry = 0;
+		if (y >= height)
+		{
+			entry = dy < 0 ? (y - height) / -dy : Double.POSITIVE_INFINITY;
+		}
+		else if (y < 0)
+		{
+			entry = dy > 0 ? -y / dy : Double.POSITIVE_INFINITY;
+		}
+		if (entry > maxDistance)
+		{
+			ended = true;
+			entry = 0;
+		}
+		x += dx * entry;
+		z += dz * entry;
+
+		this.world = world;
+		this.maxDistance = maxDistance - entry;
+		this.x = (int) Math.floor(x);
+		this.z = (int) Math.floor(z);
+		if (entry > 0)
+		{
+			y = dy < 0 ? height : 0;
+			this.y = dy < 0 ? height - 1 : 0;
+		}
+		else
+		{
+			this.y = (int) Math.floor(y);
+		}
+		stepX = (int) Math.signum(dx);
+		stepY = (int) Math.signum(dy);
+		stepZ = (int) Math.signum(dz);
+		deltaX = Math.abs(1 / dx);
+		deltaY = Math.abs(1 / dy);
+		deltaZ = Math.abs(1 / dz);
+		maxX = getFirstBoundary(x, this.x, dx);
+		maxY = getFirstBoundary(y, this.y, dy);
+		maxZ = getFirstBoundary(z, this.z, dz);
+	}
+
+	/**
+	 * Get the distance along the ray to the first block boundary on an axis.
+	 */
+	private static double getFirstBoundary(double start, int block, double direction)
+	{
+		if (direction > 0)
+		{
+			return (block + 1 - start) / direction;
+		}
+		else if (direction < 0)
+		{
+			return (start - block) / -direction;
+		}
+		else
+		{
+			return Double.POSITIVE_INFINITY;
+		}
+	}
+
+	/**
+	 * Moves to the next block along the ray. The first call moves to the block
+	 * that contains the start of the ray, or the block where the ray enters the
+	 * world if it starts above or below it.
+	 *
+	 * @return {@code true} if there is a next block, {@code false} if the ray
+	 *         has reached its maximum distance, has left the world or never
+	 *         enters it.
+	 */
+	public boolean next()
+	{
+		if (ended)
+		{
+			return false;
+		}
+		else if (!started)
+		{
+			started = true;
+		}
+		else if (maxX < maxY && maxX < maxZ)
+		{
+			if (maxX > maxDistance)
+			{
+				return false;
+			}
+			x += stepX;
+			maxX += deltaX;
+		}
+		else if (maxY < maxZ)
+		{
+			if (maxY > maxDistance)
+			{
+				return false;
+			}
+			y += stepY;
+			maxY += deltaY;
+		}
+		else
+		{
+			if (maxZ > maxDistance)
+			{
+				return false;
+			}
+			z += stepZ;
+			maxZ += deltaZ;
+		}
+		return y >= 0 && y < world.getMaxHeight();
+	}
+
+	/**
+	 * Get the x coordinate of the current block.
+	 *
+	 * @return The x coordinate of the current block.
+	 */
+	public int getX()
+	{
+		return x;
+	}
+
+	/**
+	 * Get the y coordinate of the current block.
+	 *
+	 * @return The y coordinate of the current block.
+	 */
+	public int getY()
+	{
+		return y;
+	}
+
+	/**
+	 * Get the z coordinate of the current block.
+	 *
+	 * @return The z coordinate of the current block.
+	 */
+	public int getZ()
+	{
+		return z;
+	}
+
+	/**
+	 * Get the state of the current block.
+	 *
+	 * @return The state of the current block, as described by
+	 *         {@link ChunkSection#getState}.
+	 */
+	public int getState()
+	{
+		return world.getStateAt(x, y, z);
+	}
+}
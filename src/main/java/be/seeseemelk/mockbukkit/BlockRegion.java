@@ -0,0 +1,153 @@
+package be.seeseemelk.mockbukkit;
+
+import org.bukkit.Material;
+
+/**
+ * A box of blocks that was copied out of a {@link WorldMock} using
+ * {@link WorldMock#copyRegion}, and that can be pasted back using
+ * {@link WorldMock#pasteRegion}.
+ * <p>
+ * The blocks are stored in {@link ChunkSection}s, aligned to the lowest corner
+ * of the region.
+ */
+public class BlockRegion
+{
+	private final int width;
+	private final int height;
+	private final int length;
+	private final int sectionsX;
+	private final int sectionsY;
+	private final int sectionsZ;
+	private final ChunkSection[] sections;
+
+	/**
+	 * Creates a region that only contains air.
+	 *
+	 * @param width The size of the region along the x axis.
+	 * @param height The size of the region along the y axis.
+	 * @param length The size of the region along the z axis.
+	 */
+	public BlockRegion(int width, int height, int length)
+	{
+		if (width <= 0 || height <= 0 || length <= 0)
+		{
+			throw new IllegalArgumentException("A region must contain at least one block");
+		}
+		this.width = width;
+		this.height = height;
+		this.length = length;
+		sectionsX = (width + ChunkSection.SIZE - 1) / ChunkSection.SIZE;
+		sectionsY = (height + ChunkSection.SIZE - 1) / ChunkSection.SIZE;
+		sectionsZ = (length + ChunkSection.SIZE - 1) / ChunkSection.SIZE;
+		sections = new ChunkSection[sectionsX * sectionsY * sectionsZ];
+		for (int i = 0; i < sections.length; i++)
+		{
+			sections[i] = new ChunkSection();
+		}
+	}
+
+	/**
+	 * Get the size of the region along the x axis.
+	 *
+	 * @return The width of the region.
+	 */
+	public int getWidth()
+	{
+		return width;
+	}
+
+	/**
+	 * Get the size of the region along the y axis.
+	 *
+	 * @return The height of the region.
+	 */
+	public int getHeight()
+	{
+		return height;
+	}
+
+	/**
+	 * Get the size of the region along the z axis.
+	 *
+	 * @return The length of the region.
+	 */
+	public int getLength()
+	{
+		return length;
+	}
+
+	/**
+	 * Get the material of a block in the region.
+	 *
+	 * @param x The x coordinate of the block, relative to the lowest corner of the region.
+	 * @param y The y coordinate of the block, relative to the lowest corner of the region.
+	 * @param z The z coordinate of the block, relative to the lowest corner of the region.
+	 * @return The material of the block.
+	 */
+	public Material getType(int x, int y, int z)
+	{
+		return ChunkSection.getMaterial(getState(x, y, z));
+	}
+
+	/**
+	 * Get the state of a block in the region.
+	 *
+	 * @param x The x coordinate of the block, relative to the lowest corner of the region.
+	 * @param y The y coordinate of the block, relative to the lowest corner of the region.
+	 * @param z The z coordinate of the block, relative to the lowest corner of the region.
+	 * @return The state of the block, as described by {@link ChunkSection#getState}.
+	 */
+	public int getState(int x, int y, int z)
+	{
+		checkBounds(x, y, z);
+		return getSection(x >> 4, y >> 4, z >> 4).get(x, y, z);
+	}
+
+	/**
+	 * Sets the state of a block in the region.
+	 *
+	 * @param x The x coordinate of the block, relative to the lowest corner of the region.
+	 * @param y The y coordinate of the block, relative to the lowest corner of the region.
+	 * @param z The z coordinate of the block, relative to the lowest corner of the region.
+	 * @param state The new state of the block.
+	 */
+	public void setState(int x, int y, int z, int state)
+	{
+		checkBounds(x, y, z);
+		getSection(x >> 4, y >> 4, z >> 4).set(x, y, z, state);
+	}
+
+	/**
+	 * Get a section of the region.
+	 *
+	 * @param sectionX The x coordinate of the section within the region.
+	 * @param sectionY The y coordinate of the section within the region.
+	 * @param sectionZ The z coordinate of the section within the region.
+	 * @return The section.
+	 */
+	ChunkSection getSection(int sectionX, int sectionY, int sectionZ)
+	{
+		return sections[(sectionY * sectionsZ + sectionZ) * sectionsX + sectionX];
+	}
+
+	/**
+	 * Replaces a section of the region.
+	 *
+	 * @param sectionX The x coordinate of the section within the region.
+	 * @param sectionY The y coordinate of the section within the region.
+	 * @param sectionZ The z coordinate of the section within the region.
+	 * @param section The new section.
+	 */
+	void setSection(int sectionX, int sectionY, int sectionZ, ChunkSection section)
+	{
+		sections[(sectionY * sectionsZ + sectionZ) * sectionsX + sectionX] = section;
+	}
+
+	private void checkBounds(int x, int y, int z)
+	{
+		if (x < 0 || y < 0 || z < 0 || x >= width || y >= height || z >= length)
+		{
+			throw new ArrayIndexOutOfBoundsException("Coordinate outside of region");
+		}
+	}
+}
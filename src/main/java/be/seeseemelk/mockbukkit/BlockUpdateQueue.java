@@ -0,0 +1,305 @@
+package be.seeseemelk.mockbukkit;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the block updates of a world that are waiting for their tick.
+ * <p>
+ * Updates are grouped into one batch per tick, which stores the packed
+ * positions and states of its updates in primitive arrays. The ticks that
+ * have a batch are kept in a heap. A block has at most one pending update:
+ * scheduling an update for a block that already has one on the same tick or
+ * earlier does nothing, while scheduling an earlier update replaces the later
+ * one. The slot of every pending update is indexed by the position of its
+ * block, so replacing an update does not search its batch. Updates that could
+ * not be performed on their tick stay at the front of the queue.
+ * <p>
+ * The queue works like a cursor: {@link #poll(long)} moves to the next update
+ * that is due, which can then be read using {@link #getX()} and the other
+ * getters.
+ */
+class BlockUpdateQueue
+{
+	/**
+	 * Marks an update that was replaced by an earlier one. This is not the
+	 * position of any block, as no block has a y coordinate of 4095.
+	 */
+	private static final long REPLACED = -1L;
+	private static final int SCHEDULED = 1 << 31;
+
+	private final LongMap<Batch> batches = new LongMap<>();
+	private final LongMap<Slot> pending = new LongMap<>();
+	private long[] ticks = new long[16];
+	private int tickCount = 0;
+	private Batch spare;
+	private Slot freeSlots;
+	private long position;
+	private int state;
+
+	/**
+	 * Schedules an update for a block.
+	 *
+	 * @param x The x coordinate of the block.
+	 * @param y The y coordinate of the block.
+	 * @param z The z coordinate of the block.
+	 * @param tick The tick on which to update the block.
+	 * @param changed The state of the block that caused the update, as returned
+	 *        by {@link ChunkSection#getState}.
+	 * @param scheduled {@code true} if the block scheduled the update itself,
+	 *        {@code false} if it is notified of a change of its neighbour.
+	 * @return {@code true} if the update was added, {@code false} if the block
+	 *         already has an update on that tick or earlier.
+	 */
+	boolean schedule(int x, int y, int z, long tick, int changed, boolean scheduled)
+	{
+		long position = getPosition(x, y, z);
+		Slot slot = pending.get(position);
+		if (slot != null)
+		{
+			Batch existing = slot.batch;
+			if (existing.tick <= tick)
+			{
+				return false;
+			}
+			existing.positions[slot.index] = REPLACED;
+			existing.live--;
+			if (existing.live == 0)
+			{
+				discard(existing);
+			}
+		}
+
+		Batch batch = batches.get(tick);
+		if (batch == null)
+		{
+			batch = spare == null ? new Batch() : spare;
+			spare = null;
+			batch.tick = tick;
+			batches.put(tick, batch);
+			pushTick(tick);
+		}
+		int index = batch.add(position, scheduled ? changed | SCHEDULED : changed);
+		if (slot == null)
+		{
+			slot = freeSlots == null ? new Slot() : freeSlots;
+			freeSlots = slot.next;
+			slot.next = null;
+			pending.put(position, slot);
+		}
+		slot.batch = batch;
+		slot.index = index;
+		return true;
+	}
+
+	/**
+	 * Moves to the next update that is due on a tick and removes it from the
+	 * queue.
+	 *
+	 * @param tick The current tick.
+	 * @return {@code true} if an update is due, {@code false} if not.
+	 */
+	boolean poll(long tick)
+	{
+		while (tickCount > 0 && ticks[0] <= tick)
+		{
+			Batch batch = batches.get(ticks[0]);
+			while (batch != null && batch.head < batch.tail)
+			{
+				int index = batch.head++;
+				if (batch.positions[index] != REPLACED)
+				{
+					position = batch.positions[index];
+					state = batch.states[index];
+					Slot slot = pending.remove(position);
+					slot.batch = null;
+					slot.next = freeSlots;
+					freeSlots = slot;
+					batch.live--;
+					if (batch.live == 0)
+					{
+						discard(batch);
+					}
+					return true;
+				}
+			}
+			popTick();
+		}
+		return false;
+	}
+
+	/**
+	 * Get the x coordinate of the block of the update that was polled last.
+	 *
+	 * @return The x coordinate of the block.
+	 */
+	int getX()
+	{
+		return (int) (position >> 38);
+	}
+
+	/**
+	 * Get the y coordinate of the block of the update that was polled last.
+	 *
+	 * @return The y coordinate of the block.
+	 */
+	int getY()
+	{
+		return (int) (position & 0xFFF);
+	}
+
+	/**
+	 * Get the z coordinate of the block of the update that was polled last.
+	 *
+	 * @return The z coordinate of the block.
+	 */
+	int getZ()
+	{
+		return (int) (position << 26 >> 38);
+	}
+
+	/**
+	 * Get the state of the block that caused the update that was polled last.
+	 *
+	 * @return The state of the block that caused the update.
+	 */
+	int getChanged()
+	{
+		return state & ~SCHEDULED;
+	}
+
+	/**
+	 * Checks if the block of the update that was polled last scheduled the
+	 * update itself.
+	 *
+	 * @return {@code true} if the block scheduled the update itself,
+	 *         {@code false} if it was notified of a change of its neighbour.
+	 */
+	boolean isScheduled()
+	{
+		return (state & SCHEDULED) != 0;
+	}
+
+	/**
+	 * Get the tick of the earliest update.
+	 *
+	 * @return The tick of the earliest update, or {@link Long#MAX_VALUE} if no
+	 *         update is pending.
+	 */
+	long getNextTick()
+	{
+		// Batches are removed once their last update is performed or replaced,
+		// but their ticks are only removed from the heap once they are reached.
+		while (tickCount > 0 && batches.get(ticks[0]) == null)
+		{
+			popTick();
+		}
+		return tickCount == 0 ? Long.MAX_VALUE : ticks[0];
+	}
+
+	/**
+	 * Get the number of pending updates.
+	 *
+	 * @return The number of pending updates.
+	 */
+	int size()
+	{
+		return pending.size();
+	}
+
+	/**
+	 * Removes every pending update.
+	 */
+	void clear()
+	{
+		batches.clear();
+		pending.clear();
+		tickCount = 0;
+	}
+
+	private void discard(Batch batch)
+	{
+		batches.remove(batch.tick);
+		batch.head = 0;
+		batch.tail = 0;
+		spare = batch;
+	}
+
+	private void pushTick(long tick)
+	{
+		if (tickCount == ticks.length)
+		{
+			ticks = Arrays.copyOf(ticks, tickCount * 2);
+		}
+		int index = tickCount++;
+		while (index > 0 && ticks[(index - 1) / 2] > tick)
+		{
+			ticks[index] = ticks[(index - 1) / 2];
+			index = (index - 1) / 2;
+		}
+		ticks[index] = tick;
+	}
+
+	private void popTick()
+	{
+		long last = ticks[--tickCount];
+		int index = 0;
+		while (index * 2 + 1 < tickCount)
+		{
+			int child = index * 2 + 1;
+			if (child + 1 < tickCount && ticks[child + 1] < ticks[child])
+			{
+				child++;
+			}
+			if (ticks[child] >= last)
+			{
+				break;
+			}
+			ticks[index] = ticks[child];
+			index = child;
+		}
+		ticks[index] = last;
+	}
+
+	private static long getPosition(int x, int y, int z)
+	{
+		return ((long) x & 0x3FFFFFF) << 38 | ((long) z & 0x3FFFFFF) << 12 | y & 0xFFF;
+	}
+
+	/**
+	 * The updates that are due on the same tick, in the order in which they
+	 * were scheduled.
+	 */
+	private static class Batch
+	{
+		private long tick;
+		private long[] positions = new long[16];
+		private int[] states = new int[16];
+		private int head;
+		private int tail;
+		private int live;
+
+		private int add(long position, int state)
+		{
+			if (tail == positions.length)
+			{
+				positions = Arrays.copyOf(positions, tail * 2);
+				states = Arrays.copyOf(states, tail * 2);
+			}
+			positions[tail] = position;
+			states[tail] = state;
+			live++;
+			return tail++;
+		}
+	}
+
+	/**
+	 * Where the pending update of a block is stored. Slots are reused once
+	 * their update is performed.
+	 */
+	private static class Slot
+	{
+		private Batch batch;
+		private int index;
+		private Slot next;
+	}
+}
@@ -0,0 +1,208 @@
+package be.seeseemelk.mockbukkit;
+
+/**
+ * Holds the sections of a single chunk, from the bottom of the world to the top.
+ * Sections are {@code null} until they are first used.
+ */
+class ChunkColumn
+{
+	private final long key;
+	private final ChunkSection[] sections;
+	private boolean dirty = false;
+	private boolean modified = false;
+	private int[] heightmap;
+	private NibbleArray[] blockLight;
+	private NibbleArray[] skyLight;
+
+	/**
+	 * Creates an empty chunk column.
+	 *
+	 * @param key The packed coordinates of the chunk.
+	 * @param sectionCount The number of sections in the column.
+	 */
+	ChunkColumn(long key, int sectionCount)
+	{
+		this.key = key;
+		sections = new ChunkSection[sectionCount];
+	}
+
+	private ChunkColumn(ChunkColumn other)
+	{
+		key = other.key;
+		sections = other.sections.clone();
+		modified = other.modified;
+		heightmap = other.heightmap == null ? null : other.heightmap.clone();
+	}
+
+	/**
+	 * Get the packed coordinates of the chunk.
+	 *
+	 * @return The key of the chunk.
+	 */
+	long getKey()
+	{
+		return key;
+	}
+
+	/**
+	 * Get a section of the column.
+	 *
+	 * @param sectionY The y coordinate of the section, which is the y coordinate
+	 *        of a block divided by 16.
+	 * @return The section, or {@code null} if it has not been created yet.
+	 */
+	ChunkSection getSection(int sectionY)
+	{
+		return sections[sectionY];
+	}
+
+	/**
+	 * Sets a section of the column.
+	 *
+	 * @param sectionY The y coordinate of the section.
+	 * @param section The section to set.
+	 */
+	void setSection(int sectionY, ChunkSection section)
+	{
+		sections[sectionY] = section;
+	}
+
+	/**
+	 * Get the number of sections in the column.
+	 *
+	 * @return The number of sections.
+	 */
+	int getSectionCount()
+	{
+		return sections.length;
+	}
+
+	/**
+	 * Checks if the column was modified since the last snapshot of its world.
+	 *
+	 * @return {@code true} if the column was modified.
+	 */
+	boolean isDirty()
+	{
+		return dirty;
+	}
+
+	/**
+	 * Sets whether the column was modified since the last snapshot of its world.
+	 *
+	 * @param dirty {@code true} if the column was modified.
+	 */
+	void setDirty(boolean dirty)
+	{
+		this.dirty = dirty;
+	}
+
+	/**
+	 * Checks if any block in the column was ever modified. A column that was
+	 * not modified only contains blocks that can be computed again from the
+	 * default layers or read again from the fixture of its world.
+	 *
+	 * @return {@code true} if the column was modified.
+	 */
+	boolean isModified()
+	{
+		return modified;
+	}
+
+	/**
+	 * Remembers that a block in the column was modified.
+	 */
+	void setModified()
+	{
+		modified = true;
+	}
+
+	/**
+	 * Get the heightmap of the column. For every x and z coordinate, at index
+	 * {@code z << 4 | x}, it contains the y coordinate just above the highest
+	 * block that is not air.
+	 *
+	 * @return The heightmap, or {@code null} if it has not been computed since
+	 *         the column was last changed in bulk.
+	 */
+	int[] getHeightmap()
+	{
+		return heightmap;
+	}
+
+	/**
+	 * Sets the heightmap of the column.
+	 *
+	 * @param heightmap The heightmap, or {@code null} if it needs to be computed
+	 *        again before it is used.
+	 */
+	void setHeightmap(int[] heightmap)
+	{
+		this.heightmap = heightmap;
+	}
+
+	/**
+	 * Get the light that blocks emit, for every section of the column.
+	 *
+	 * @return The block light of every section, or {@code null} if the light of
+	 *         the column has not been computed.
+	 */
+	NibbleArray[] getBlockLight()
+	{
+		return blockLight;
+	}
+
+	/**
+	 * Get the light that comes from the sky, for every section of the column.
+	 *
+	 * @return The sky light of every section, or {@code null} if the light of
+	 *         the column has not been computed.
+	 */
+	NibbleArray[] getSkyLight()
+	{
+		return skyLight;
+	}
+
+	/**
+	 * Sets the light of every section of the column.
+	 *
+	 * @param blockLight The block light of every section, or {@code null} if it
+	 *        needs to be computed again before it is used.
+	 * @param skyLight The sky light of every section, or {@code null} if it
+	 *        needs to be computed again before it is used.
+	 */
+	void setLight(NibbleArray[] blockLight, NibbleArray[] skyLight)
+	{
+		this.blockLight = blockLight;
+		this.skyLight = skyLight;
+	}
+
+	/**
+	 * Checks if the light of the column has been computed.
+	 *
+	 * @return {@code true} if the light of the column is known.
+	 */
+	boolean isLit()
+	{
+		return skyLight != null;
+	}
+
+	/**
+	 * Creates a copy of this column that shares its sections. The sections are
+	 * frozen first, so that neither column can modify them anymore. The light
+	 * of the column is not copied.
+	 *
+	 * @return The copy.
+	 */
+	ChunkColumn share()
+	{
+		for (ChunkSection section : sections)
+		{
+			if (section != null)
+			{
+				section.freeze();
+			}
+		}
+		return new ChunkColumn(this);
+	}
+}
@@ -0,0 +1,168 @@
+package be.seeseemelk.mockbukkit;
+
+import java.util.List;
+
+import org.bukkit.Chunk;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.entity.Entity;
+
+/**
+ * A mock chunk. A chunk object only represents the chunk while it is loaded;
+ * once it is unloaded, loading it again creates a new object. The blocks of
+ * the chunk are stored by its {@link WorldMock}.
+ */
+public class ChunkMock implements Chunk
+{
+	private final WorldMock world;
+	private final int x;
+	private final int z;
+	private boolean loaded = true;
+	/**
+	 * The loaded chunks of a world are linked in the order in which they were
+	 * used, so that the world can unload the least recently used ones.
+	 */
+	ChunkMock olderChunk;
+	ChunkMock newerChunk;
+
+	/**
+	 * Creates a chunk of a world.
+	 *
+	 * @param world The world the chunk is part of.
+	 * @param x The x coordinate of the chunk.
+	 * @param z The z coordinate of the chunk.
+	 */
+	ChunkMock(WorldMock world, int x, int z)
+	{
+		this.world = world;
+		this.x = x;
+		this.z = z;
+	}
+
+	@Override
+	public int getX()
+	{
+		return x;
+	}
+
+	@Override
+	public int getZ()
+	{
+		return z;
+	}
+
+	@Override
+	public WorldMock getWorld()
+	{
+		return world;
+	}
+
+	@Override
+	public Block getBlock(int x, int y, int z)
+	{
+		return world.getBlockAt((this.x << 4) + (x & 15), y, (this.z << 4) + (z & 15));
+	}
+
+	@Override
+	public ChunkSnapshot getChunkSnapshot()
+	{
+		// TODO Auto-generated method stub
+		throw new UnimplementedOperationException();
+	}
+
+	@Override
+	public ChunkSnapshot getChunkSnapshot(boolean includeMaxblocky, boolean includeBiome,
+			boolean includeBiomeTempRain)
+	{
+		// TODO Auto-generated method stub
+		throw new UnimplementedOperationException();
+	}
+
+	@Override
+	public Entity[] getEntities()
+	{
+		List<Entity> entities = world.getEntitiesInChunk(x, z);
+		return entities.toArray(new Entity[entities.size()]);
+	}
+
+	@Override
+	public BlockState[] getTileEntities()
+	{
+		// TODO Auto-generated method stub
+		throw new UnimplementedOperationException();
+	}
+
+	@Override
+	public boolean isLoaded()
+	{
+		return loaded;
+	}
+
+	/**
+	 * Marks the chunk as unloaded. Called by the world once it unloads the chunk.
+	 */
+	void setUnloaded()
+	{
+		loaded = false;
+	}
+
+	@Override
+	public boolean load(boolean generate)
+	{
+		return world.loadChunk(x, z, generate);
+	}
+
+	@Override
+	public boolean load()
+	{
+		return load(true);
+	}
+
+	@Override
+	@Deprecated
+	public boolean unload(boolean save, boolean safe)
+	{
+		return world.unloadChunk(x, z, save, safe);
+	}
+
+	@Override
+	public boolean unload(boolean save)
+	{
+		return unload(save, true);
+	}
+
+	@Override
+	public boolean unload()
+	{
+		return unload(true);
+	}
+
+	@Override
+	public boolean isSlimeChunk()
+	{
+		// TODO Auto-generated method stub
+		throw new UnimplementedOperationException();
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return 31 * (31 * world.hashCode() + x) + z;
+	}
+
+	@Override
+	public boolean equals(Object obj)
+	{
+		if (this == obj)
+		{
+			return true;
+		}
+		if (!(obj instanceof ChunkMock))
+		{
+			return false;
+		}
+		ChunkMock other = (ChunkMock) obj;
+		return world == other.world && x == other.x && z == other.z;
+	}
+}
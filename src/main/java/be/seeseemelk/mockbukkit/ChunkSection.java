@@ -0,0 +1,447 @@
+package be.seeseemelk.mockbukkit;
+
+import java.util.Arrays;
+
+import org.bukkit.Material;
+
+/**
+ * Stores the blocks of a 16x16x16 section of a chunk.
+ * <p>
+ * Every block is stored as a state, which is its material and its data packed
+ * into a single {@code int}. The section keeps a palette of the distinct states
+ * it contains and stores for every block an index into that palette, packed
+ * into an array of {@code long}s using as few bits as the size of the palette
+ * allows. A section that contains a single state does not store any indices at
+ * all.
+ * <p>
+ * A section can be frozen, after which it can no longer be modified. Frozen
+ * sections can be shared safely, for instance between a world and its
+ * snapshots.
+ */
+public class ChunkSection
+{
+	/**
+	 * The number of blocks along each axis of a section.
+	 */
+	public static final int SIZE = 16;
+	/**
+	 * The number of blocks in a section.
+	 */
+	public static final int VOLUME = SIZE * SIZE * SIZE;
+	private static final Material[] MATERIALS = Material.values();
+
+	private int[] palette;
+	private int paletteSize;
+	private long[] data;
+	private int bits;
+	private int entriesPerLong;
+	private int mask;
+	private boolean frozen = false;
+
+	/**
+	 * Creates a section in which every block has the same state.
+	 *
+	 * @param state The state of every block in the section.
+	 */
+	public ChunkSection(int state)
+	{
+		fill(state);
+	}
+
+	/**
+	 * Creates a section that only contains air.
+	 */
+	public ChunkSection()
+	{
+		this(getState(Material.AIR, (byte) 0));
+	}
+
+	/**
+	 * Creates a section that contains the same blocks as another section.
+	 *
+	 * @param other The section to copy.
+	 */
+	private ChunkSection(ChunkSection other)
+	{
+		palette = Arrays.copyOf(other.palette, other.paletteSize);
+		paletteSize = other.paletteSize;
+		data = other.data == null ? null : other.data.clone();
+		bits = other.bits;
+		entriesPerLong = other.entriesPerLong;
+		mask = other.mask;
+	}
+
+	/**
+	 * Creates a section from its raw palette and packed indices, as returned by
+	 * {@link #getPalette()} and {@link #getPackedData()}.
+	 *
+	 * @param palette The states in the palette.
+	 * @param bits The number of bits used for each index.
+	 * @param data The packed indices, or {@code null} if {@code bits} is zero.
+	 */
+	ChunkSection(int[] palette, int bits, long[] data)
+	{
+		if (bits == 0 ? palette.length != 1 || data != null
+				: palette.length > 1 << bits || data.length != getDataLength(bits))
+		{
+			throw new IllegalArgumentException("Invalid section data");
+		}
+		this.palette = palette;
+		this.paletteSize = palette.length;
+		this.bits = bits;
+		this.data = data;
+		if (bits > 0)
+		{
+			mask = (1 << bits) - 1;
+			entriesPerLong = 64 / bits;
+		}
+	}
+
+	/**
+	 * Get the number of {@code long}s needed to store every index.
+	 *
+	 * @param bits The number of bits per index.
+	 * @return The length of the packed data.
+	 */
+	static int getDataLength(int bits)
+	{
+		int entriesPerLong = 64 / bits;
+		return (VOLUME + entriesPerLong - 1) / entriesPerLong;
+	}
+
+	/**
+	 * Get the states in the palette of the section.
+	 *
+	 * @return A copy of the palette.
+	 */
+	int[] getPalette()
+	{
+		return Arrays.copyOf(palette, paletteSize);
+	}
+
+	/**
+	 * Get the packed palette indices of the section.
+	 *
+	 * @return The packed indices, or {@code null} if the section contains a
+	 *         single state. The array must not be modified.
+	 */
+	long[] getPackedData()
+	{
+		return data;
+	}
+
+	/**
+	 * Prevents the section from being modified from now on.
+	 */
+	void freeze()
+	{
+		frozen = true;
+	}
+
+	/**
+	 * Checks if the section has been frozen.
+	 *
+	 * @return {@code true} if the section can no longer be modified.
+	 */
+	public boolean isFrozen()
+	{
+		return frozen;
+	}
+
+	/**
+	 * Creates a copy of this section. Changes made to the copy do not affect
+	 * this section and vice versa. The copy is never frozen.
+	 *
+	 * @return The copy.
+	 */
+	public ChunkSection copy()
+	{
+		return new ChunkSection(this);
+	}
+
+	/**
+	 * Packs a material and its data into a state.
+	 *
+	 * @param material The material of the block.
+	 * @param data The data of the block.
+	 * @return The state.
+	 */
+	public static int getState(Material material, byte data)
+	{
+		return material.ordinal() << 8 | (data & 0xFF);
+	}
+
+	/**
+	 * Get the material of a state.
+	 *
+	 * @param state The state.
+	 * @return The material of the state.
+	 */
+	public static Material getMaterial(int state)
+	{
+		return MATERIALS[state >>> 8];
+	}
+
+	/**
+	 * Get the data of a state.
+	 *
+	 * @param state The state.
+	 * @return The data of the state.
+	 */
+	public static byte getData(int state)
+	{
+		return (byte) state;
+	}
+
+	/**
+	 * Get the index of a block within a section.
+	 *
+	 * @param x The x coordinate of the block. Only the lowest four bits are used.
+	 * @param y The y coordinate of the block. Only the lowest four bits are used.
+	 * @param z The z coordinate of the block. Only the lowest four bits are used.
+	 * @return The index of the block.
+	 */
+	public static int getIndex(int x, int y, int z)
+	{
+		return (y & 15) << 8 | (z & 15) << 4 | (x & 15);
+	}
+
+	/**
+	 * Get the state of a block.
+	 *
+	 * @param x The x coordinate of the block within the section.
+	 * @param y The y coordinate of the block within the section.
+	 * @param z The z coordinate of the block within the section.
+	 * @return The state of the block.
+	 */
+	public int get(int x, int y, int z)
+	{
+		return get(getIndex(x, y, z));
+	}
+
+	/**
+	 * Get the state of a block.
+	 *
+	 * @param index The index of the block, as returned by {@link #getIndex}.
+	 * @return The state of the block.
+	 */
+	public int get(int index)
+	{
+		if (bits == 0)
+		{
+			return palette[0];
+		}
+		long word = data[index / entriesPerLong];
+		int shift = (index % entriesPerLong) * bits;
+		return palette[(int) (word >>> shift) & mask];
+	}
+
+	/**
+	 * Sets the state of a block.
+	 *
+	 * @param x The x coordinate of the block within the section.
+	 * @param y The y coordinate of the block within the section.
+	 * @param z The z coordinate of the block within the section.
+	 * @param state The new state of the block.
+	 * @return The previous state of the block.
+	 */
+	public int set(int x, int y, int z, int state)
+	{
+		return set(getIndex(x, y, z), state);
+	}
+
+	/**
+	 * Sets the state of a block.
+	 *
+	 * @param index The index of the block, as returned by {@link #getIndex}.
+	 * @param state The new state of the block.
+	 * @return The previous state of the block.
+	 */
+	public int set(int index, int state)
+	{
+		checkNotFrozen();
+		int previous = get(index);
+		if (previous != state)
+		{
+			setId(index, getId(state));
+		}
+		return previous;
+	}
+
+	/**
+	 * Sets every block in the section to the same state.
+	 *
+	 * @param state The state to give every block.
+	 */
+	public void fill(int state)
+	{
+		checkNotFrozen();
+		palette = new int[] { state };
+		paletteSize = 1;
+		data = null;
+		bits = 0;
+		mask = 0;
+	}
+
+	/**
+	 * Sets every block in a horizontal layer of the section to the same state.
+	 *
+	 * @param y The y coordinate of the layer within the section.
+	 * @param state The state to give every block of the layer.
+	 */
+	public void fillLayer(int y, int state)
+	{
+		checkNotFrozen();
+		int start = getIndex(0, y, 0);
+		if (bits == 0 && palette[0] == state)
+		{
+			return;
+		}
+		int id = getId(state);
+		for (int index = start; index < start + SIZE * SIZE; index++)
+		{
+			setId(index, id);
+		}
+	}
+
+	/**
+	 * Sets every block in a box within the section to the same state.
+	 *
+	 * @param minX The lowest x coordinate of the box within the section.
+	 * @param minY The lowest y coordinate of the box within the section.
+	 * @param minZ The lowest z coordinate of the box within the section.
+	 * @param maxX The highest x coordinate of the box within the section.
+	 * @param maxY The highest y coordinate of the box within the section.
+	 * @param maxZ The highest z coordinate of the box within the section.
+	 * @param state The state to give every block in the box.
+	 */
+	public void fill(int minX, int minY, int minZ, int maxX, int maxY, int maxZ, int state)
+	{
+		checkNotFrozen();
+		if (minX == 0 && minY == 0 && minZ == 0 && maxX == SIZE - 1 && maxY == SIZE - 1 && maxZ == SIZE - 1)
+		{
+			fill(state);
+			return;
+		}
+		if (bits == 0 && palette[0] == state)
+		{
+			return;
+		}
+
+		int id = getId(state);
+		for (int y = minY; y <= maxY; y++)
+		{
+			for (int z = minZ; z <= maxZ; z++)
+			{
+				int index = getIndex(minX, y, z);
+				for (int x = minX; x <= maxX; x++)
+				{
+					setId(index++, id);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks if every block in the section has the same state.
+	 *
+	 * @return {@code true} if the section contains a single state,
+	 *         {@code false} if it might contain more.
+	 */
+	public boolean isUniform()
+	{
+		return bits == 0;
+	}
+
+	/**
+	 * Get the number of bits that are used to store a single block.
+	 *
+	 * @return The number of bits per block.
+	 */
+	public int getBitsPerBlock()
+	{
+		return bits;
+	}
+
+	private void checkNotFrozen()
+	{
+		if (frozen)
+		{
+			throw new IllegalStateException("Section is frozen");
+		}
+	}
+
+	/**
+	 * Get the index of a state in the palette, adding it if it is not present yet.
+	 */
+	private int getId(int state)
+	{
+		for (int id = 0; id < paletteSize; id++)
+		{
+			if (palette[id] == state)
+			{
+				return id;
+			}
+		}
+
+		if (paletteSize > mask)
+		{
+			resize(paletteSize + 1);
+		}
+		if (paletteSize == palette.length)
+		{
+			palette = Arrays.copyOf(palette, palette.length * 2);
+		}
+		palette[paletteSize] = state;
+		return paletteSize++;
+	}
+
+	private void setId(int index, int id)
+	{
+		int word = index / entriesPerLong;
+		int shift = (index % entriesPerLong) * bits;
+		data[word] = data[word] & ~((long) mask << shift) | (long) id << shift;
+	}
+
+	/**
+	 * Repacks the indices so that at least {@code required} palette entries fit.
+	 * Palette entries that are no longer used by any block are dropped first, so
+	 * a section that is overwritten many times does not keep on growing.
+	 */
+	private void resize(int required)
+	{
+		int[] ids = new int[VOLUME];
+		boolean[] used = new boolean[paletteSize];
+		for (int index = 0; index < VOLUME; index++)
+		{
+			int id = bits == 0 ? 0 : (int) (data[index / entriesPerLong] >>> (index % entriesPerLong) * bits) & mask;
+			ids[index] = id;
+			used[id] = true;
+		}
+
+		int[] remap = new int[paletteSize];
+		int[] newPalette = new int[Math.max(palette.length, 2)];
+		int newSize = 0;
+		for (int id = 0; id < paletteSize; id++)
+		{
+			if (used[id])
+			{
+				remap[id] = newSize;
+				newPalette[newSize++] = palette[id];
+			}
+		}
+		required -= paletteSize - newSize;
+
+		int newBits = Math.max(1, 32 - Integer.numberOfLeadingZeros(required - 1));
+		palette = newPalette;
+		paletteSize = newSize;
+		bits = newBits;
+		mask = (1 << bits) - 1;
+		entriesPerLong = 64 / bits;
+		data = new long[getDataLength(bits)];
+		for (int index = 0; index < VOLUME; index++)
+		{
+			setId(index, remap[ids[index]]);
+		}
+	}
+}
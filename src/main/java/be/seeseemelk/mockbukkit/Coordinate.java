@@ -34,7 +34,9 @@ public class Coordinate
 	@Override
 	public int hashCode()
 	{
-		return (x << 0) + (y << 8) + (z << 16);
+		// Each axis is multiplied by a different large prime, so that nearby
+		// coordinates spread over the whole range of hash codes.
+		return (x * 73856093) ^ (y * 19349663) ^ (z * 83492791);
 	}
 
 	@Override
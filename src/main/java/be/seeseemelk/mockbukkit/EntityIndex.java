@@ -0,0 +1,208 @@
+package be.seeseemelk.mockbukkit;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+
+/**
+ * Keeps track of the entities in a world, grouped by the chunk they are in.
+ * <p>
+ * Queries only look at the chunks that overlap the queried box, so their cost
+ * depends on the number of entities near the box rather than on the number of
+ * entities in the world. Entities are identified by their unique id.
+ */
+class EntityIndex
+{
+	private final Map<UUID, Entry> entries = new LinkedHashMap<>();
+	private final LongMap<List<Entity>> cells = new LongMap<>();
+
+	/**
+	 * Checks if an entity is in the index.
+	 *
+	 * @param entity The entity to look for.
+	 * @return {@code true} if the entity is in the index.
+	 */
+	boolean contains(Entity entity)
+	{
+		return entries.containsKey(entity.getUniqueId());
+	}
+
+	/**
+	 * Adds an entity to the index, or moves it to the chunk it is in now if it
+	 * already was in the index.
+	 *
+	 * @param entity The entity to add.
+	 */
+	void update(Entity entity)
+	{
+		Location location = entity.getLocation();
+		long cell = getCell(location.getBlockX() >> 4, location.getBlockZ() >> 4);
+		Entry entry = entries.get(entity.getUniqueId());
+		if (entry == null)
+		{
+			entries.put(entity.getUniqueId(), new Entry(entity, cell));
+		}
+		else if (entry.cell != cell)
+		{
+			removeFromCell(entry.entity, entry.cell);
+			entry.cell = cell;
+		}
+		else
+		{
+			return;
+		}
+
+		List<Entity> entities = cells.get(cell);
+		if (entities == null)
+		{
+			entities = new ArrayList<>();
+			cells.put(cell, entities);
+		}
+		entities.add(entity);
+	}
+
+	/**
+	 * Removes an entity from the index.
+	 *
+	 * @param entity The entity to remove.
+	 * @return {@code true} if the entity was in the index.
+	 */
+	boolean remove(Entity entity)
+	{
+		Entry entry = entries.remove(entity.getUniqueId());
+		if (entry == null)
+		{
+			return false;
+		}
+		removeFromCell(entry.entity, entry.cell);
+		return true;
+	}
+
+	/**
+	 * Get every entity in the index, in the order in which they were added.
+	 *
+	 * @return A new list containing every entity.
+	 */
+	List<Entity> getAll()
+	{
+		List<Entity> entities = new ArrayList<>(entries.size());
+		for (Entry entry : entries.values())
+		{
+			entities.add(entry.entity);
+		}
+		return entities;
+	}
+
+	/**
+	 * Get the entities in a chunk.
+	 *
+	 * @param chunkX The x coordinate of the chunk.
+	 * @param chunkZ The z coordinate of the chunk.
+	 * @return A new list containing the entities in the chunk.
+	 */
+	List<Entity> getInChunk(int chunkX, int chunkZ)
+	{
+		List<Entity> entities = cells.get(getCell(chunkX, chunkZ));
+		return entities == null ? new ArrayList<>() : new ArrayList<>(entities);
+	}
+
+	/**
+	 * Get the entities whose location is inside a box.
+	 *
+	 * @param minX The lowest x coordinate of the box.
+	 * @param minY The lowest y coordinate of the box.
+	 * @param minZ The lowest z coordinate of the box.
+	 * @param maxX The highest x coordinate of the box.
+	 * @param maxY The highest y coordinate of the box.
+	 * @param maxZ The highest z coordinate of the box.
+	 * @return A new list containing the entities inside the box.
+	 */
+	List<Entity> query(double minX, double minY, double minZ, double maxX, double maxY, double maxZ)
+	{
+		List<Entity> result = new ArrayList<>();
+		int minChunkX = (int) Math.floor(minX) >> 4;
+		int minChunkZ = (int) Math.floor(minZ) >> 4;
+		int maxChunkX = (int) Math.floor(maxX) >> 4;
+		int maxChunkZ = (int) Math.floor(maxZ) >> 4;
+
+		// A box that covers more chunks than there are occupied chunks is
+		// cheaper to answer by looking at every occupied chunk.
+		if ((long) (maxChunkX - minChunkX + 1) * (maxChunkZ - minChunkZ + 1) > cells.size())
+		{
+			for (List<Entity> entities : cells.values())
+			{
+				addInside(entities, result, minX, minY, minZ, maxX, maxY, maxZ);
+			}
+			return result;
+		}
+
+		for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++)
+		{
+			for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++)
+			{
+				List<Entity> entities = cells.get(getCell(chunkX, chunkZ));
+				if (entities != null)
+				{
+					addInside(entities, result, minX, minY, minZ, maxX, maxY, maxZ);
+				}
+			}
+		}
+		return result;
+	}
+
+	private static void addInside(List<Entity> entities, List<Entity> result, double minX, double minY, double minZ,
+			double maxX, double maxY, double maxZ)
+	{
+		for (Entity entity : entities)
+		{
+			Location location = entity.getLocation();
+			if (location.getX() >= minX && location.getX() <= maxX && location.getY() >= minY
+					&& location.getY() <= maxY && location.getZ() >= minZ && location.getZ() <= maxZ)
+			{
+				result.add(entity);
+			}
+		}
+	}
+
+	private void removeFromCell(Entity entity, long cell)
+	{
+		List<Entity> entities = cells.get(cell);
+		for (int i = 0; i < entities.size(); i++)
+		{
+			if (entities.get(i) == entity)
+			{
+				// The order within a cell does not matter, so the last entity
+				// can take the place of the removed one.
+				entities.set(i, entities.get(entities.size() - 1));
+				entities.remove(entities.size() - 1);
+				break;
+			}
+		}
+		if (entities.isEmpty())
+		{
+			cells.remove(cell);
+		}
+	}
+
+	private static long getCell(int chunkX, int chunkZ)
+	{
+		return (long) chunkX << 32 | chunkZ & 0xFFFFFFFFL;
+	}
+
+	private static class Entry
+	{
+		private final Entity entity;
+		private long cell;
+
+		private Entry(Entity entity, long cell)
+		{
+			this.entity = entity;
+			this.cell = cell;
+		}
+	}
+}
@@ -0,0 +1,622 @@
+package be.seeseemelk.mockbukkit;
+
+import java.util.Arrays;
+
+import org.bukkit.Material;
+
+/**
+ * Computes the block light and sky light of the chunk columns of a world.
+ * <p>
+ * The light of a column is computed the first time it is needed. After that,
+ * every block change only updates the light around the changed block: the
+ * light that depended on the block is removed with a breadth-first search,
+ * after which the darkened area is lit again from its edges. Both searches
+ * queue packed coordinates in plain {@code int} arrays.
+ * <p>
+ * Light only spreads between columns whose light has been computed. When the
+ * light of a column is computed, it takes in the light at the edges of its
+ * computed neighbours and spreads its own light into them.
+ * <p>
+ * Columns that are not stored consist of the default layers of the world, so
+ * they are not created just to hold their light. Instead, they all share one
+ * column of default light. Only when light spreads into such a column and
+ * makes a block brighter than its default light is the column created and lit.
+ */
+class LightEngine
+{
+	private static final int MAX_LIGHT = 15;
+	private static final byte[] EMISSION = new byte[Material.values().length];
+	private static final byte[] OPACITY = new byte[Material.values().length];
+	private static final int[] DX = { 1, -1, 0, 0, 0, 0 };
+	private static final int[] DY = { 0, 0, 1, -1, 0, 0 };
+	private static final int[] DZ = { 0, 0, 0, 0, 1, -1 };
+	private static final int DOWN = 3;
+	private static final int WINDOW_SIZE = 3 * ChunkSection.SIZE;
+
+	static
+	{
+		for (Material material : Material.values())
+		{
+			if (material.isOccluding())
+			{
+				OPACITY[material.ordinal()] = MAX_LIGHT;
+			}
+		}
+		setOpacity(3, Material.WATER, Material.STATIONARY_WATER, Material.ICE, Material.FROSTED_ICE);
+		setOpacity(1, Material.LEAVES, Material.LEAVES_2, Material.WEB);
+
+		setEmission(15, Material.LAVA, Material.STATIONARY_LAVA, Material.FIRE, Material.GLOWSTONE,
+				Material.JACK_O_LANTERN, Material.BEACON, Material.SEA_LANTERN, Material.END_GATEWAY,
+				Material.ENDER_PORTAL, Material.REDSTONE_LAMP_ON);
+		setEmission(14, Material.TORCH, Material.END_ROD);
+		setEmission(13, Material.BURNING_FURNACE);
+		setEmission(11, Material.PORTAL);
+		setEmission(9, Material.GLOWING_REDSTONE_ORE, Material.DIODE_BLOCK_ON);
+		setEmission(7, Material.REDSTONE_TORCH_ON, Material.ENDER_CHEST);
+		setEmission(3, Material.MAGMA);
+		setEmission(1, Material.BREWING_STAND, Material.BROWN_MUSHROOM, Material.DRAGON_EGG,
+				Material.ENDER_PORTAL_FRAME);
+	}
+
+	private final WorldMock world;
+	/*
+	 * The columns around the column that is being lit, with the lit column in
+	 * the middle. Columns that are stored but not lit are null, and columns
+	 * that consist of the default layers are the default column. Coordinates
+	 * in the queues are relative to the corner of the window.
+	 */
+	private final ChunkColumn[] window = new ChunkColumn[9];
+	private ChunkColumn defaultColumn;
+	private int windowX;
+	private int windowZ;
+	private long[] created = new long[8];
+	private int createdCount;
+	private int[] queue = new int[256];
+	private int head;
+	private int tail;
+	private int[] removed = new int[256];
+	private int removedCount;
+
+	/**
+	 * Creates a light engine.
+	 *
+	 * @param world The world to compute the light of.
+	 */
+	LightEngine(WorldMock world)
+	{
+		this.world = world;
+	}
+
+	private static void setOpacity(int opacity, Material... materials)
+	{
+		for (Material material : materials)
+		{
+			OPACITY[material.ordinal()] = (byte) opacity;
+		}
+	}
+
+	private static void setEmission(int emission, Material... materials)
+	{
+		for (Material material : materials)
+		{
+			EMISSION[material.ordinal()] = (byte) emission;
+		}
+	}
+
+	/**
+	 * Get the light level a block emits.
+	 *
+	 * @param state The state of the block, as returned by
+	 *        {@link ChunkSection#getState}.
+	 * @return The light level the block emits.
+	 */
+	static int getEmission(int state)
+	{
+		return EMISSION[state >>> 8];
+	}
+
+	/**
+	 * Get how much light a block absorbs.
+	 *
+	 * @param state The state of the block, as returned by
+	 *        {@link ChunkSection#getState}.
+	 * @return The number of light levels the block absorbs, with
+	 *         {@code 15} for blocks that light cannot pass through.
+	 */
+	static int getOpacity(int state)
+	{
+		return OPACITY[state >>> 8];
+	}
+
+	/**
+	 * Get the light level light has after spreading into a block.
+	 */
+	private static int spread(boolean sky, int level, int opacity, boolean down)
+	{
+		if (sky && down && level == MAX_LIGHT && opacity == 0)
+		{
+			// Direct sky light does not fade when going down.
+			return MAX_LIGHT;
+		}
+		return level - Math.max(1, opacity);
+	}
+
+	/**
+	 * Computes the light of a column that has not been lit yet.
+	 *
+	 * @param column The column to light.
+	 */
+	void light(ChunkColumn column)
+	{
+		lightColumn(column);
+		lightCreated();
+	}
+
+	private void lightColumn(ChunkColumn column)
+	{
+		int height = world.getMaxHeight();
+		int[] heightmap = world.getHeightmap(column);
+		int top = 0;
+		for (int columnHeight : heightmap)
+		{
+			top = Math.max(top, columnHeight);
+		}
+
+		// Sections above the highest block only see the sky.
+		int openSection = (top + ChunkSection.SIZE - 1) >> 4;
+		int sectionCount = column.getSectionCount();
+		NibbleArray[] blockLight = new NibbleArray[sectionCount];
+		NibbleArray[] skyLight = new NibbleArray[sectionCount];
+		for (int sectionY = 0; sectionY < sectionCount; sectionY++)
+		{
+			blockLight[sectionY] = new NibbleArray(0);
+			skyLight[sectionY] = new NibbleArray(sectionY < openSection ? 0 : MAX_LIGHT);
+		}
+		column.setLight(blockLight, skyLight);
+
+		long key = column.getKey();
+		setWindow((int) (key >> 32), (int) key, column);
+
+		head = 0;
+		tail = 0;
+		int fromY = Math.min(openSection << 4, height) - 1;
+		for (int index = 0; index < heightmap.length; index++)
+		{
+			int x = index & 15;
+			int z = index >> 4;
+			int level = MAX_LIGHT;
+			for (int y = fromY; y >= 0 && level > 0; y--)
+			{
+				if (y < heightmap[index])
+				{
+					int opacity = getOpacity(world.getStateAt(column, x, y, z));
+					level = Math.max(0, spread(true, level, opacity, true));
+				}
+				skyLight[y >> 4].set(ChunkSection.getIndex(x, y, z), level);
+				if (level > 1)
+				{
+					enqueue(x + ChunkSection.SIZE, y, z + ChunkSection.SIZE);
+				}
+			}
+		}
+		exchangeEdges(true);
+		propagate(true);
+
+		head = 0;
+		tail = 0;
+		addSources(column);
+		exchangeEdges(false);
+		propagate(false);
+	}
+
+	/**
+	 * Creates and lights the columns of default layers that light spread into.
+	 * Lighting a column can make light spread into more of them.
+	 */
+	private void lightCreated()
+	{
+		while (createdCount > 0)
+		{
+			long key = created[--createdCount];
+			ChunkColumn column = world.createColumn((int) (key >> 32), (int) key);
+			if (!column.isLit())
+			{
+				lightColumn(column);
+			}
+		}
+	}
+
+	/**
+	 * Remembers that light spread into a column of default layers, so that the
+	 * column is created and lit once the current search is done.
+	 */
+	private void addCreated(int x, int z)
+	{
+		long key = (long) (windowX + (x >> 4) - 1) << 32 | (windowZ + (z >> 4) - 1) & 0xFFFFFFFFL;
+		for (int i = 0; i < createdCount; i++)
+		{
+			if (created[i] == key)
+			{
+				return;
+			}
+		}
+		if (createdCount == created.length)
+		{
+			created = Arrays.copyOf(created, createdCount * 2);
+		}
+		created[createdCount++] = key;
+	}
+
+	/**
+	 * Updates the light around a block after it changed into a block that
+	 * emits or absorbs a different amount of light. The column of the block
+	 * must be lit.
+	 *
+	 * @param x The x coordinate of the block.
+	 * @param y The y coordinate of the block.
+	 * @param z The z coordinate of the block.
+	 */
+	void update(int x, int y, int z)
+	{
+		setWindow(x >> 4, z >> 4, world.getStoredColumn(x >> 4, z >> 4));
+		int blockX = (x & 15) + ChunkSection.SIZE;
+		int blockZ = (z & 15) + ChunkSection.SIZE;
+		relight(false, blockX, y, blockZ);
+		relight(true, blockX, y, blockZ);
+		lightCreated();
+	}
+
+	/**
+	 * Removes the light that depended on a block and lights the darkened area
+	 * again from its edges.
+	 */
+	private void relight(boolean sky, int x, int y, int z)
+	{
+		head = 0;
+		tail = 0;
+		removedCount = 0;
+		int level = getNibbles(sky, x, y, z).get(ChunkSection.getIndex(x, y, z));
+		getNibbles(sky, x, y, z).set(ChunkSection.getIndex(x, y, z), 0);
+		addRemoved(x, y, z, level);
+
+		for (int i = 0; i < removedCount; i++)
+		{
+			int entry = removed[i];
+			int fromX = entry & 63;
+			int fromZ = entry >> 6 & 63;
+			int fromY = entry >> 12 & 4095;
+			int fromLevel = entry >>> 24;
+			for (int direction = 0; direction < 6; direction++)
+			{
+				int toX = fromX + DX[direction];
+				int toY = fromY + DY[direction];
+				int toZ = fromZ + DZ[direction];
+				NibbleArray nibbles = getNibbles(sky, toX, toY, toZ);
+				if (nibbles == null)
+				{
+					continue;
+				}
+				int index = ChunkSection.getIndex(toX, toY, toZ);
+				int toLevel = nibbles.get(index);
+				if (toLevel == 0)
+				{
+					continue;
+				}
+				if (getColumn(toX, toZ) != defaultColumn
+						&& (toLevel < fromLevel || sky && direction == DOWN && fromLevel == MAX_LIGHT))
+				{
+					nibbles.set(index, 0);
+					addRemoved(toX, toY, toZ, toLevel);
+				}
+				else
+				{
+					// This light does not depend on the removed light, so it can
+					// light the darkened area again.
+					enqueue(toX, toY, toZ);
+				}
+			}
+		}
+
+		// Darkened blocks may still emit light or see the sky themselves.
+		for (int i = 0; i < removedCount; i++)
+		{
+			int entry = removed[i];
+			int blockX = entry & 63;
+			int blockZ = entry >> 6 & 63;
+			int blockY = entry >> 12 & 4095;
+			int source = getSource(sky, blockX, blockY, blockZ);
+			NibbleArray nibbles = getNibbles(sky, blockX, blockY, blockZ);
+			int index = ChunkSection.getIndex(blockX, blockY, blockZ);
+			if (source > nibbles.get(index))
+			{
+				nibbles.set(index, source);
+				enqueue(blockX, blockY, blockZ);
+			}
+		}
+		propagate(sky);
+	}
+
+	/**
+	 * Get the light level a block has by itself, without any light spreading
+	 * into it from its neighbours.
+	 */
+	private int getSource(boolean sky, int x, int y, int z)
+	{
+		int state = getState(x, y, z);
+		if (!sky)
+		{
+			return getEmission(state);
+		}
+		else if (y == world.getMaxHeight() - 1)
+		{
+			return Math.max(0, spread(true, MAX_LIGHT, getOpacity(state), true));
+		}
+		else
+		{
+			return 0;
+		}
+	}
+
+	/**
+	 * Sets the block light of every block in a column that emits light, and
+	 * queues those blocks.
+	 */
+	private void addSources(ChunkColumn column)
+	{
+		int height = world.getMaxHeight();
+		NibbleArray[] blockLight = column.getBlockLight();
+		for (int sectionY = 0; sectionY < column.getSectionCount(); sectionY++)
+		{
+			ChunkSection section = world.getLoadedSection(column, sectionY);
+			if (section != null && !containsSource(section))
+			{
+				continue;
+			}
+
+			int maxY = Math.min((sectionY + 1) << 4, height);
+			for (int y = sectionY << 4; y < maxY; y++)
+			{
+				// Sections that are not stored have the same block in every layer.
+				if (section == null && getEmission(world.getStateAt(column, 0, y, 0)) == 0)
+				{
+					continue;
+				}
+				for (int z = 0; z < ChunkSection.SIZE; z++)
+				{
+					for (int x = 0; x < ChunkSection.SIZE; x++)
+					{
+						int emission = getEmission(world.getStateAt(column, x, y, z));
+						if (emission > 0)
+						{
+							blockLight[sectionY].set(ChunkSection.getIndex(x, y, z), emission);
+							enqueue(x + ChunkSection.SIZE, y, z + ChunkSection.SIZE);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private static boolean containsSource(ChunkSection section)
+	{
+		for (int state : section.getPalette())
+		{
+			if (getEmission(state) > 0)
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Queues the blocks at the edges between the middle column and its
+	 * neighbours wherever light can spread across the edge.
+	 */
+	private void exchangeEdges(boolean sky)
+	{
+		int height = world.getMaxHeight();
+		for (int direction = 0; direction < 6; direction++)
+		{
+			if (DY[direction] != 0 || window[4 + DX[direction] + 3 * DZ[direction]] == null)
+			{
+				continue;
+			}
+			for (int y = 0; y < height; y++)
+			{
+				for (int i = 0; i < ChunkSection.SIZE; i++)
+				{
+					int x = DX[direction] == 0 ? ChunkSection.SIZE + i : DX[direction] > 0 ? 31 : 16;
+					int z = DZ[direction] == 0 ? ChunkSection.SIZE + i : DZ[direction] > 0 ? 31 : 16;
+					int otherX = x + DX[direction];
+					int otherZ = z + DZ[direction];
+					int level = getNibbles(sky, x, y, z).get(ChunkSection.getIndex(x, y, z));
+					int otherLevel = getNibbles(sky, otherX, y, otherZ).get(ChunkSection.getIndex(otherX, y, otherZ));
+					if (level > otherLevel + 1)
+					{
+						enqueue(x, y, z);
+					}
+					else if (otherLevel > level + 1)
+					{
+						enqueue(otherX, y, otherZ);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Spreads the light of every queued block to its neighbours, until no
+	 * block can be made brighter anymore.
+	 */
+	private void propagate(boolean sky)
+	{
+		while (head < tail)
+		{
+			int entry = queue[head++];
+			int fromX = entry & 63;
+			int fromZ = entry >> 6 & 63;
+			int fromY = entry >> 12 & 4095;
+			int level = getNibbles(sky, fromX, fromY, fromZ).get(ChunkSection.getIndex(fromX, fromY, fromZ));
+			if (level <= 1)
+			{
+				continue;
+			}
+			for (int direction = 0; direction < 6; direction++)
+			{
+				int toX = fromX + DX[direction];
+				int toY = fromY + DY[direction];
+				int toZ = fromZ + DZ[direction];
+				NibbleArray nibbles = getNibbles(sky, toX, toY, toZ);
+				if (nibbles == null)
+				{
+					continue;
+				}
+				int state = getState(toX, toY, toZ);
+				int toLevel = spread(sky, level, getOpacity(state), direction == DOWN);
+				int index = ChunkSection.getIndex(toX, toY, toZ);
+				if (toLevel > nibbles.get(index))
+				{
+					if (getColumn(toX, toZ) == defaultColumn)
+					{
+						addCreated(toX, toZ);
+						continue;
+					}
+					nibbles.set(index, toLevel);
+					enqueue(toX, toY, toZ);
+				}
+			}
+		}
+	}
+
+	private void setWindow(int chunkX, int chunkZ, ChunkColumn center)
+	{
+		for (int dz = 0; dz < 3; dz++)
+		{
+			for (int dx = 0; dx < 3; dx++)
+			{
+				ChunkColumn column = world.getStoredColumn(chunkX + dx - 1, chunkZ + dz - 1);
+				if (column == null && world.isDefaultColumn(chunkX + dx - 1, chunkZ + dz - 1))
+				{
+					window[dx + 3 * dz] = getDefaultColumn();
+				}
+				else
+				{
+					window[dx + 3 * dz] = column != null && column.isLit() ? column : null;
+				}
+			}
+		}
+		window[4] = center;
+		windowX = chunkX;
+		windowZ = chunkZ;
+	}
+
+	private ChunkColumn getColumn(int x, int z)
+	{
+		return window[(x >> 4) + 3 * (z >> 4)];
+	}
+
+	/**
+	 * Get the state of a block of the window.
+	 */
+	private int getState(int x, int y, int z)
+	{
+		ChunkColumn column = getColumn(x, z);
+		return column == defaultColumn ? world.getDefaultState(y) : world.getStateAt(column, x, y, z);
+	}
+
+	/**
+	 * Get the column of default light, computing it the first time. Every
+	 * block in a layer of the default layers is the same, so light only
+	 * changes from layer to layer and no light spreads sideways.
+	 */
+	ChunkColumn getDefaultColumn()
+	{
+		if (defaultColumn != null)
+		{
+			return defaultColumn;
+		}
+
+		int height = world.getMaxHeight();
+		int[] levels = new int[height];
+		int level = MAX_LIGHT;
+		for (int y = height - 1; y >= 0; y--)
+		{
+			level = Math.max(0, spread(true, level, getOpacity(world.getDefaultState(y)), true));
+			levels[y] = level;
+		}
+
+		int sectionCount = (height + ChunkSection.SIZE - 1) / ChunkSection.SIZE;
+		NibbleArray[] blockLight = new NibbleArray[sectionCount];
+		NibbleArray[] skyLight = new NibbleArray[sectionCount];
+		for (int sectionY = 0; sectionY < sectionCount; sectionY++)
+		{
+			blockLight[sectionY] = new NibbleArray(0);
+			int minY = sectionY << 4;
+			int maxY = Math.min(minY + ChunkSection.SIZE, height);
+			skyLight[sectionY] = new NibbleArray(levels[maxY - 1]);
+			for (int y = minY; y < maxY; y++)
+			{
+				for (int index = 0; index < ChunkSection.SIZE * ChunkSection.SIZE; index++)
+				{
+					skyLight[sectionY].set(ChunkSection.getIndex(index & 15, y, index >> 4), levels[y]);
+				}
+			}
+		}
+		defaultColumn = new ChunkColumn(0, sectionCount);
+		defaultColumn.setLight(blockLight, skyLight);
+		return defaultColumn;
+	}
+
+	/**
+	 * Get the light of the section that contains a block of the window.
+	 *
+	 * @return The light of the section, or {@code null} if the block is outside
+	 *         of the world or in a column that is not lit.
+	 */
+	private NibbleArray getNibbles(boolean sky, int x, int y, int z)
+	{
+		if (x < 0 || x >= WINDOW_SIZE || z < 0 || z >= WINDOW_SIZE || y < 0 || y >= world.getMaxHeight())
+		{
+			return null;
+		}
+		ChunkColumn column = getColumn(x, z);
+		if (column == null)
+		{
+			return null;
+		}
+		return (sky ? column.getSkyLight() : column.getBlockLight())[y >> 4];
+	}
+
+	private void enqueue(int x, int y, int z)
+	{
+		if (tail == queue.length)
+		{
+			if (head > 0)
+			{
+				System.arraycopy(queue, head, queue, 0, tail - head);
+				tail -= head;
+				head = 0;
+			}
+			else
+			{
+				queue = Arrays.copyOf(queue, queue.length * 2);
+			}
+		}
+		queue[tail++] = pack(x, y, z, 0);
+	}
+
+	private void addRemoved(int x, int y, int z, int level)
+	{
+		if (removedCount == removed.length)
+		{
+			removed = Arrays.copyOf(removed, removed.length * 2);
+		}
+		removed[removedCount++] = pack(x, y, z, level);
+	}
+
+	private static int pack(int x, int y, int z, int level)
+	{
+		return level << 24 | y << 12 | z << 6 | x;
+	}
+}
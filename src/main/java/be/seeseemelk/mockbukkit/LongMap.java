@@ -0,0 +1,201 @@
+package be.seeseemelk.mockbukkit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A hash map with primitive {@code long} keys, such as packed coordinates.
+ * <p>
+ * The map uses open addressing with linear probing on plain arrays, so keys
+ * never have to be boxed to look a value up. Values may not be {@code null}.
+ * <p>
+ * The map is public so that it can be shared by the packages of MockBukkit,
+ * for example by the scheduler to look tasks up by their id. It is not meant
+ * to be used by tests.
+ *
+ * @param <V> The type of the values.
+ */
+public class LongMap<V>
+{
+	private static final int INITIAL_CAPACITY = 16;
+
+	private long[] keys = new long[INITIAL_CAPACITY];
+	private Object[] values = new Object[INITIAL_CAPACITY];
+	private int size = 0;
+
+	/**
+	 * Get the number of entries in the map.
+	 * @return The number of entries in the map.
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Get the value of a key.
+	 * @param key The key.
+	 * @return The value of the key, or {@code null} if the key is not in the map.
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(long key)
+	{
+		int mask = keys.length - 1;
+		for (int index = hash(key) & mask;; index = (index + 1) & mask)
+		{
+			Object value = values[index];
+			if (value == null || keys[index] == key)
+			{
+				return (V) value;
+			}
+		}
+	}
+
+	/**
+	 * Sets the value of a key.
+	 * @param key The key.
+	 * @param value The value to give the key.
+	 * @return The previous value of the key, or {@code null} if the key was not in the map.
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(long key, V value)
+	{
+		if (value == null)
+		{
+			throw new NullPointerException("Value cannot be null");
+		}
+		if ((size + 1) * 2 > keys.length)
+		{
+			resize(keys.length * 2);
+		}
+
+		int mask = keys.length - 1;
+		int index = hash(key) & mask;
+		while (values[index] != null)
+		{
+			if (keys[index] == key)
+			{
+				Object previous = values[index];
+				values[index] = value;
+				return (V) previous;
+			}
+			index = (index + 1) & mask;
+		}
+		keys[index] = key;
+		values[index] = value;
+		size++;
+		return null;
+	}
+
+	/**
+	 * Removes a key from the map.
+	 * @param key The key to remove.
+	 * @return The value the key had, or {@code null} if the key was not in the map.
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(long key)
+	{
+		int mask = keys.length - 1;
+		int index = hash(key) & mask;
+		while (values[index] != null && keys[index] != key)
+		{
+			index = (index + 1) & mask;
+		}
+
+		Object removed = values[index];
+		if (removed == null)
+		{
+			return null;
+		}
+
+		// Shift the entries that follow back, so no probe sequence gets broken.
+		int hole = index;
+		for (index = (index + 1) & mask; values[index] != null; index = (index + 1) & mask)
+		{
+			int home = hash(keys[index]) & mask;
+			if (((index - home) & mask) >= ((index - hole) & mask))
+			{
+				keys[hole] = keys[index];
+				values[hole] = values[index];
+				hole = index;
+			}
+		}
+		values[hole] = null;
+		size--;
+		return (V) removed;
+	}
+
+	/**
+	 * Get all values in the map.
+	 * @return A new list containing every value in the map.
+	 */
+	@SuppressWarnings("unchecked")
+	public List<V> values()
+	{
+		List<V> list = new ArrayList<>(size);
+		for (Object value : values)
+		{
+			if (value != null)
+			{
+				list.add((V) value);
+			}
+		}
+		return list;
+	}
+
+	/**
+	 * Get all keys in the map.
+	 * @return A new array containing every key in the map.
+	 */
+	public long[] keys()
+	{
+		long[] array = new long[size];
+		int count = 0;
+		for (int i = 0; i < values.length; i++)
+		{
+			if (values[i] != null)
+			{
+				array[count++] = keys[i];
+			}
+		}
+		return array;
+	}
+
+	/**
+	 * Removes all entries from the map.
+	 */
+	public void clear()
+	{
+		Arrays.fill(values, null);
+		size = 0;
+	}
+
+	private void resize(int capacity)
+	{
+		long[] oldKeys = keys;
+		Object[] oldValues = values;
+		keys = new long[capacity];
+		values = new Object[capacity];
+		int mask = capacity - 1;
+		for (int i = 0; i < oldValues.length; i++)
+		{
+			if (oldValues[i] != null)
+			{
+				int index = hash(oldKeys[i]) & mask;
+				while (values[index] != null)
+				{
+					index = (index + 1) & mask;
+				}
+				keys[index] = oldKeys[i];
+				values[index] = oldValues[i];
+			}
+		}
+	}
+
+	private static int hash(long key)
+	{
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+}
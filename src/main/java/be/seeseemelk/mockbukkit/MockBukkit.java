@@ -79,7 +79,7 @@ public class MockBukkit
 	}
 
 	/**
-	 * Unload all loaded plugins.
+	 * Unload all loaded plugins and stop the threads of the scheduler.
 	 */
 	public static void unload()
 	{
@@ -90,6 +90,10 @@ public class MockBukkit
 				plugin.onDisable();
 			}
 		}
+		if (mock != null)
+		{
+			mock.getScheduler().shutdown();
+		}
 		setServerInstanceToNull();
 	}
 	
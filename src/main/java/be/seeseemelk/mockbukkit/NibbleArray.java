@@ -0,0 +1,64 @@
+package be.seeseemelk.mockbukkit;
+
+import java.util.Arrays;
+
+/**
+ * Stores a value from 0 to 15 for every block of a chunk section, packing two
+ * values into every byte.
+ * <p>
+ * The array starts out with the same value for every block and only allocates
+ * its bytes once a block is given a different value.
+ */
+class NibbleArray
+{
+	private final int fill;
+	private byte[] data;
+
+	/**
+	 * Creates an array in which every block has the same value.
+	 *
+	 * @param fill The value of every block.
+	 */
+	NibbleArray(int fill)
+	{
+		this.fill = fill;
+	}
+
+	/**
+	 * Get the value of a block.
+	 *
+	 * @param index The index of the block, as returned by
+	 *        {@link ChunkSection#getIndex}.
+	 * @return The value of the block.
+	 */
+	int get(int index)
+	{
+		if (data == null)
+		{
+			return fill;
+		}
+		return data[index >> 1] >> ((index & 1) << 2) & 15;
+	}
+
+	/**
+	 * Sets the value of a block.
+	 *
+	 * @param index The index of the block, as returned by
+	 *        {@link ChunkSection#getIndex}.
+	 * @param value The new value of the block.
+	 */
+	void set(int index, int value)
+	{
+		if (data == null)
+		{
+			if (value == fill)
+			{
+				return;
+			}
+			data = new byte[ChunkSection.VOLUME / 2];
+			Arrays.fill(data, (byte) (fill | fill << 4));
+		}
+		int shift = (index & 1) << 2;
+		data[index >> 1] = (byte) (data[index >> 1] & ~(15 << shift) | value << shift);
+	}
+}
@@ -5,10 +5,12 @@ import be.seeseemelk.mockbukkit.command.ConsoleCommandSenderMock;
 import be.seeseemelk.mockbukkit.command.MessageTarget;
 import be.seeseemelk.mockbukkit.entity.PlayerMock;
 import be.seeseemelk.mockbukkit.entity.PlayerMockFactory;
+import be.seeseemelk.mockbukkit.generator.ChunkDataMock;
 import be.seeseemelk.mockbukkit.inventory.ItemFactoryMock;
 import be.seeseemelk.mockbukkit.inventory.PlayerInventoryMock;
 import be.seeseemelk.mockbukkit.plugin.PluginManagerMock;
 import be.seeseemelk.mockbukkit.scheduler.BukkitSchedulerMock;
+import be.seeseemelk.mockbukkit.scheduler.TickListener;
 import org.bukkit.*;
 import org.bukkit.BanList.Type;
 import org.bukkit.Warning.WarningState;
@@ -21,6 +23,8 @@ import org.bukkit.command.*;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
 import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
 import org.bukkit.generator.ChunkGenerator.ChunkData;
 import org.bukkit.help.HelpMap;
 import org.bukkit.inventory.*;
@@ -34,6 +38,7 @@ import org.bukkit.util.CachedServerIcon;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -45,7 +50,11 @@ public class ServerMock implements Server
 	
 	private final List<PlayerMock> players = new ArrayList<>();
 	private final List<PlayerMock> offlinePlayers = new ArrayList<>();
-	private final List<World> worlds = new ArrayList<>();
+	private final Map<UUID, WorldMock> worlds = new LinkedHashMap<>();
+	private final Map<String, WorldMock> worldsByName = new HashMap<>();
+	private final Object worldLock = new Object();
+	private volatile WorldMock[] tickedWorlds = new WorldMock[0];
+	private ForkJoinPool worldTickPool;
 	private final ItemFactory factory = new ItemFactoryMock();
 	private final PlayerMockFactory playerFactory = new PlayerMockFactory();
 	private final PluginManagerMock pluginManager = new PluginManagerMock(this);
@@ -58,6 +67,25 @@ public class ServerMock implements Server
 	{
 		logger = Logger.getLogger("ServerMock");
 		logger.setLevel(Level.WARNING);
+		scheduler.addTickListener(new TickListener()
+		{
+			@Override
+			public void onTick(long tick)
+			{
+				tickWorlds(tick);
+			}
+			
+			@Override
+			public long getNextTick(long currentTick)
+			{
+				long nextTick = Long.MAX_VALUE;
+				for (WorldMock world : tickedWorlds)
+				{
+					nextTick = Math.min(nextTick, world.getNextBlockUpdateTick());
+				}
+				return nextTick;
+			}
+		});
 	}
 	
 	/**
@@ -67,6 +95,10 @@ public class ServerMock implements Server
 	public void addPlayer(PlayerMock player)
 	{
 		players.add(player);
+		if (player.getWorld() instanceof WorldMock)
+		{
+			((WorldMock) player.getWorld()).addEntity(player);
+		}
 	}
 	
 	/**
@@ -84,6 +116,13 @@ public class ServerMock implements Server
 	 */
 	public void setPlayers(int num)
 	{
+		for (PlayerMock player : players)
+		{
+			if (player.getWorld() instanceof WorldMock)
+			{
+				((WorldMock) player.getWorld()).removeEntity(player);
+			}
+		}
 		players.clear();
 		for (int i = 0; i < num; i++)
 		{
@@ -131,10 +170,85 @@ public class ServerMock implements Server
 	{
 		WorldMock world = new WorldMock();
 		world.setName(name);
-		worlds.add(world);
+		addWorld(world);
 		return world;
 	}
 	
+	/**
+	 * Adds a world to the server. The block updates of the world are performed
+	 * whenever the scheduler performs a tick.
+	 * The name of the world should not be changed after it has been added.
+	 * If another world with the same name was added earlier, looking the
+	 * name up finds the other world.
+	 * @param world The world to add.
+	 */
+	public void addWorld(WorldMock world)
+	{
+		synchronized (worldLock)
+		{
+			if (worlds.containsKey(world.getUID()))
+			{
+				throw new IllegalArgumentException("World has already been added");
+			}
+			world.setClock(() -> scheduler.getCurrentTick());
+			worlds.put(world.getUID(), world);
+			worldsByName.putIfAbsent(world.getName(), world);
+			updateTickedWorlds();
+		}
+	}
+	
+	/**
+	 * Copies the worlds into the array that is read when performing a tick, so
+	 * that the tick thread never iterates a map that is being modified.
+	 */
+	private void updateTickedWorlds()
+	{
+		tickedWorlds = worlds.values().toArray(new WorldMock[worlds.size()]);
+	}
+	
+	/**
+	 * Sets the pool on which worlds are ticked in parallel. Every world is
+	 * ticked on a single thread, but different worlds can be ticked at the same
+	 * time, so event listeners that are called during a tick have to be
+	 * thread-safe.
+	 * @param pool The pool to tick worlds on, or {@code null} to tick the worlds
+	 * one after another on the thread that performs the tick.
+	 */
+	public void setWorldTickPool(ForkJoinPool pool)
+	{
+		worldTickPool = pool;
+	}
+	
+	/**
+	 * Get the pool on which worlds are ticked in parallel.
+	 * @return The pool, or {@code null} if worlds are ticked one after another.
+	 */
+	public ForkJoinPool getWorldTickPool()
+	{
+		return worldTickPool;
+	}
+	
+	/**
+	 * Performs a tick on every world.
+	 * @param tick The tick to perform.
+	 */
+	private void tickWorlds(long tick)
+	{
+		List<WorldMock> ticked = Arrays.asList(tickedWorlds);
+		if (worldTickPool == null || ticked.size() < 2)
+		{
+			for (WorldMock world : ticked)
+			{
+				world.performBlockUpdates(tick);
+			}
+		}
+		else
+		{
+			worldTickPool.submit(() -> ticked.parallelStream().forEach(world -> world.performBlockUpdates(tick)))
+					.join();
+		}
+	}
+	
 	@Override
 	public String getName()
 	{
@@ -327,19 +441,25 @@ public class ServerMock implements Server
 	@Override
 	public List<World> getWorlds()
 	{
-		return new ArrayList<>(worlds);
+		return new ArrayList<>(Arrays.asList(tickedWorlds));
 	}
 	
 	@Override
-	public World getWorld(String name)
+	public WorldMock getWorld(String name)
 	{
-		return worlds.stream().filter(world -> world.getName().equals(name)).findAny().orElse(null);
+		synchronized (worldLock)
+		{
+			return worldsByName.get(name);
+		}
 	}
 
 	@Override
-	public World getWorld(UUID uid)
+	public WorldMock getWorld(UUID uid)
 	{
-		return worlds.stream().filter(world -> world.getUID().equals(uid)).findAny().orElse(null);
+		synchronized (worldLock)
+		{
+			return worlds.get(uid);
+		}
 	}
 
 	@Override
@@ -551,24 +671,79 @@ public class ServerMock implements Server
 	}
 
 	@Override
-	public World createWorld(WorldCreator creator)
+	public WorldMock createWorld(WorldCreator creator)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		WorldMock world = getWorld(creator.name());
+		if (world == null)
+		{
+			world = new WorldMock(creator);
+			addWorld(world);
+			pluginManager.callEvent(new WorldLoadEvent(world));
+		}
+		return world;
 	}
 
 	@Override
 	public boolean unloadWorld(String name, boolean save)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		WorldMock world = getWorld(name);
+		return world != null && unloadWorld(world, save);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * As on a real server, the first world cannot be unloaded, and neither can
+	 * a world that has players in it. Since worlds are only kept in memory,
+	 * {@code save} has no effect.
+	 */
 	@Override
 	public boolean unloadWorld(World world, boolean save)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		if (!canUnloadWorld(world))
+		{
+			return false;
+		}
+		WorldUnloadEvent event = new WorldUnloadEvent(world);
+		pluginManager.callEvent(event);
+		if (event.isCancelled())
+		{
+			return false;
+		}
+		
+		synchronized (worldLock)
+		{
+			if (!canUnloadWorld(world))
+			{
+				return false;
+			}
+			worlds.remove(world.getUID());
+			if (worldsByName.get(world.getName()) == world)
+			{
+				worldsByName.remove(world.getName());
+				for (WorldMock other : worlds.values())
+				{
+					if (other.getName().equals(world.getName()))
+					{
+						worldsByName.put(other.getName(), other);
+						break;
+					}
+				}
+			}
+			updateTickedWorlds();
+		}
+		((WorldMock) world).setClock(null);
+		((WorldMock) world).closeFixture();
+		return true;
+	}
+	
+	private boolean canUnloadWorld(World world)
+	{
+		synchronized (worldLock)
+		{
+			return worlds.get(world.getUID()) == world && worlds.values().iterator().next() != world
+					&& world.getPlayers().isEmpty();
+		}
 	}
 
 	@Override
@@ -928,8 +1103,7 @@ public class ServerMock implements Server
 	@Override
 	public ChunkData createChunkData(World world)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		return new ChunkDataMock(world.getMaxHeight());
 	}
 
 	@Override
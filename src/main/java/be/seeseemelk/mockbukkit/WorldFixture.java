@@ -0,0 +1,424 @@
+package be.seeseemelk.mockbukkit;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bukkit.Material;
+
+/**
+ * A fixture file containing the sections of a world, as written by
+ * {@link WorldMock#saveFixture(File)}.
+ * <p>
+ * The file is memory-mapped when it is opened. Only the index of the file is
+ * read up front; a section is only decoded when it is read for the first time.
+ * <p>
+ * The file is laid out as follows, with all numbers in big-endian order:
+ * <ol>
+ * <li>A header: the magic number, the version, the height of the world, the
+ * grass height and the name of the default material.</li>
+ * <li>The sections, each one consisting of the number of bits per index, the
+ * size of the palette, the palette and the packed indices.</li>
+ * <li>A trailer: the names of all materials used in the palettes, and for
+ * every section its chunk key, its y coordinate and its offset in the file.</li>
+ * <li>The offset of the trailer.</li>
+ * </ol>
+ * Palette entries refer to materials by their position in the material table
+ * instead of by their ordinal, so fixtures survive changes to the order of
+ * {@link Material}.
+ * <p>
+ * The mapping is kept until the fixture is closed. Java cannot unmap a file
+ * explicitly, so closing the fixture drops its reference to the mapping, which
+ * releases it once it is garbage collected.
+ */
+class WorldFixture implements Closeable
+{
+	private static final int MAGIC = 0x4D424657;
+	private static final int VERSION = 1;
+
+	private ByteBuffer buffer;
+	private final int height;
+	private final int grassHeight;
+	private final Material defaultBlock;
+	private final int[] materials;
+	private final long[] keys;
+	private final int[] sectionYs;
+	private final LongMap<int[]> offsets = new LongMap<>();
+	private final int trailer;
+
+	private WorldFixture(ByteBuffer buffer) throws IOException
+	{
+		this.buffer = buffer;
+		if (buffer.limit() < 16 || buffer.getInt(0) != MAGIC)
+		{
+			throw new IOException("Not a world fixture");
+		}
+		if (buffer.getInt(4) != VERSION)
+		{
+			throw new IOException("Unsupported fixture version " + buffer.getInt(4));
+		}
+		try
+		{
+			buffer.position(8);
+			height = buffer.getInt();
+			grassHeight = buffer.getInt();
+			if (height <= 0 || height > 4096)
+			{
+				throw new IOException("Invalid fixture height " + height);
+			}
+			defaultBlock = getMaterial(readString(buffer));
+			int sectionsStart = buffer.position();
+
+			// The trailer has to fit between the header and the offset of the
+			// trailer at the end of the file.
+			trailer = buffer.getInt(buffer.limit() - 4);
+			int trailerEnd = buffer.limit() - 4;
+			if (trailer < sectionsStart || trailer > trailerEnd - 8)
+			{
+				throw new IOException("Invalid trailer offset " + trailer);
+			}
+			buffer.position(trailer);
+			int materialCount = buffer.getInt();
+			if (materialCount < 0 || materialCount > (trailerEnd - buffer.position()) / 2)
+			{
+				throw new IOException("Invalid material count " + materialCount);
+			}
+			materials = new int[materialCount];
+			for (int i = 0; i < materials.length; i++)
+			{
+				materials[i] = ChunkSection.getState(getMaterial(readString(buffer)), (byte) 0);
+			}
+
+			int sectionCount = buffer.getInt();
+			if (sectionCount < 0 || (long) sectionCount * 16 != trailerEnd - buffer.position())
+			{
+				throw new IOException("Invalid section count " + sectionCount);
+			}
+			int sectionsPerColumn = (height + ChunkSection.SIZE - 1) / ChunkSection.SIZE;
+			keys = new long[sectionCount];
+			sectionYs = new int[sectionCount];
+			for (int i = 0; i < sectionCount; i++)
+			{
+				keys[i] = buffer.getLong();
+				sectionYs[i] = buffer.getInt();
+				int offset = buffer.getInt();
+				if (sectionYs[i] < 0 || sectionYs[i] >= sectionsPerColumn)
+				{
+					throw corrupt(keys[i], sectionYs[i], "section is outside the world");
+				}
+				if (offset < sectionsStart || offset >= trailer)
+				{
+					throw corrupt(keys[i], sectionYs[i], "invalid offset " + offset);
+				}
+				addOffset(keys[i], sectionYs[i], offset, sectionsPerColumn);
+			}
+		}
+		catch (BufferUnderflowException e)
+		{
+			throw new IOException("Fixture is truncated", e);
+		}
+	}
+
+	/**
+	 * Remembers the offset of a section in the file.
+	 */
+	private void addOffset(long key, int sectionY, int offset, int sectionsPerColumn)
+	{
+		int[] column = offsets.get(key);
+		if (column == null)
+		{
+			column = new int[sectionsPerColumn];
+			offsets.put(key, column);
+		}
+		column[sectionY] = offset;
+	}
+
+	/**
+	 * Opens a fixture file by mapping it into memory.
+	 *
+	 * @param file The file to open.
+	 * @return The opened fixture.
+	 * @throws IOException if the file could not be read or is not a valid fixture.
+	 */
+	static WorldFixture open(File file) throws IOException
+	{
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel())
+		{
+			if (channel.size() > Integer.MAX_VALUE)
+			{
+				throw new IOException("Fixture is larger than 2 GB");
+			}
+			return new WorldFixture(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Get the height of the world the fixture was saved from.
+	 *
+	 * @return The height of the world.
+	 */
+	int getHeight()
+	{
+		return height;
+	}
+
+	/**
+	 * Get the grass height of the world the fixture was saved from.
+	 *
+	 * @return The grass height of the world.
+	 */
+	int getGrassHeight()
+	{
+		return grassHeight;
+	}
+
+	/**
+	 * Get the default block of the world the fixture was saved from.
+	 *
+	 * @return The default block of the world.
+	 */
+	Material getDefaultBlock()
+	{
+		return defaultBlock;
+	}
+
+	/**
+	 * Get the number of sections in the fixture.
+	 *
+	 * @return The number of sections.
+	 */
+	int getSectionCount()
+	{
+		return keys.length;
+	}
+
+	/**
+	 * Get the chunk key of a section.
+	 *
+	 * @param index The index of the section, between {@code 0} and {@link #getSectionCount()}.
+	 * @return The packed coordinates of the chunk of the section.
+	 */
+	long getKey(int index)
+	{
+		return keys[index];
+	}
+
+	/**
+	 * Get the y coordinate of a section.
+	 *
+	 * @param index The index of the section, between {@code 0} and {@link #getSectionCount()}.
+	 * @return The y coordinate of the section.
+	 */
+	int getSectionY(int index)
+	{
+		return sectionYs[index];
+	}
+
+	/**
+	 * Checks if the fixture contains any section of a chunk.
+	 *
+	 * @param key The packed coordinates of the chunk.
+	 * @return {@code true} if the fixture contains the chunk.
+	 */
+	boolean containsChunk(long key)
+	{
+		return offsets.get(key) != null;
+	}
+
+	/**
+	 * Decodes a section of the fixture.
+	 *
+	 * @param key The packed coordinates of the chunk.
+	 * @param sectionY The y coordinate of the section.
+	 * @return The decoded section, or {@code null} if the fixture does not
+	 *         contain the section.
+	 * @throws IOException if the fixture is closed or the section is corrupt.
+	 */
+	ChunkSection readSection(long key, int sectionY) throws IOException
+	{
+		int[] column = offsets.get(key);
+		if (column == null || column[sectionY] == 0)
+		{
+			return null;
+		}
+		if (buffer == null)
+		{
+			throw new IOException("Fixture is closed");
+		}
+
+		try
+		{
+			return readSection(key, sectionY, column[sectionY]);
+		}
+		catch (BufferUnderflowException e)
+		{
+			throw corrupt(key, sectionY, "section is truncated");
+		}
+	}
+
+	private ChunkSection readSection(long key, int sectionY, int offset) throws IOException
+	{
+		// A section can never extend into the trailer.
+		ByteBuffer in = buffer.duplicate();
+		in.limit(trailer);
+		in.position(offset);
+		int bits = in.get();
+		int[] palette = new int[in.getShort() & 0xFFFF];
+		if (bits < 0 || bits > 16 || (bits == 0 ? palette.length != 1 : palette.length > 1 << bits))
+		{
+			throw corrupt(key, sectionY, "invalid palette");
+		}
+		for (int i = 0; i < palette.length; i++)
+		{
+			int entry = in.getInt();
+			if (entry >>> 8 >= materials.length)
+			{
+				throw corrupt(key, sectionY, "unknown material " + (entry >>> 8));
+			}
+			palette[i] = materials[entry >>> 8] | entry & 0xFF;
+		}
+		long[] data = null;
+		if (bits > 0)
+		{
+			data = new long[ChunkSection.getDataLength(bits)];
+			in.asLongBuffer().get(data);
+			checkIndices(key, sectionY, bits, palette.length, data);
+		}
+		return new ChunkSection(palette, bits, data);
+	}
+
+	/**
+	 * Checks that every packed index of a section refers to an entry in its
+	 * palette.
+	 */
+	private static void checkIndices(long key, int sectionY, int bits, int paletteSize, long[] data)
+			throws IOException
+	{
+		int entriesPerLong = 64 / bits;
+		int mask = (1 << bits) - 1;
+		for (int index = 0; index < ChunkSection.VOLUME; index++)
+		{
+			int id = (int) (data[index / entriesPerLong] >>> (index % entriesPerLong) * bits) & mask;
+			if (id >= paletteSize)
+			{
+				throw corrupt(key, sectionY, "palette index " + id + " is out of bounds");
+			}
+		}
+	}
+
+	private static IOException corrupt(long key, int sectionY, String reason)
+	{
+		return new IOException("Section " + sectionY + " of chunk " + (int) (key >> 32) + ", " + (int) key
+				+ " is corrupt: " + reason);
+	}
+
+	/**
+	 * Releases the mapping of the file. Sections can no longer be read
+	 * afterwards.
+	 */
+	@Override
+	public void close()
+	{
+		buffer = null;
+	}
+
+	/**
+	 * Writes a fixture file.
+	 *
+	 * @param file The file to write to.
+	 * @param height The height of the world.
+	 * @param grassHeight The grass height of the world.
+	 * @param defaultBlock The default block of the world.
+	 * @param keys The chunk key of every section.
+	 * @param sectionYs The y coordinate of every section.
+	 * @param sections The sections to write.
+	 * @throws IOException if the file could not be written.
+	 */
+	static void write(File file, int height, int grassHeight, Material defaultBlock, long[] keys, int[] sectionYs,
+			List<ChunkSection> sections) throws IOException
+	{
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file))))
+		{
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(height);
+			out.writeInt(grassHeight);
+			out.writeUTF(defaultBlock.name());
+
+			Map<Material, Integer> materialIds = new HashMap<>();
+			List<Material> materialTable = new ArrayList<>();
+			int[] sectionOffsets = new int[sections.size()];
+			for (int i = 0; i < sections.size(); i++)
+			{
+				ChunkSection section = sections.get(i);
+				int[] palette = section.getPalette();
+				sectionOffsets[i] = out.size();
+				out.writeByte(section.getBitsPerBlock());
+				out.writeShort(palette.length);
+				for (int state : palette)
+				{
+					Material material = ChunkSection.getMaterial(state);
+					Integer id = materialIds.get(material);
+					if (id == null)
+					{
+						id = materialTable.size();
+						materialIds.put(material, id);
+						materialTable.add(material);
+					}
+					out.writeInt(id << 8 | ChunkSection.getData(state) & 0xFF);
+				}
+				if (section.getPackedData() != null)
+				{
+					for (long word : section.getPackedData())
+					{
+						out.writeLong(word);
+					}
+				}
+			}
+
+			int trailer = out.size();
+			out.writeInt(materialTable.size());
+			for (Material material : materialTable)
+			{
+				out.writeUTF(material.name());
+			}
+			out.writeInt(sections.size());
+			for (int i = 0; i < sections.size(); i++)
+			{
+				out.writeLong(keys[i]);
+				out.writeInt(sectionYs[i]);
+				out.writeInt(sectionOffsets[i]);
+			}
+			out.writeInt(trailer);
+		}
+	}
+
+	private static Material getMaterial(String name) throws IOException
+	{
+		Material material = Material.getMaterial(name);
+		if (material == null)
+		{
+			throw new IOException("Unknown material " + name);
+		}
+		return material;
+	}
+
+	private static String readString(ByteBuffer buffer)
+	{
+		byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -1,12 +1,18 @@
 package be.seeseemelk.mockbukkit;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import org.bukkit.BlockChangeDelegate;
 import org.bukkit.Chunk;
@@ -21,9 +27,11 @@ import org.bukkit.SoundCategory;
 import org.bukkit.TreeType;
 import org.bukkit.World;
 import org.bukkit.WorldBorder;
+import org.bukkit.WorldCreator;
 import org.bukkit.WorldType;
 import org.bukkit.block.Biome;
 import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
 import org.bukkit.entity.Arrow;
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.EntityType;
@@ -32,8 +40,13 @@ import org.bukkit.entity.Item;
 import org.bukkit.entity.LightningStrike;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
+import org.bukkit.event.block.BlockPhysicsEvent;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
 import org.bukkit.generator.BlockPopulator;
 import org.bukkit.generator.ChunkGenerator;
+import org.bukkit.generator.ChunkGenerator.ChunkData;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.material.MaterialData;
 import org.bukkit.metadata.MetadataValue;
@@ -42,103 +55,1802 @@ import org.bukkit.util.Consumer;
 import org.bukkit.util.Vector;
 
 import be.seeseemelk.mockbukkit.block.BlockMock;
+import be.seeseemelk.mockbukkit.block.BlockStateMock;
+import be.seeseemelk.mockbukkit.generator.BiomeGridMock;
+import be.seeseemelk.mockbukkit.generator.ChunkDataMock;
 
 /**
- * A mock world object. Note that it is made to be as simple as possible. It is
- * by no means an efficient implementation.
+ * A mock world object. Note that it is made to be as simple as possible.
+ * <p>
+ * Blocks are stored per chunk in sections of 16x16x16 blocks, see
+ * {@link ChunkSection}. A section is only stored once one of its blocks is
+ * modified; blocks that were never modified are computed from the default
+ * layers of the world. The {@link Block} objects returned by the world are
+ * views on that storage and are created whenever they are requested.
+ * <p>
+ * A world can also be loaded from a fixture file using
+ * {@link #loadFixture(File)}, in which case blocks that were never modified
+ * are read from the fixture instead.
+ * <p>
+ * Chunks are loaded when they are requested through {@link #getChunkAt},
+ * {@link #loadChunk} or {@link #getBlockAt}. When a maximum number of loaded
+ * chunks is set using {@link #setMaxLoadedChunks(int)}, the chunks that were
+ * used least recently are unloaded once that number is exceeded.
+ * <p>
+ * A world that is created with a {@link ChunkGenerator} generates every chunk
+ * the first time it is used instead, see {@link #WorldMock(WorldCreator)}.
+ * <p>
+ * A world is not thread-safe. While the scheduler of the server is ticking on
+ * its own thread, see
+ * {@link be.seeseemelk.mockbukkit.scheduler.BukkitSchedulerMock#startTicking()},
+ * a world that was added to the server may only be used from tasks that run
+ * on that thread.
  */
 @SuppressWarnings("deprecation")
 public class WorldMock implements World
 {
-	private Map<Coordinate, Block> blocks = new HashMap<>();
-	private Material defaultBlock;
-	private int height;
-	private int grassHeight;
+	/**
+	 * The number of ticks after which a block that has nothing below it starts
+	 * to fall.
+	 */
+	private static final int FALL_DELAY = 2;
+	private static final int[] NEIGHBOURS_X = { -1, 1, 0, 0, 0, 0 };
+	private static final int[] NEIGHBOURS_Y = { 0, 0, -1, 1, 0, 0 };
+	private static final int[] NEIGHBOURS_Z = { 0, 0, 0, 0, -1, 1 };
+	private final LongMap<ChunkColumn> chunks = new LongMap<>();
+	/*
+	 * The keys of the chunks that were modified since the last snapshot. Keys
+	 * are used rather than columns, since a column can be unloaded and created
+	 * again before the snapshot is restored.
+	 */
+	private final LongMap<Boolean> dirtyChunks = new LongMap<>();
+	/*
+	 * The block states that were requested through BlockMock#getState, keyed
+	 * by packed position. A state is dropped once its block is changed.
+	 */
+	private final LongMap<BlockState> blockStates = new LongMap<>();
+	private ChunkColumn lastChunk;
+	private WorldSnapshot lastSnapshot;
+	private WorldFixture fixture;
+	private final LongMap<ChunkMock> loadedChunks = new LongMap<>();
+	private ChunkMock oldestChunk;
+	private ChunkMock newestChunk;
+	private int maxLoadedChunks = 0;
+	private ChunkGenerator generator;
+	private long seed = 0;
+	private final EntityIndex entities = new EntityIndex();
+	private final LightEngine lightEngine = new LightEngine(this);
+	private ChunkColumn lastLitColumn;
+	private boolean anyColumnLit = false;
+	private final BlockUpdateQueue blockUpdates = new BlockUpdateQueue();
+	private long currentTick = 0;
+	private LongSupplier clock;
+	private int maxBlockUpdatesPerTick = 0;
+	/*
+	 * Whether physics was enabled or disabled explicitly, or null to only
+	 * enable it while a server ticks the world.
+	 */
+	private Boolean physics = null;
+	private BlockChangeJournal journal;
+	private final int height;
+	private final int grassHeight;
+	private final int airState;
+	private final int bedrockState;
+	private final int defaultState;
 	private String name = "World";
 	private UUID uuid = UUID.randomUUID();
 	private Location spawnLocation;
 
 	/**
-	 * Creates a new mock world.
+	 * Creates a new mock world.
+	 * 
+	 * @param defaultBlock The block that is spawned at locations 1 to
+	 *        {@code grassHeight}
+	 * @param height The height of the world.
+	 * @param grassHeight The last {@code y} at which {@code defaultBlock} will
+	 *        spawn.
+	 */
+	public WorldMock(Material defaultBlock, int height, int grassHeight)
+	{
+		this.height = height;
+		this.grassHeight = grassHeight;
+		airState = ChunkSection.getState(Material.AIR, (byte) 0);
+		bedrockState = ChunkSection.getState(Material.BEDROCK, (byte) 0);
+		defaultState = ChunkSection.getState(defaultBlock, (byte) 0);
+	}
+
+	/**
+	 * Creates a new mock world with a height of 256 from a {@link WorldCreator}.
+	 * If the creator has a {@link ChunkGenerator}, every chunk is generated by
+	 * it the first time one of its blocks is used. Otherwise the world is a
+	 * super flat world that spawns grass until a {@code y} of 4.
+	 * <p>
+	 * Every chunk is generated with its own {@link Random}, which is seeded
+	 * from the seed of the world and the coordinates of the chunk. A chunk
+	 * therefore always contains the same blocks for the same seed, no matter
+	 * in which order chunks are generated.
+	 * 
+	 * @param creator The creator describing the world.
+	 */
+	public WorldMock(WorldCreator creator)
+	{
+		this(Material.GRASS, 256, 4);
+		name = creator.name();
+		seed = creator.seed();
+		generator = creator.generator();
+	}
+
+	/**
+	 * Creates a new mock world with a height of 128.
+	 * 
+	 * @param defaultBlock The block that is spawned at locations 1 to
+	 *        {@code grassHeight}
+	 * @param grassHeight The last {@code y} at which {@code defaultBlock} will
+	 *        spawn.
+	 */
+	public WorldMock(Material defaultBlock, int grassHeight)
+	{
+		this(defaultBlock, 128, grassHeight);
+	}
+
+	/**
+	 * Creates a new mock world with a height of 128 and will spawn grass until a
+	 * {@code y} of 4.
+	 */
+	public WorldMock()
+	{
+		this(Material.GRASS, 4);
+	}
+
+	/**
+	 * Get the block on a coordinate. Blocks are views on the storage of the
+	 * world, so this does not store or modify anything.
+	 * 
+	 * @param c The coordinate of the block.
+	 * @return The block on the coordinate.
+	 */
+	public Block createBlock(Coordinate c)
+	{
+		checkHeight(c.y);
+		return new BlockMock(this, c.x, c.y, c.z);
+	}
+
+	/**
+	 * Get the state of a block, which is its material and data packed into a
+	 * single {@code int} as described by {@link ChunkSection#getState}.
+	 * 
+	 * @param x The x coordinate of the block.
+	 * @param y The y coordinate of the block.
+	 * @param z The z coordinate of the block.
+	 * @return The state of the block.
+	 */
+	public int getStateAt(int x, int y, int z)
+	{
+		checkHeight(y);
+		ChunkSection section = getLoadedSection(x >> 4, z >> 4, y >> 4);
+		return section == null ? getDefaultState(y) : section.get(x, y, z);
+	}
+
+	/**
+	 * Get the {@link BlockState} of a block. The state is created the first
+	 * time it is requested and kept until the block is changed, so every
+	 * {@link Block} of the same position returns the same state.
+	 * 
+	 * @param x The x coordinate of the block.
+	 * @param y The y coordinate of the block.
+	 * @param z The z coordinate of the block.
+	 * @return The state of the block.
+	 */
+	public BlockState getBlockStateAt(int x, int y, int z)
+	{
+		checkHeight(y);
+		long position = getPosition(x, y, z);
+		BlockState state = blockStates.get(position);
+		if (state == null)
+		{
+			state = new BlockStateMock();
+			blockStates.put(position, state);
+		}
+		return state;
+	}
+
+	/**
+	 * Drops the block states of every block in a box, as their blocks are
+	 * about to be changed.
+	 */
+	private void dropBlockStates(int minX, int minY, int minZ, int maxX, int maxY, int maxZ)
+	{
+		if (blockStates.size() == 0)
+		{
+			return;
+		}
+		for (long position : blockStates.keys())
+		{
+			int x = (int) (position >> 38);
+			int y = (int) (position & 0xFFF);
+			int z = (int) (position << 26 >> 38);
+			if (x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ)
+			{
+				blockStates.remove(position);
+			}
+		}
+	}
+
+	/**
+	 * Drops the block states of every block in a chunk.
+	 */
+	private void dropBlockStates(long key)
+	{
+		int chunkX = (int) (key >> 32);
+		int chunkZ = (int) key;
+		dropBlockStates(chunkX << 4, 0, chunkZ << 4, (chunkX << 4) + 15, height - 1, (chunkZ << 4) + 15);
+	}
+
+	private static long getPosition(int x, int y, int z)
+	{
+		return ((long) x & 0x3FFFFFF) << 38 | ((long) z & 0x3FFFFFF) << 12 | y & 0xFFF;
+	}
+
+	/**
+	 * Get a section so that it can be read. If the section has not been stored
+	 * yet but is part of the fixture of the world, it is read from the fixture.
+	 * 
+	 * @return The section, or {@code null} if the blocks of the section are
+	 *         the default layers.
+	 */
+	private ChunkSection getLoadedSection(int chunkX, int chunkZ, int sectionY)
+	{
+		ChunkColumn column = getChunkColumn(chunkX, chunkZ, false);
+		if (column == null && fixture != null && fixture.containsChunk(getChunkKey(chunkX, chunkZ)))
+		{
+			column = getChunkColumn(chunkX, chunkZ, true);
+		}
+		return column == null ? null : getLoadedSection(column, sectionY);
+	}
+
+	/**
+	 * Get the state of a block in a chunk column.
+	 *
+	 * @param column The column that contains the block.
+	 * @param x The x coordinate of the block. Only the lowest four bits are used.
+	 * @param y The y coordinate of the block.
+	 * @param z The z coordinate of the block. Only the lowest four bits are used.
+	 * @return The state of the block.
+	 */
+	int getStateAt(ChunkColumn column, int x, int y, int z)
+	{
+		ChunkSection section = getLoadedSection(column, y >> 4);
+		return section == null ? getDefaultState(y) : section.get(x, y, z);
+	}
+
+	/**
+	 * Get a section of a chunk column so that it can be read, reading it from
+	 * the fixture of the world if needed.
+	 */
+	ChunkSection getLoadedSection(ChunkColumn column, int sectionY)
+	{
+		ChunkSection section = column.getSection(sectionY);
+		if (section == null && fixture != null)
+		{
+			section = readFixtureSection(column.getKey(), sectionY);
+			if (section != null)
+			{
+				// Loading a section from the fixture does not modify the world.
+				column.setSection(sectionY, section);
+			}
+		}
+		return section;
+	}
+
+	/**
+	 * Sets the state of a block.
+	 * 
+	 * @param x The x coordinate of the block.
+	 * @param y The y coordinate of the block.
+	 * @param z The z coordinate of the block.
+	 * @param state The new state of the block, as returned by
+	 *        {@link ChunkSection#getState}.
+	 * @return The previous state of the block.
+	 */
+	public int setStateAt(int x, int y, int z, int state)
+	{
+		return setStateAt(x, y, z, state, true);
+	}
+
+	/**
+	 * Sets the state of a block.
+	 * 
+	 * @param x The x coordinate of the block.
+	 * @param y The y coordinate of the block.
+	 * @param z The z coordinate of the block.
+	 * @param state The new state of the block, as returned by
+	 *        {@link ChunkSection#getState}.
+	 * @param applyPhysics {@code false} to neither notify the neighbours of
+	 *        the block nor let the block fall, even if physics is enabled for
+	 *        the world.
+	 * @return The previous state of the block.
+	 */
+	public int setStateAt(int x, int y, int z, int state, boolean applyPhysics)
+	{
+		int previous = getStateAt(x, y, z);
+		if (previous == state)
+		{
+			return previous;
+		}
+		if (blockStates.size() > 0)
+		{
+			blockStates.remove(getPosition(x, y, z));
+		}
+		ChunkColumn column = getChunkColumn(x >> 4, z >> 4, true);
+		getSection(column, y >> 4).set(x, y, z, state);
+		updateHeightmap(column, x, y, z, state);
+		if (journal != null)
+		{
+			journal.record(x, y, z, previous, state);
+		}
+		if (LightEngine.getOpacity(previous) != LightEngine.getOpacity(state)
+				|| LightEngine.getEmission(previous) != LightEngine.getEmission(state))
+		{
+			if (column.isLit())
+			{
+				lightEngine.update(x, y, z);
+			}
+			else if (anyColumnLit)
+			{
+				// The chunks around an unlit column may hold light that spread
+				// from the blocks it had before, and lighting it later only ever
+				// raises their light.
+				invalidateLight(x >> 4, z >> 4, x >> 4, z >> 4);
+			}
+		}
+		if (applyPhysics && isPhysicsEnabled())
+		{
+			notifyNeighbours(x, y, z, state);
+			if (ChunkSection.getMaterial(state).hasGravity())
+			{
+				blockUpdates.schedule(x, y, z, getCurrentTick() + FALL_DELAY, state, true);
+			}
+		}
+		return previous;
+	}
+
+	/**
+	 * Get a section of a chunk column so that it can be modified. The section
+	 * is created if it does not exist yet, and copied if it is shared with a
+	 * snapshot.
+	 */
+	private ChunkSection getSection(ChunkColumn column, int sectionY)
+	{
+		ChunkSection section = column.getSection(sectionY);
+		if (section == null)
+		{
+			section = createSection(column.getKey(), sectionY);
+		}
+		else if (section.isFrozen())
+		{
+			section = section.copy();
+		}
+		else
+		{
+			markDirty(column);
+			return section;
+		}
+		setSection(column, sectionY, section);
+		return section;
+	}
+
+	/**
+	 * Replaces a section of a chunk column.
+	 */
+	private void setSection(ChunkColumn column, int sectionY, ChunkSection section)
+	{
+		column.setSection(sectionY, section);
+		markDirty(column);
+	}
+
+	/**
+	 * Remembers that a chunk column was modified, including since the last
+	 * snapshot.
+	 */
+	private void markDirty(ChunkColumn column)
+	{
+		column.setModified();
+		if (lastSnapshot != null && !column.isDirty())
+		{
+			column.setDirty(true);
+			dirtyChunks.put(column.getKey(), Boolean.TRUE);
+		}
+	}
+
+	/**
+	 * Takes a snapshot of every block in the world, which can later be restored
+	 * using {@link #restore(WorldSnapshot)}.
+	 * <p>
+	 * The snapshot shares its sections with the world. Sections are only copied
+	 * once they are modified, so taking a snapshot does not copy any blocks.
+	 * 
+	 * @return The snapshot.
+	 */
+	public WorldSnapshot snapshot()
+	{
+		LongMap<ChunkColumn> columns = new LongMap<>();
+		for (ChunkColumn column : chunks.values())
+		{
+			columns.put(column.getKey(), column.share());
+			column.setDirty(false);
+		}
+		dirtyChunks.clear();
+		lastSnapshot = new WorldSnapshot(this, columns);
+		return lastSnapshot;
+	}
+
+	/**
+	 * Restores every block in the world to the state it had when a snapshot was
+	 * taken.
+	 * <p>
+	 * When restoring the snapshot that was taken or restored last, only the
+	 * chunks that were modified since are restored. Restoring any other
+	 * snapshot restores every chunk. In neither case are blocks copied.
+	 * 
+	 * @param snapshot The snapshot to restore.
+	 * @throws IllegalArgumentException if the snapshot was taken of another world.
+	 */
+	public void restore(WorldSnapshot snapshot)
+	{
+		if (snapshot.getWorld() != this)
+		{
+			throw new IllegalArgumentException("Snapshot was taken of another world");
+		}
+
+		lastChunk = null;
+		if (snapshot == lastSnapshot)
+		{
+			long[] keys = dirtyChunks.keys();
+			for (long key : keys)
+			{
+				dropBlockStates(key);
+				ChunkColumn column = chunks.get(key);
+				ChunkColumn saved = snapshot.getColumn(key);
+				if (saved == null)
+				{
+					chunks.remove(key);
+				}
+				else
+				{
+					chunks.put(key, saved.share());
+				}
+				if (journal != null)
+				{
+					journalColumn(key, column, chunks.get(key));
+				}
+			}
+			// Restored columns do not share the light of the snapshot, but the
+			// chunks around them may still hold light that spread from them.
+			for (long key : keys)
+			{
+				invalidateLight((int) (key >> 32), (int) key, (int) (key >> 32), (int) key);
+			}
+		}
+		else
+		{
+			List<ChunkColumn> replaced = journal == null ? null : chunks.values();
+			// Every column is replaced by a copy without light, so no light is
+			// left to invalidate.
+			blockStates.clear();
+			chunks.clear();
+			for (ChunkColumn saved : snapshot.getColumns())
+			{
+				chunks.put(saved.getKey(), saved.share());
+			}
+			if (journal != null)
+			{
+				LongMap<ChunkColumn> restored = new LongMap<>();
+				for (ChunkColumn column : chunks.values())
+				{
+					restored.put(column.getKey(), column);
+				}
+				for (ChunkColumn column : replaced)
+				{
+					journalColumn(column.getKey(), column, restored.remove(column.getKey()));
+				}
+				for (ChunkColumn column : restored.values())
+				{
+					journalColumn(column.getKey(), null, column);
+				}
+			}
+		}
+		dirtyChunks.clear();
+		lastSnapshot = snapshot;
+		lastLitColumn = null;
+	}
+
+	/**
+	 * Saves every block in the world to a fixture file, which can be loaded
+	 * again using {@link #loadFixture(File)}. Only the sections that differ
+	 * from the default layers are written.
+	 * <p>
+	 * The file should not be the file this world was loaded from, as that file
+	 * is still in use by the world.
+	 * 
+	 * @param file The file to write to.
+	 * @throws IOException if the file could not be written.
+	 */
+	public void saveFixture(File file) throws IOException
+	{
+		List<ChunkColumn> columns = chunks.values();
+		int count = 0;
+		for (ChunkColumn column : columns)
+		{
+			for (int sectionY = 0; sectionY < column.getSectionCount(); sectionY++)
+			{
+				if (column.getSection(sectionY) != null)
+				{
+					count++;
+				}
+			}
+		}
+		if (fixture != null)
+		{
+			count += fixture.getSectionCount();
+		}
+
+		long[] keys = new long[count];
+		int[] sectionYs = new int[count];
+		List<ChunkSection> sections = new ArrayList<>(count);
+		for (ChunkColumn column : columns)
+		{
+			for (int sectionY = 0; sectionY < column.getSectionCount(); sectionY++)
+			{
+				ChunkSection section = column.getSection(sectionY);
+				if (section != null)
+				{
+					keys[sections.size()] = column.getKey();
+					sectionYs[sections.size()] = sectionY;
+					sections.add(section);
+				}
+			}
+		}
+		if (fixture != null)
+		{
+			for (int i = 0; i < fixture.getSectionCount(); i++)
+			{
+				long key = fixture.getKey(i);
+				int sectionY = fixture.getSectionY(i);
+				ChunkColumn column = chunks.get(key);
+				if (column == null || column.getSection(sectionY) == null)
+				{
+					keys[sections.size()] = key;
+					sectionYs[sections.size()] = sectionY;
+					sections.add(fixture.readSection(key, sectionY));
+				}
+			}
+		}
+
+		WorldFixture.write(file, height, grassHeight, ChunkSection.getMaterial(defaultState), keys, sectionYs,
+				sections);
+	}
+
+	/**
+	 * Loads a world from a fixture file that was written by
+	 * {@link #saveFixture(File)}.
+	 * <p>
+	 * The file is mapped into memory rather than read. A section is only read
+	 * from the file when one of its blocks is first accessed, so loading even
+	 * a very large fixture is fast and does not use any heap for the blocks
+	 * that are never accessed.
+	 * <p>
+	 * The file stays mapped until {@link #closeFixture()} is called, which
+	 * happens automatically when the world is unloaded from the server.
+	 * 
+	 * @param file The file to load.
+	 * @return The loaded world.
+	 * @throws IOException if the file could not be read or is not a fixture.
+	 */
+	public static WorldMock loadFixture(File file) throws IOException
+	{
+		WorldFixture fixture = WorldFixture.open(file);
+		WorldMock world = new WorldMock(fixture.getDefaultBlock(), fixture.getHeight(), fixture.getGrassHeight());
+		world.fixture = fixture;
+		return world;
+	}
+
+	/**
+	 * Releases the fixture file the world was loaded from. Sections of the
+	 * fixture that were not read yet can no longer be read afterwards, so this
+	 * should only be called once the world is no longer used. Does nothing if
+	 * the world was not loaded from a fixture.
+	 */
+	public void closeFixture()
+	{
+		if (fixture != null)
+		{
+			fixture.close();
+		}
+	}
+
+	/**
+	 * Sets every block in a box to the same material. The blocks are written
+	 * section by section, and sections that are completely inside the box are
+	 * replaced as a whole.
+	 * 
+	 * @param x1 The x coordinate of one corner of the box.
+	 * @param y1 The y coordinate of one corner of the box.
+	 * @param z1 The z coordinate of one corner of the box.
+	 * @param x2 The x coordinate of the opposite corner of the box.
+	 * @param y2 The y coordinate of the opposite corner of the box.
+	 * @param z2 The z coordinate of the opposite corner of the box.
+	 * @param material The material to give every block in the box.
+	 */
+	public void fill(int x1, int y1, int z1, int x2, int y2, int z2, Material material)
+	{
+		int minX = Math.min(x1, x2);
+		int minY = Math.min(y1, y2);
+		int minZ = Math.min(z1, z2);
+		int maxX = Math.max(x1, x2);
+		int maxY = Math.max(y1, y2);
+		int maxZ = Math.max(z1, z2);
+		checkHeight(minY);
+		checkHeight(maxY);
+		dropBlockStates(minX, minY, minZ, maxX, maxY, maxZ);
+
+		int state = ChunkSection.getState(material, (byte) 0);
+		for (int chunkX = minX >> 4; chunkX <= maxX >> 4; chunkX++)
+		{
+			int fromX = Math.max(minX, chunkX << 4) & 15;
+			int toX = Math.min(maxX, (chunkX << 4) + 15) & 15;
+			for (int chunkZ = minZ >> 4; chunkZ <= maxZ >> 4; chunkZ++)
+			{
+				int fromZ = Math.max(minZ, chunkZ << 4) & 15;
+				int toZ = Math.min(maxZ, (chunkZ << 4) + 15) & 15;
+				ChunkColumn column = getChunkColumn(chunkX, chunkZ, true);
+				column.setHeightmap(null);
+				if (journal != null)
+				{
+					journalBox(column, fromX, minY, fromZ, toX, maxY, toZ, null, 0, 0, 0, state);
+				}
+				for (int sectionY = minY >> 4; sectionY <= maxY >> 4; sectionY++)
+				{
+					int fromY = Math.max(minY, sectionY << 4) & 15;
+					int toY = Math.min(maxY, (sectionY << 4) + 15) & 15;
+					if (isWholeSection(fromX, fromY, fromZ, toX, toY, toZ))
+					{
+						setSection(column, sectionY, new ChunkSection(state));
+					}
+					else
+					{
+						getSection(column, sectionY).fill(fromX, fromY, fromZ, toX, toY, toZ, state);
+					}
+				}
+			}
+		}
+		invalidateLight(minX >> 4, minZ >> 4, maxX >> 4, maxZ >> 4);
+	}
+
+	/**
+	 * Copies the blocks in a box into a {@link BlockRegion}. When the lowest
+	 * corner of the box lies on a section boundary, sections that are
+	 * completely inside the box are copied as a whole.
+	 * 
+	 * @param x1 The x coordinate of one corner of the box.
+	 * @param y1 The y coordinate of one corner of the box.
+	 * @param z1 The z coordinate of one corner of the box.
+	 * @param x2 The x coordinate of the opposite corner of the box.
+	 * @param y2 The y coordinate of the opposite corner of the box.
+	 * @param z2 The z coordinate of the opposite corner of the box.
+	 * @return A region containing a copy of the blocks.
+	 */
+	public BlockRegion copyRegion(int x1, int y1, int z1, int x2, int y2, int z2)
+	{
+		int minX = Math.min(x1, x2);
+		int minY = Math.min(y1, y2);
+		int minZ = Math.min(z1, z2);
+		int maxX = Math.max(x1, x2);
+		int maxY = Math.max(y1, y2);
+		int maxZ = Math.max(z1, z2);
+		checkHeight(minY);
+		checkHeight(maxY);
+
+		BlockRegion region = new BlockRegion(maxX - minX + 1, maxY - minY + 1, maxZ - minZ + 1);
+		boolean aligned = ((minX | minY | minZ) & 15) == 0;
+		for (int chunkX = minX >> 4; chunkX <= maxX >> 4; chunkX++)
+		{
+			int fromX = Math.max(minX, chunkX << 4) & 15;
+			int toX = Math.min(maxX, (chunkX << 4) + 15) & 15;
+			for (int chunkZ = minZ >> 4; chunkZ <= maxZ >> 4; chunkZ++)
+			{
+				int fromZ = Math.max(minZ, chunkZ << 4) & 15;
+				int toZ = Math.min(maxZ, (chunkZ << 4) + 15) & 15;
+				for (int sectionY = minY >> 4; sectionY <= maxY >> 4; sectionY++)
+				{
+					int fromY = Math.max(minY, sectionY << 4) & 15;
+					int toY = Math.min(maxY, (sectionY << 4) + 15) & 15;
+					ChunkSection section = getLoadedSection(chunkX, chunkZ, sectionY);
+					if (aligned && isWholeSection(fromX, fromY, fromZ, toX, toY, toZ))
+					{
+						region.setSection((chunkX << 4) - minX >> 4, (sectionY << 4) - minY >> 4,
+								(chunkZ << 4) - minZ >> 4, section == null ? createSection(sectionY) : section.copy());
+						continue;
+					}
+
+					for (int y = fromY; y <= toY; y++)
+					{
+						int worldY = (sectionY << 4) + y;
+						int defaultState = getDefaultState(worldY);
+						for (int z = fromZ; z <= toZ; z++)
+						{
+							int worldZ = (chunkZ << 4) + z;
+							for (int x = fromX; x <= toX; x++)
+							{
+								int worldX = (chunkX << 4) + x;
+								int state = section == null ? defaultState : section.get(x, y, z);
+								region.setState(worldX - minX, worldY - minY, worldZ - minZ, state);
+							}
+						}
+					}
+				}
+			}
+		}
+		return region;
+	}
+
+	/**
+	 * Pastes the blocks of a {@link BlockRegion} into the world. When the
+	 * lowest corner lies on a section boundary, sections of the region that
+	 * are completely filled are pasted as a whole.
+	 * 
+	 * @param region The region to paste.
+	 * @param x The x coordinate at which to paste the lowest corner of the region.
+	 * @param y The y coordinate at which to paste the lowest corner of the region.
+	 * @param z The z coordinate at which to paste the lowest corner of the region.
+	 */
+	public void pasteRegion(BlockRegion region, int x, int y, int z)
+	{
+		int maxX = x + region.getWidth() - 1;
+		int maxY = y + region.getHeight() - 1;
+		int maxZ = z + region.getLength() - 1;
+		checkHeight(y);
+		checkHeight(maxY);
+		dropBlockStates(x, y, z, maxX, maxY, maxZ);
+
+		boolean aligned = ((x | y | z) & 15) == 0;
+		for (int chunkX = x >> 4; chunkX <= maxX >> 4; chunkX++)
+		{
+			int fromX = Math.max(x, chunkX << 4) & 15;
+			int toX = Math.min(maxX, (chunkX << 4) + 15) & 15;
+			for (int chunkZ = z >> 4; chunkZ <= maxZ >> 4; chunkZ++)
+			{
+				int fromZ = Math.max(z, chunkZ << 4) & 15;
+				int toZ = Math.min(maxZ, (chunkZ << 4) + 15) & 15;
+				ChunkColumn column = getChunkColumn(chunkX, chunkZ, true);
+				column.setHeightmap(null);
+				if (journal != null)
+				{
+					journalBox(column, fromX, y, fromZ, toX, maxY, toZ, region, x, y, z, 0);
+				}
+				for (int sectionY = y >> 4; sectionY <= maxY >> 4; sectionY++)
+				{
+					int fromY = Math.max(y, sectionY << 4) & 15;
+					int toY = Math.min(maxY, (sectionY << 4) + 15) & 15;
+					if (aligned && isWholeSection(fromX, fromY, fromZ, toX, toY, toZ))
+					{
+						setSection(column, sectionY, region.getSection((chunkX << 4) - x >> 4,
+								(sectionY << 4) - y >> 4, (chunkZ << 4) - z >> 4).copy());
+						continue;
+					}
+
+					ChunkSection section = getSection(column, sectionY);
+					for (int localY = fromY; localY <= toY; localY++)
+					{
+						int regionY = (sectionY << 4) + localY - y;
+						for (int localZ = fromZ; localZ <= toZ; localZ++)
+						{
+							int regionZ = (chunkZ << 4) + localZ - z;
+							for (int localX = fromX; localX <= toX; localX++)
+							{
+								int regionX = (chunkX << 4) + localX - x;
+								section.set(localX, localY, localZ, region.getState(regionX, regionY, regionZ));
+							}
+						}
+					}
+				}
+			}
+		}
+		invalidateLight(x >> 4, z >> 4, maxX >> 4, maxZ >> 4);
+	}
+
+	/**
+	 * Records in the journal how a box of blocks in a chunk column is going to
+	 * be changed by a fill or a paste.
+	 *
+	 * @param region The region that is pasted, or {@code null} if the box is
+	 *        filled with {@code state}.
+	 * @param regionX The x coordinate at which the region is pasted.
+	 * @param regionY The y coordinate at which the region is pasted.
+	 * @param regionZ The z coordinate at which the region is pasted.
+	 */
+	private void journalBox(ChunkColumn column, int fromX, int minY, int fromZ, int toX, int maxY, int toZ,
+			BlockRegion region, int regionX, int regionY, int regionZ, int state)
+	{
+		int baseX = (int) (column.getKey() >> 32) << 4;
+		int baseZ = (int) column.getKey() << 4;
+		for (int y = minY; y <= maxY; y++)
+		{
+			for (int z = fromZ; z <= toZ; z++)
+			{
+				for (int x = fromX; x <= toX; x++)
+				{
+					int oldState = getStateAt(column, x, y, z);
+					int newState = region == null ? state
+							: region.getState(baseX + x - regionX, y - regionY, baseZ + z - regionZ);
+					if (oldState != newState)
+					{
+						journal.record(baseX + x, y, baseZ + z, oldState, newState);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Records in the journal how the blocks of a chunk column changed when the
+	 * column was replaced as a whole. Sections that both columns share are
+	 * skipped.
+	 *
+	 * @param before The column that was replaced, or {@code null} if there was
+	 *        none.
+	 * @param after The column that replaced it, or {@code null} if the column
+	 *        was removed.
+	 */
+	private void journalColumn(long key, ChunkColumn before, ChunkColumn after)
+	{
+		int chunkX = (int) (key >> 32);
+		int chunkZ = (int) key;
+		if (generator != null)
+		{
+			// A removed column is generated again when it is needed.
+			before = before == null ? generateColumn(chunkX, chunkZ) : before;
+			after = after == null ? generateColumn(chunkX, chunkZ) : after;
+		}
+		else
+		{
+			int sectionCount = (height + ChunkSection.SIZE - 1) / ChunkSection.SIZE;
+			before = before == null ? new ChunkColumn(key, sectionCount) : before;
+			after = after == null ? new ChunkColumn(key, sectionCount) : after;
+		}
+
+		for (int sectionY = 0; sectionY < before.getSectionCount(); sectionY++)
+		{
+			if (before.getSection(sectionY) == after.getSection(sectionY))
+			{
+				continue;
+			}
+			ChunkSection oldSection = getLoadedSection(before, sectionY);
+			ChunkSection newSection = getLoadedSection(after, sectionY);
+			int maxY = Math.min((sectionY + 1) * ChunkSection.SIZE, height);
+			for (int y = sectionY * ChunkSection.SIZE; y < maxY; y++)
+			{
+				int defaultState = getDefaultState(y);
+				for (int z = 0; z < 16; z++)
+				{
+					for (int x = 0; x < 16; x++)
+					{
+						int oldState = oldSection == null ? defaultState : oldSection.get(x, y, z);
+						int newState = newSection == null ? defaultState : newSection.get(x, y, z);
+						if (oldState != newState)
+						{
+							journal.record((chunkX << 4) + x, y, (chunkZ << 4) + z, oldState, newState);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private static boolean isWholeSection(int fromX, int fromY, int fromZ, int toX, int toY, int toZ)
+	{
+		return fromX == 0 && fromY == 0 && fromZ == 0 && toX == 15 && toY == 15 && toZ == 15;
+	}
+
+	/**
+	 * Get the number of chunk columns that are stored.
+	 * 
+	 * @return The number of columns in storage.
+	 */
+	int getStoredColumnCount()
+	{
+		return chunks.size();
+	}
+
+	/**
+	 * Get the number of sections that have been created to store modified
+	 * blocks.
+	 * 
+	 * @return The number of sections in storage.
+	 */
+	int getStoredSectionCount()
+	{
+		int count = 0;
+		for (ChunkColumn column : chunks.values())
+		{
+			for (int sectionY = 0; sectionY < column.getSectionCount(); sectionY++)
+			{
+				if (column.getSection(sectionY) != null)
+				{
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Generates every chunk within a square around the chunk at the spawn
+	 * location using the {@link ForkJoinPool#commonPool() common pool}. See
+	 * {@link #pregenerate(int, ForkJoinPool)}.
+	 * 
+	 * @param radius The number of chunks to generate in every direction.
+	 */
+	public void pregenerate(int radius)
+	{
+		pregenerate(radius, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Generates every chunk within a square around the chunk at the spawn
+	 * location, so that they do not have to be generated once they are used.
+	 * Chunks that have already been generated are skipped.
+	 * <p>
+	 * The chunks are generated in parallel, so the generator may not access
+	 * the blocks of the world. The generated chunks are added to the world in
+	 * a fixed order once all of them have been generated, and every chunk is
+	 * generated with its own {@link Random}, so the result does not depend on
+	 * how the work was scheduled.
+	 * 
+	 * @param radius The number of chunks to generate in every direction.
+	 * @param pool The pool to generate the chunks on.
+	 * @throws IllegalStateException if the world has no generator.
+	 */
+	public void pregenerate(int radius, ForkJoinPool pool)
+	{
+		if (generator == null)
+		{
+			throw new IllegalStateException("World has no generator");
+		}
+		Location spawn = getSpawnLocation();
+		int centerX = spawn.getBlockX() >> 4;
+		int centerZ = spawn.getBlockZ() >> 4;
+
+		LongStream.Builder missing = LongStream.builder();
+		for (int chunkX = centerX - radius; chunkX <= centerX + radius; chunkX++)
+		{
+			for (int chunkZ = centerZ - radius; chunkZ <= centerZ + radius; chunkZ++)
+			{
+				long key = getChunkKey(chunkX, chunkZ);
+				if (chunks.get(key) == null)
+				{
+					missing.add(key);
+				}
+			}
+		}
+
+		LongStream keys = missing.build().parallel();
+		List<ChunkColumn> columns = pool.submit(() -> keys
+				.mapToObj(key -> generateColumn((int) (key >> 32), (int) key)).collect(Collectors.toList())).join();
+		for (ChunkColumn column : columns)
+		{
+			chunks.put(column.getKey(), column);
+		}
+	}
+
+	/**
+	 * Generates the blocks of a chunk using the generator of the world. This
+	 * does not modify the world, so chunks can be generated in parallel.
+	 */
+	private ChunkColumn generateColumn(int chunkX, int chunkZ)
+	{
+		Random random = new Random(seed ^ (chunkX * 341873128712L + chunkZ * 132897987541L));
+		ChunkData data = generator.generateChunkData(this, random, chunkX, chunkZ,
+				new BiomeGridMock(Biome.PLAINS));
+
+		ChunkColumn column = new ChunkColumn(getChunkKey(chunkX, chunkZ),
+				(height + ChunkSection.SIZE - 1) / ChunkSection.SIZE);
+		for (int sectionY = 0; sectionY < column.getSectionCount(); sectionY++)
+		{
+			ChunkSection section = null;
+			if (data instanceof ChunkDataMock)
+			{
+				section = ((ChunkDataMock) data).getSection(sectionY);
+			}
+			else if (data != null)
+			{
+				section = new ChunkSection(airState);
+				for (int index = 0; index < ChunkSection.VOLUME; index++)
+				{
+					int x = index & 15;
+					int y = (sectionY << 4) + (index >> 8);
+					int z = index >> 4 & 15;
+					if (y < height)
+					{
+						section.set(index, ChunkSection.getState(data.getType(x, y, z), data.getData(x, y, z)));
+					}
+				}
+			}
+			column.setSection(sectionY, section == null ? new ChunkSection(airState) : section);
+		}
+		return column;
+	}
+
+	/**
+	 * Adds an entity to the world. If the entity already is part of the world,
+	 * only its position in the world is updated.
+	 * 
+	 * @param entity The entity to add.
+	 */
+	public void addEntity(Entity entity)
+	{
+		entities.update(entity);
+	}
+
+	/**
+	 * Removes an entity from the world.
+	 * 
+	 * @param entity The entity to remove.
+	 * @return {@code true} if the entity was part of the world.
+	 */
+	public boolean removeEntity(Entity entity)
+	{
+		return entities.remove(entity);
+	}
+
+	/**
+	 * Updates the position of an entity in the world after it has moved. If it
+	 * has moved to another world, it is moved to that world instead. An entity
+	 * that was not part of this world yet is added to the world it is in now.
+	 * 
+	 * @param entity The entity that moved.
+	 */
+	public void updateEntity(Entity entity)
+	{
+		World world = entity.getLocation().getWorld();
+		if (world == this)
+		{
+			entities.update(entity);
+		}
+		else
+		{
+			entities.remove(entity);
+			if (world instanceof WorldMock)
+			{
+				((WorldMock) world).addEntity(entity);
+			}
+		}
+	}
+
+	/**
+	 * Get the entities within a sphere.
+	 * 
+	 * @param location The center of the sphere.
+	 * @param radius The radius of the sphere.
+	 * @return The entities whose location is inside the sphere.
+	 */
+	public List<Entity> getNearbyEntities(Location location, double radius)
+	{
+		List<Entity> nearby = getNearbyEntities(location, radius, radius, radius);
+		nearby.removeIf(entity -> entity.getLocation().distanceSquared(location) > radius * radius);
+		return nearby;
+	}
+
+	/**
+	 * Get the entities in a chunk.
+	 * 
+	 * @param chunkX The x coordinate of the chunk.
+	 * @param chunkZ The z coordinate of the chunk.
+	 * @return The entities in the chunk.
+	 */
+	List<Entity> getEntitiesInChunk(int chunkX, int chunkZ)
+	{
+		return entities.getInChunk(chunkX, chunkZ);
+	}
+
+	/**
+	 * Get the heightmap of a chunk column, computing it if it is not known.
+	 */
+	int[] getHeightmap(ChunkColumn column)
+	{
+		int[] heightmap = column.getHeightmap();
+		if (heightmap == null)
+		{
+			heightmap = new int[ChunkSection.SIZE * ChunkSection.SIZE];
+			for (int index = 0; index < heightmap.length; index++)
+			{
+				heightmap[index] = computeHeight(column, index & 15, index >> 4, height - 1);
+			}
+			column.setHeightmap(heightmap);
+		}
+		return heightmap;
+	}
+
+	/**
+	 * Updates the heightmap of a chunk column after a single block changed.
+	 * Only when the highest block is removed does the column have to be
+	 * scanned, and then only below that block.
+	 */
+	private void updateHeightmap(ChunkColumn column, int x, int y, int z, int state)
+	{
+		int[] heightmap = column.getHeightmap();
+		if (heightmap == null)
+		{
+			return;
+		}
+		int index = (z & 15) << 4 | (x & 15);
+		if (ChunkSection.getMaterial(state) != Material.AIR)
+		{
+			heightmap[index] = Math.max(heightmap[index], y + 1);
+		}
+		else if (heightmap[index] == y + 1)
+		{
+			heightmap[index] = computeHeight(column, x & 15, z & 15, y - 1);
+		}
+	}
+
+	/**
+	 * Scans a column of blocks downwards for the highest block that is not air.
+	 * Sections that only contain air are skipped as a whole. Without a chunk
+	 * column, the default layers are scanned.
+	 * 
+	 * @return The y coordinate just above the highest block that is not air
+	 *         and at most at {@code fromY}, or {@code 0} if there is none.
+	 */
+	private int computeHeight(ChunkColumn column, int x, int z, int fromY)
+	{
+		int y = fromY;
+		while (y >= 0)
+		{
+			ChunkSection section = column == null ? null : getLoadedSection(column, y >> 4);
+			if (section != null && section.isUniform() && section.get(0) == airState)
+			{
+				y = (y & ~15) - 1;
+				continue;
+			}
+			int state = section == null ? getDefaultState(y) : section.get(x, y, z);
+			if (ChunkSection.getMaterial(state) != Material.AIR)
+			{
+				return y + 1;
+			}
+			y--;
+		}
+		return 0;
+	}
+
+	/**
+	 * Get a chunk column if it is stored, without generating it.
+	 *
+	 * @param chunkX The x coordinate of the chunk.
+	 * @param chunkZ The z coordinate of the chunk.
+	 * @return The column, or {@code null} if it is not stored.
+	 */
+	ChunkColumn getStoredColumn(int chunkX, int chunkZ)
+	{
+		return chunks.get(getChunkKey(chunkX, chunkZ));
+	}
+
+	/**
+	 * Checks if a chunk column that is not stored consists of the default
+	 * layers of the world, so that it does not need to be created to read it.
+	 *
+	 * @param chunkX The x coordinate of the chunk.
+	 * @param chunkZ The z coordinate of the chunk.
+	 * @return {@code true} if the column is made of the default layers.
+	 */
+	boolean isDefaultColumn(int chunkX, int chunkZ)
+	{
+		return generator == null && (fixture == null || !fixture.containsChunk(getChunkKey(chunkX, chunkZ)));
+	}
+
+	/**
+	 * Get a chunk column so that light can be stored in it, creating it if it
+	 * does not exist yet.
+	 *
+	 * @param chunkX The x coordinate of the chunk.
+	 * @param chunkZ The z coordinate of the chunk.
+	 * @return The column.
+	 */
+	ChunkColumn createColumn(int chunkX, int chunkZ)
+	{
+		return getChunkColumn(chunkX, chunkZ, true);
+	}
+
+	/**
+	 * Get a chunk column whose light has been computed. Light spreads at most
+	 * fifteen blocks, so the light of the stored chunks around it is computed
+	 * as well.
+	 * <p>
+	 * Reading light does not create columns that consist of the default
+	 * layers. If no light spread into such a column, its light is the default
+	 * light, which is shared by all of them.
+	 */
+	private ChunkColumn getLitColumn(int chunkX, int chunkZ)
+	{
+		ChunkColumn column = getStoredColumn(chunkX, chunkZ);
+		if (column != null && column.isLit() && lastLitColumn == column)
+		{
+			return column;
+		}
+		for (int dx = -1; dx <= 1; dx++)
+		{
+			for (int dz = -1; dz <= 1; dz++)
+			{
+				ChunkColumn neighbour = getStoredColumn(chunkX + dx, chunkZ + dz);
+				if (neighbour == null && !isDefaultColumn(chunkX + dx, chunkZ + dz))
+				{
+					neighbour = getChunkColumn(chunkX + dx, chunkZ + dz, true);
+				}
+				if (neighbour != null && !neighbour.isLit())
+				{
+					lightEngine.light(neighbour);
+					anyColumnLit = true;
+				}
+			}
+		}
+
+		// Lighting the chunks around it may have created the column.
+		column = getStoredColumn(chunkX, chunkZ);
+		if (column == null)
+		{
+			return lightEngine.getDefaultColumn();
+		}
+		lastLitColumn = column;
+		return column;
+	}
+
+	/**
+	 * Forgets the light of the chunks in an area and of the chunks around it,
+	 * so that it is computed again when it is needed.
+	 */
+	private void invalidateLight(int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ)
+	{
+		lastLitColumn = null;
+		for (int chunkX = minChunkX - 1; chunkX <= maxChunkX + 1; chunkX++)
+		{
+			for (int chunkZ = minChunkZ - 1; chunkZ <= maxChunkZ + 1; chunkZ++)
+			{
+				ChunkColumn column = getStoredColumn(chunkX, chunkZ);
+				if (column != null)
+				{
+					column.setLight(null, null);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Get the light level of a block that comes from blocks that emit light.
+	 *
+	 * @param x The x coordinate of the block.
+	 * @param y The y coordinate of the block.
+	 * @param z The z coordinate of the block.
+	 * @return The block light level, from 0 to 15.
+	 */
+	public int getBlockLightAt(int x, int y, int z)
+	{
+		checkHeight(y);
+		ChunkColumn column = getLitColumn(x >> 4, z >> 4);
+		return column.getBlockLight()[y >> 4].get(ChunkSection.getIndex(x, y, z));
+	}
+
+	/**
+	 * Get the light level of a block that comes from the sky.
+	 *
+	 * @param x The x coordinate of the block.
+	 * @param y The y coordinate of the block.
+	 * @param z The z coordinate of the block.
+	 * @return The sky light level, from 0 to 15.
+	 */
+	public int getSkyLightAt(int x, int y, int z)
+	{
+		checkHeight(y);
+		ChunkColumn column = getLitColumn(x >> 4, z >> 4);
+		return column.getSkyLight()[y >> 4].get(ChunkSection.getIndex(x, y, z));
+	}
+
+	/**
+	 * Get the light level of a block, which is the highest of its block light
+	 * and sky light levels.
+	 *
+	 * @param x The x coordinate of the block.
+	 * @param y The y coordinate of the block.
+	 * @param z The z coordinate of the block.
+	 * @return The light level, from 0 to 15.
+	 */
+	public int getLightLevelAt(int x, int y, int z)
+	{
+		return Math.max(getBlockLightAt(x, y, z), getSkyLightAt(x, y, z));
+	}
+
+	/**
+	 * Queues an update for every neighbour of a block that changed, to be
+	 * performed on the next tick.
+	 */
+	private void notifyNeighbours(int x, int y, int z, int state)
+	{
+		for (int i = 0; i < NEIGHBOURS_X.length; i++)
+		{
+			int neighbourY = y + NEIGHBOURS_Y[i];
+			if (neighbourY >= 0 && neighbourY < height)
+			{
+				blockUpdates.schedule(x + NEIGHBOURS_X[i], neighbourY, z + NEIGHBOURS_Z[i], getCurrentTick() + 1, state,
+						false);
+			}
+		}
+	}
+
+	/**
+	 * Schedules an update for a block, such as the update after which sand
+	 * starts to fall. A block only has one pending update at a time; if it
+	 * already has an update that is due earlier, nothing is scheduled.
+	 * 
+	 * @param x The x coordinate of the block.
+	 * @param y The y coordinate of the block.
+	 * @param z The z coordinate of the block.
+	 * @param delay The number of ticks after which to update the block.
+	 * @return {@code true} if the update was scheduled.
+	 */
+	public boolean scheduleBlockUpdate(int x, int y, int z, int delay)
+	{
+		if (delay < 1)
+		{
+			throw new IllegalArgumentException("Delay must be at least one tick");
+		}
+		return blockUpdates.schedule(x, y, z, getCurrentTick() + delay, getStateAt(x, y, z), true);
+	}
+
+	/**
+	 * Performs the block updates that are due on a tick. Changing a block
+	 * notifies its neighbours on the next tick, so updates that cause more
+	 * changes spread out over several ticks rather than all being performed
+	 * at once.
+	 * <p>
+	 * A neighbour that is notified first calls a {@link BlockPhysicsEvent}. If
+	 * the event is not cancelled and the block has gravity and nothing below it,
+	 * the block schedules an update after which it falls down.
+	 * 
+	 * @param tick The tick to perform the updates of.
+	 * @return The number of updates that were performed.
+	 */
+	public int performBlockUpdates(long tick)
+	{
+		currentTick = tick;
+		int performed = 0;
+		while ((maxBlockUpdatesPerTick == 0 || performed < maxBlockUpdatesPerTick) && blockUpdates.poll(tick))
+		{
+			performBlockUpdate(blockUpdates.getX(), blockUpdates.getY(), blockUpdates.getZ(),
+					blockUpdates.getChanged(), blockUpdates.isScheduled());
+			performed++;
+		}
+		return performed;
+	}
+
+	private void performBlockUpdate(int x, int y, int z, int changed, boolean scheduled)
+	{
+		if (!scheduled)
+		{
+			Block block = getBlockAt(x, y, z);
+			BlockPhysicsEvent event = new BlockPhysicsEvent(block, ChunkSection.getMaterial(changed).getId());
+			callEvent(event);
+			if (event.isCancelled())
+			{
+				return;
+			}
+		}
+
+		int state = getStateAt(x, y, z);
+		if (!ChunkSection.getMaterial(state).hasGravity() || y == 0 || !canFallThrough(getStateAt(x, y - 1, z)))
+		{
+			return;
+		}
+		if (!scheduled)
+		{
+			blockUpdates.schedule(x, y, z, getCurrentTick() + FALL_DELAY, state, true);
+			return;
+		}
+
+		int landingY = y - 1;
+		while (landingY > 0 && canFallThrough(getStateAt(x, landingY - 1, z)))
+		{
+			landingY--;
+		}
+		setStateAt(x, y, z, airState);
+		setStateAt(x, landingY, z, state);
+	}
+
+	private static boolean canFallThrough(int state)
+	{
+		switch (ChunkSection.getMaterial(state))
+		{
+			case AIR:
+			case FIRE:
+			case WATER:
+			case STATIONARY_WATER:
+			case LAVA:
+			case STATIONARY_LAVA:
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * Sets the clock from which the current tick of the world is read. The
+	 * ticks of new block updates are counted from the current tick, so the
+	 * clock keeps them right when the server skips over ticks in which nothing
+	 * happens.
+	 *
+	 * @param clock The clock, or {@code null} to use the tick that was passed
+	 *        to {@link #performBlockUpdates(long)} last.
+	 */
+	void setClock(LongSupplier clock)
+	{
+		this.clock = clock;
+	}
+
+	/**
+	 * Get the current tick of the world, from which the ticks of new block
+	 * updates are counted.
+	 */
+	private long getCurrentTick()
+	{
+		return clock == null ? currentTick : clock.getAsLong();
+	}
+
+	/**
+	 * Get the tick of the earliest pending block update.
+	 * 
+	 * @return The tick of the earliest block update, or {@link Long#MAX_VALUE}
+	 *         if no update is pending.
+	 */
+	public long getNextBlockUpdateTick()
+	{
+		return blockUpdates.getNextTick();
+	}
+
+	/**
+	 * Get the number of block updates that are waiting to be performed.
+	 * 
+	 * @return The number of pending block updates.
+	 */
+	public int getPendingBlockUpdates()
+	{
+		return blockUpdates.size();
+	}
+
+	/**
+	 * Sets the maximum number of block updates that are performed on a single
+	 * tick. Updates that do not fit in a tick are performed on the next tick,
+	 * before the updates of that tick.
 	 * 
-	 * @param defaultBlock The block that is spawned at locations 1 to
-	 *        {@code grassHeight}
-	 * @param height The height of the world.
-	 * @param grassHeight The last {@code y} at which {@code defaultBlock} will
-	 *        spawn.
+	 * @param maxBlockUpdatesPerTick The maximum number of updates per tick, or
+	 *        {@code 0} to perform every update that is due.
 	 */
-	public WorldMock(Material defaultBlock, int height, int grassHeight)
+	public void setMaxBlockUpdatesPerTick(int maxBlockUpdatesPerTick)
 	{
-		this.defaultBlock = defaultBlock;
-		this.height = height;
-		this.grassHeight = grassHeight;
+		this.maxBlockUpdatesPerTick = maxBlockUpdatesPerTick;
 	}
 
 	/**
-	 * Creates a new mock world with a height of 128.
+	 * Get the maximum number of block updates that are performed on a single
+	 * tick.
 	 * 
-	 * @param defaultBlock The block that is spawned at locations 1 to
-	 *        {@code grassHeight}
-	 * @param grassHeight The last {@code y} at which {@code defaultBlock} will
-	 *        spawn.
+	 * @return The maximum number of updates per tick, or {@code 0} if there is
+	 *         no maximum.
 	 */
-	public WorldMock(Material defaultBlock, int grassHeight)
+	public int getMaxBlockUpdatesPerTick()
 	{
-		this(defaultBlock, 128, grassHeight);
+		return maxBlockUpdatesPerTick;
 	}
 
 	/**
-	 * Creates a new mock world with a height of 128 and will spawn grass until a
-	 * {@code y} of 4.
+	 * Sets whether changing a block causes block updates. Bulk operations such
+	 * as {@link #fill} never cause block updates.
+	 * <p>
+	 * By default, physics is only enabled while the world is added to a
+	 * server, whose scheduler performs the updates. A world that is never
+	 * ticked would otherwise keep every update it causes.
+	 * 
+	 * @param physics {@code true} if changing a block should update its
+	 *        neighbours.
 	 */
-	public WorldMock()
+	public void setPhysicsEnabled(boolean physics)
 	{
-		this(Material.GRASS, 4);
+		this.physics = physics;
+		if (!physics)
+		{
+			blockUpdates.clear();
+		}
 	}
 
 	/**
-	 * Makes sure that a certain block exists on the coordinate.
-	 * Returns that block.
+	 * Checks if changing a block causes block updates.
+	 * 
+	 * @return {@code true} if changing a block updates its neighbours.
 	 */
-	public Block createBlock(Coordinate c)
+	public boolean isPhysicsEnabled()
 	{
-		if (c.y >= height)
-			throw new ArrayIndexOutOfBoundsException("Y larger than height");
-		else if (c.y < 0)
-			throw new ArrayIndexOutOfBoundsException("Y smaller than 0");
-		
-		Block block;
-		if (c.y == 0)
+		return physics == null ? clock != null : physics;
+	}
+
+	/**
+	 * Sets the journal in which every change to a block of the world is
+	 * recorded. This includes blocks changed by {@link #fill}, by
+	 * {@link #pasteRegion}, by restoring a snapshot and by unloading a chunk
+	 * without saving it.
+	 * 
+	 * @param journal The journal, or {@code null} to stop recording changes.
+	 */
+	public void setJournal(BlockChangeJournal journal)
+	{
+		this.journal = journal;
+	}
+
+	/**
+	 * Get the journal in which changes to blocks are recorded.
+	 * 
+	 * @return The journal, or {@code null} if changes are not recorded.
+	 */
+	public BlockChangeJournal getJournal()
+	{
+		return journal;
+	}
+
+	/**
+	 * Get the maximum number of chunks that can be loaded at the same time.
+	 * 
+	 * @return The maximum number of loaded chunks, or {@code 0} if there is no
+	 *         maximum.
+	 */
+	public int getMaxLoadedChunks()
+	{
+		return maxLoadedChunks;
+	}
+
+	/**
+	 * Sets the maximum number of chunks that can be loaded at the same time.
+	 * Whenever more chunks are loaded, the chunks that were used least
+	 * recently are unloaded. Chunks that are in use by a player, or whose
+	 * {@link ChunkUnloadEvent} is cancelled, stay loaded.
+	 * <p>
+	 * Unloading a chunk releases the memory used by its blocks, unless any of
+	 * them were modified.
+	 * 
+	 * @param maxLoadedChunks The maximum number of loaded chunks, or {@code 0}
+	 *        to never unload chunks automatically.
+	 */
+	public void setMaxLoadedChunks(int maxLoadedChunks)
+	{
+		if (maxLoadedChunks < 0)
+		{
+			throw new IllegalArgumentException("Maximum cannot be negative");
+		}
+		this.maxLoadedChunks = maxLoadedChunks;
+		unloadLeastRecentlyUsed(null);
+	}
+
+	/**
+	 * Unloads the chunks that were used least recently until no more chunks
+	 * are loaded than the maximum.
+	 * 
+	 * @param keep A chunk that should not be unloaded, such as the chunk that
+	 *        was just loaded.
+	 */
+	private void unloadLeastRecentlyUsed(ChunkMock keep)
+	{
+		if (maxLoadedChunks == 0 || loadedChunks.size() <= maxLoadedChunks)
+		{
+			return;
+		}
+		ChunkMock chunk = oldestChunk;
+		while (chunk != null && loadedChunks.size() > maxLoadedChunks)
+		{
+			// Unloading the chunk unlinks it, so the next one is looked up first.
+			ChunkMock next = chunk.newerChunk;
+			if (chunk != keep)
+			{
+				unloadChunk(chunk.getX(), chunk.getZ(), true, true);
+			}
+			chunk = next;
+		}
+	}
+
+	/**
+	 * Moves a loaded chunk to the end of the list of chunks in order of use.
+	 */
+	private void touchChunk(ChunkMock chunk)
+	{
+		if (chunk != newestChunk)
 		{
-			block = new BlockMock(Material.BEDROCK);
+			unlinkChunk(chunk);
+			linkChunk(chunk);
 		}
-		else if (c.y <= grassHeight)
+	}
+
+	/**
+	 * Adds a chunk to the end of the list of chunks in order of use.
+	 */
+	private void linkChunk(ChunkMock chunk)
+	{
+		chunk.olderChunk = newestChunk;
+		chunk.newerChunk = null;
+		if (newestChunk == null)
 		{
-			block = new BlockMock(defaultBlock);
+			oldestChunk = chunk;
 		}
 		else
 		{
-			block = new BlockMock();
+			newestChunk.newerChunk = chunk;
 		}
-		
-		blocks.put(c, block);
-		return block;
+		newestChunk = chunk;
 	}
-	
-	@Override
-	public Block getBlockAt(int x, int y, int z)
+
+	/**
+	 * Removes a chunk from the list of chunks in order of use.
+	 */
+	private void unlinkChunk(ChunkMock chunk)
+	{
+		if (chunk.olderChunk == null)
+		{
+			oldestChunk = chunk.newerChunk;
+		}
+		else
+		{
+			chunk.olderChunk.newerChunk = chunk.newerChunk;
+		}
+		if (chunk.newerChunk == null)
+		{
+			newestChunk = chunk.olderChunk;
+		}
+		else
+		{
+			chunk.newerChunk.olderChunk = chunk.olderChunk;
+		}
+		chunk.olderChunk = null;
+		chunk.newerChunk = null;
+	}
+
+	private static void callEvent(Event event)
+	{
+		ServerMock server = MockBukkit.getMock();
+		if (server != null)
+		{
+			server.getPluginManager().callEvent(event);
+		}
+	}
+
+	/**
+	 * Get the column of a chunk. The column that was used last is remembered,
+	 * since consecutive lookups tend to fall in the same chunk. In a world with
+	 * a generator, a column that does not exist yet is always generated.
+	 * 
+	 * @param create Whether to create the column if it does not exist yet.
+	 * @return The column, or {@code null} if it does not exist and
+	 *         {@code create} is {@code false}.
+	 */
+	private ChunkColumn getChunkColumn(int chunkX, int chunkZ, boolean create)
+	{
+		long key = getChunkKey(chunkX, chunkZ);
+		if (lastChunk != null && lastChunk.getKey() == key)
+		{
+			return lastChunk;
+		}
+
+		ChunkColumn column = chunks.get(key);
+		if (column == null)
+		{
+			if (generator != null)
+			{
+				column = generateColumn(chunkX, chunkZ);
+			}
+			else if (!create)
+			{
+				return null;
+			}
+			else
+			{
+				column = new ChunkColumn(key, (height + ChunkSection.SIZE - 1) / ChunkSection.SIZE);
+			}
+			chunks.put(key, column);
+		}
+		lastChunk = column;
+		return column;
+	}
+
+	/**
+	 * Creates a section containing the blocks a section has before it is
+	 * modified. These are read from the fixture of the world if it contains
+	 * the section.
+	 */
+	private ChunkSection createSection(long key, int sectionY)
+	{
+		ChunkSection section = fixture == null ? null : readFixtureSection(key, sectionY);
+		return section == null ? createSection(sectionY) : section;
+	}
+
+	/**
+	 * Reads a section from the fixture of the world. Blocks are read lazily,
+	 * so a corrupt section is only noticed when it is first accessed.
+	 *
+	 * @throws UncheckedIOException if the section is corrupt.
+	 */
+	private ChunkSection readFixtureSection(long key, int sectionY)
+	{
+		try
+		{
+			return fixture.readSection(key, sectionY);
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Creates a section filled with the default layers of the world.
+	 */
+	private ChunkSection createSection(int sectionY)
+	{
+		int minY = sectionY * ChunkSection.SIZE;
+		int maxY = Math.min(minY + ChunkSection.SIZE, height) - 1;
+		if (minY > 0 && maxY <= grassHeight)
+		{
+			return new ChunkSection(defaultState);
+		}
+
+		ChunkSection section = new ChunkSection(airState);
+		for (int y = minY; y <= maxY && y <= grassHeight; y++)
+		{
+			section.fillLayer(y, getDefaultState(y));
+		}
+		return section;
+	}
+
+	/**
+	 * Get the state a block has before it is modified.
+	 */
+	int getDefaultState(int y)
 	{
-		Coordinate coordinate = new Coordinate(x, y, z);
-		if (blocks.containsKey(coordinate))
+		if (y == 0)
 		{
-			return blocks.get(coordinate);
+			return bedrockState;
+		}
+		else if (y <= grassHeight)
+		{
+			return defaultState;
 		}
 		else
 		{
-			return createBlock(coordinate);
+			return airState;
 		}
 	}
 
+	private void checkHeight(int y)
+	{
+		if (y >= height)
+			throw new ArrayIndexOutOfBoundsException("Y larger than height");
+		else if (y < 0)
+			throw new ArrayIndexOutOfBoundsException("Y smaller than 0");
+	}
+
+	private static long getChunkKey(int chunkX, int chunkZ)
+	{
+		return (long) chunkX << 32 | chunkZ & 0xFFFFFFFFL;
+	}
+	
+	@Override
+	public Block getBlockAt(int x, int y, int z)
+	{
+		checkHeight(y);
+		loadChunk(x >> 4, z >> 4, true);
+		return new BlockMock(this, x, y, z);
+	}
+
 	@Override
 	public Block getBlockAt(Location location)
 	{
@@ -169,6 +1881,14 @@ public class WorldMock implements World
 	@Override
 	public Location getSpawnLocation()
 	{
+		if (spawnLocation == null && generator != null)
+		{
+			Location location = generator.getFixedSpawnLocation(this, new Random(seed));
+			if (location != null)
+			{
+				setSpawnLocation(location);
+			}
+		}
 		if (spawnLocation == null)
 		{
 			setSpawnLocation(0, grassHeight + 1, 0);
@@ -244,157 +1964,246 @@ public class WorldMock implements World
 	@Deprecated
 	public int getBlockTypeIdAt(int x, int y, int z)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		return ChunkSection.getMaterial(getStateAt(x, y, z)).getId();
 	}
 
 	@Override
 	@Deprecated
 	public int getBlockTypeIdAt(Location location)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		return getBlockTypeIdAt(location.getBlockX(), location.getBlockY(), location.getBlockZ());
 	}
 
 	@Override
 	public int getHighestBlockYAt(int x, int z)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		int chunkX = x >> 4;
+		int chunkZ = z >> 4;
+		ChunkColumn column = getChunkColumn(chunkX, chunkZ, false);
+		if (column == null && fixture != null && fixture.containsChunk(getChunkKey(chunkX, chunkZ)))
+		{
+			column = getChunkColumn(chunkX, chunkZ, true);
+		}
+		if (column == null)
+		{
+			return computeHeight(null, x, z, Math.min(grassHeight, height - 1));
+		}
+		return getHeightmap(column)[(z & 15) << 4 | (x & 15)];
 	}
 
 	@Override
 	public int getHighestBlockYAt(Location location)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		return getHighestBlockYAt(location.getBlockX(), location.getBlockZ());
 	}
 
 	@Override
 	public Block getHighestBlockAt(int x, int z)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		// A column that is filled up to the top has no block above it.
+		return getBlockAt(x, Math.min(getHighestBlockYAt(x, z), height - 1), z);
 	}
 
 	@Override
 	public Block getHighestBlockAt(Location location)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		return getHighestBlockAt(location.getBlockX(), location.getBlockZ());
 	}
 
 	@Override
-	public Chunk getChunkAt(int x, int z)
+	public ChunkMock getChunkAt(int x, int z)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		loadChunk(x, z, true);
+		return loadedChunks.get(getChunkKey(x, z));
 	}
 
 	@Override
-	public Chunk getChunkAt(Location location)
+	public ChunkMock getChunkAt(Location location)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		return getChunkAt(location.getBlockX() >> 4, location.getBlockZ() >> 4);
 	}
 
 	@Override
-	public Chunk getChunkAt(Block block)
+	public ChunkMock getChunkAt(Block block)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		return getChunkAt(block.getX() >> 4, block.getZ() >> 4);
 	}
 
 	@Override
 	public boolean isChunkLoaded(Chunk chunk)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		return isChunkLoaded(chunk.getX(), chunk.getZ());
 	}
 
 	@Override
 	public Chunk[] getLoadedChunks()
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		Chunk[] loaded = new Chunk[loadedChunks.size()];
+		int index = 0;
+		for (ChunkMock chunk = oldestChunk; chunk != null; chunk = chunk.newerChunk)
+		{
+			loaded[index++] = chunk;
+		}
+		return loaded;
 	}
 
 	@Override
 	public void loadChunk(Chunk chunk)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		loadChunk(chunk.getX(), chunk.getZ());
 	}
 
 	@Override
 	public boolean isChunkLoaded(int x, int z)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		return loadedChunks.get(getChunkKey(x, z)) != null;
 	}
 
 	@Override
 	public boolean isChunkInUse(int x, int z)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		ServerMock server = MockBukkit.getMock();
+		if (server == null)
+		{
+			return false;
+		}
+		for (Player player : server.getOnlinePlayers())
+		{
+			Location location = player.getLocation();
+			if (location.getWorld() == this && location.getBlockX() >> 4 == x && location.getBlockZ() >> 4 == z)
+			{
+				return true;
+			}
+		}
+		return false;
 	}
 
 	@Override
 	public void loadChunk(int x, int z)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		loadChunk(x, z, true);
 	}
 
 	@Override
 	public boolean loadChunk(int x, int z, boolean generate)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		if (newestChunk != null && newestChunk.getX() == x && newestChunk.getZ() == z)
+		{
+			return true;
+		}
+		long key = getChunkKey(x, z);
+		ChunkMock loaded = loadedChunks.get(key);
+		if (loaded != null)
+		{
+			touchChunk(loaded);
+			return true;
+		}
+		
+		boolean stored = chunks.get(key) != null || fixture != null && fixture.containsChunk(key);
+		if (!generate && !stored)
+		{
+			return false;
+		}
+		ChunkMock chunk = new ChunkMock(this, x, z);
+		loadedChunks.put(key, chunk);
+		linkChunk(chunk);
+		callEvent(new ChunkLoadEvent(chunk, !stored));
+		unloadLeastRecentlyUsed(chunk);
+		return true;
 	}
 
 	@Override
 	public boolean unloadChunk(Chunk chunk)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		return unloadChunk(chunk.getX(), chunk.getZ());
 	}
 
 	@Override
 	public boolean unloadChunk(int x, int z)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		return unloadChunk(x, z, true);
 	}
 
 	@Override
 	public boolean unloadChunk(int x, int z, boolean save)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		return unloadChunk(x, z, save, true);
 	}
 
 	@Override
 	@Deprecated
 	public boolean unloadChunk(int x, int z, boolean save, boolean safe)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		long key = getChunkKey(x, z);
+		ChunkMock chunk = loadedChunks.get(key);
+		if (chunk == null)
+		{
+			return true;
+		}
+		if (safe && isChunkInUse(x, z))
+		{
+			return false;
+		}
+		ChunkUnloadEvent event = new ChunkUnloadEvent(chunk);
+		callEvent(event);
+		if (event.isCancelled())
+		{
+			return false;
+		}
+		
+		loadedChunks.remove(key);
+		unlinkChunk(chunk);
+		chunk.setUnloaded();
+		ChunkColumn column = chunks.get(key);
+		if (column != null && (!save || !column.isModified()))
+		{
+			// The blocks of the chunk are computed or read from the fixture again
+			// when they are needed, so the memory they use can be released.
+			boolean modified = column.isModified();
+			chunks.remove(key);
+			if (modified)
+			{
+				dropBlockStates(key);
+			}
+			if (modified)
+			{
+				// The column no longer matches the last snapshot. Only its key is
+				// remembered, as a new column is created if the chunk is used again.
+				markDirty(column);
+			}
+			if (lastChunk == column)
+			{
+				lastChunk = null;
+			}
+			if (journal != null && modified)
+			{
+				journalColumn(key, column, null);
+			}
+			if (modified || column.isLit())
+			{
+				// Light that spread into the column is lost, so the chunks around
+				// it have to spread it again.
+				invalidateLight(x, z, x, z);
+			}
+		}
+		return true;
 	}
 
 	@Override
 	public boolean unloadChunkRequest(int x, int z)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		return unloadChunkRequest(x, z, true);
 	}
 
 	@Override
 	public boolean unloadChunkRequest(int x, int z, boolean safe)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		if (safe && isChunkInUse(x, z))
+		{
+			return false;
+		}
+		unloadChunk(x, z, true, false);
+		return true;
 	}
 
 	@Override
@@ -479,15 +2288,21 @@ public class WorldMock implements World
 	@Override
 	public List<Entity> getEntities()
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		return entities.getAll();
 	}
 
 	@Override
 	public List<LivingEntity> getLivingEntities()
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		List<LivingEntity> living = new ArrayList<>();
+		for (Entity entity : entities.getAll())
+		{
+			if (entity instanceof LivingEntity)
+			{
+				living.add((LivingEntity) entity);
+			}
+		}
+		return living;
 	}
 
 	@SuppressWarnings("unchecked")
@@ -495,36 +2310,60 @@ public class WorldMock implements World
 	@Deprecated
 	public <T extends Entity> Collection<T> getEntitiesByClass(Class<T>... classes)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		return (Collection<T>) getEntitiesByClasses(classes);
 	}
 
 	@Override
 	public <T extends Entity> Collection<T> getEntitiesByClass(Class<T> cls)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		List<T> matching = new ArrayList<>();
+		for (Entity entity : entities.getAll())
+		{
+			if (cls.isInstance(entity))
+			{
+				matching.add(cls.cast(entity));
+			}
+		}
+		return matching;
 	}
 
 	@Override
 	public Collection<Entity> getEntitiesByClasses(Class<?>... classes)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		List<Entity> matching = new ArrayList<>();
+		for (Entity entity : entities.getAll())
+		{
+			for (Class<?> cls : classes)
+			{
+				if (cls.isInstance(entity))
+				{
+					matching.add(entity);
+					break;
+				}
+			}
+		}
+		return matching;
 	}
 
 	@Override
 	public List<Player> getPlayers()
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		List<Player> players = new ArrayList<>();
+		for (Entity entity : entities.getAll())
+		{
+			if (entity instanceof Player)
+			{
+				players.add((Player) entity);
+			}
+		}
+		return players;
 	}
 
 	@Override
-	public Collection<Entity> getNearbyEntities(Location location, double x, double y, double z)
+	public List<Entity> getNearbyEntities(Location location, double x, double y, double z)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		return entities.query(location.getX() - x, location.getY() - y, location.getZ() - z, location.getX() + x,
+				location.getY() + y, location.getZ() + z);
 	}
 
 	@Override
@@ -656,8 +2495,7 @@ public class WorldMock implements World
 	@Override
 	public long getSeed()
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		return seed;
 	}
 
 	@Override
@@ -677,8 +2515,7 @@ public class WorldMock implements World
 	@Override
 	public ChunkGenerator getGenerator()
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		return generator;
 	}
 
 	@Override
@@ -822,8 +2659,7 @@ public class WorldMock implements World
 	@Override
 	public int getMaxHeight()
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		return height;
 	}
 
 	@Override
@@ -0,0 +1,49 @@
+package be.seeseemelk.mockbukkit;
+
+import java.util.List;
+
+/**
+ * A snapshot of all blocks in a {@link WorldMock}, as taken by
+ * {@link WorldMock#snapshot()}. A snapshot never changes, even when the world
+ * it was taken of is modified.
+ */
+public class WorldSnapshot
+{
+	private final WorldMock world;
+	private final LongMap<ChunkColumn> columns;
+
+	WorldSnapshot(WorldMock world, LongMap<ChunkColumn> columns)
+	{
+		this.world = world;
+		this.columns = columns;
+	}
+
+	/**
+	 * Get the world the snapshot was taken of.
+	 * @return The world the snapshot was taken of.
+	 */
+	public WorldMock getWorld()
+	{
+		return world;
+	}
+
+	/**
+	 * Get the saved column of a chunk.
+	 * @param key The packed coordinates of the chunk.
+	 * @return The saved column, or {@code null} if the chunk was never modified
+	 *         before the snapshot was taken.
+	 */
+	ChunkColumn getColumn(long key)
+	{
+		return columns.get(key);
+	}
+
+	/**
+	 * Get all saved columns.
+	 * @return The saved columns.
+	 */
+	List<ChunkColumn> getColumns()
+	{
+		return columns.values();
+	}
+}
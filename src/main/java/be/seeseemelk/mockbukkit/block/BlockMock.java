@@ -16,13 +16,29 @@ import org.bukkit.inventory.ItemStack;
 import org.bukkit.metadata.MetadataValue;
 import org.bukkit.plugin.Plugin;
 
+import be.seeseemelk.mockbukkit.ChunkSection;
 import be.seeseemelk.mockbukkit.UnimplementedOperationException;
-
+import be.seeseemelk.mockbukkit.WorldMock;
+
+/**
+ * A mock block. A block is either a standalone block that stores its own
+ * material and data, or a view on a single position of a {@link WorldMock},
+ * in which case it is backed by the storage of that world.
+ * <p>
+ * In both cases the material and data are kept packed into a single
+ * {@code int} as described by {@link ChunkSection#getState}, and a
+ * {@link BlockState} is only created once {@link #getState()} is called. A
+ * standalone block keeps its own state, while the state of a block in a world
+ * is kept by the world for its position until the block is changed.
+ */
 public class BlockMock implements org.bukkit.block.Block
 {
-	private BlockState state;
-	private Material material;
-	private byte data;
+	private final WorldMock world;
+	private final int x;
+	private final int y;
+	private final int z;
+	private int state;
+	private BlockState blockState;
 	
 	/**
 	 * Creates a basic block made of air.
@@ -38,8 +54,63 @@ public class BlockMock implements org.bukkit.block.Block
 	 */
 	public BlockMock(Material material)
 	{
-		this.material = material;
-		state = new BlockStateMock();
+		state = ChunkSection.getState(material, (byte) 0);
+		world = null;
+		x = 0;
+		y = 0;
+		z = 0;
+	}
+
+	/**
+	 * Creates a block that is a view on a position of a world.
+	 * @param world The world the block is in.
+	 * @param x The x coordinate of the block.
+	 * @param y The y coordinate of the block.
+	 * @param z The z coordinate of the block.
+	 */
+	public BlockMock(WorldMock world, int x, int y, int z)
+	{
+		this.world = world;
+		this.x = x;
+		this.y = y;
+		this.z = z;
+	}
+
+	/**
+	 * Get the material and data of the block, packed as described by
+	 * {@link ChunkSection#getState}.
+	 */
+	private int getPackedState()
+	{
+		return world == null ? state : world.getStateAt(x, y, z);
+	}
+
+	/**
+	 * Sets the material and data of the block, packed as described by
+	 * {@link ChunkSection#getState}.
+	 */
+	private void setPackedState(int state, boolean applyPhysics)
+	{
+		if (world == null)
+		{
+			this.state = state;
+		}
+		else
+		{
+			world.setStateAt(x, y, z, state, applyPhysics);
+		}
+	}
+
+	/**
+	 * Checks if this block is a view on a world.
+	 * @throws UnimplementedOperationException if the block is a standalone block.
+	 */
+	private void checkInWorld()
+	{
+		if (world == null)
+		{
+			throw new UnimplementedOperationException("Block is not part of a world");
+		}
 	}
 
 	@Override
@@ -74,34 +145,32 @@ public class BlockMock implements org.bukkit.block.Block
 	@Deprecated
 	public byte getData()
 	{
-		return data;
+		return ChunkSection.getData(getPackedState());
 	}
 
 	@Override
 	public Block getRelative(int modX, int modY, int modZ)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		checkInWorld();
+		return world.getBlockAt(x + modX, y + modY, z + modZ);
 	}
 
 	@Override
 	public Block getRelative(BlockFace face)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		return getRelative(face, 1);
 	}
 
 	@Override
 	public Block getRelative(BlockFace face, int distance)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		return getRelative(face.getModX() * distance, face.getModY() * distance, face.getModZ() * distance);
 	}
 
 	@Override
 	public Material getType()
 	{
-		return material;
+		return ChunkSection.getMaterial(getPackedState());
 	}
 
 	@Override
@@ -115,64 +184,73 @@ public class BlockMock implements org.bukkit.block.Block
 	@Override
 	public byte getLightLevel()
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		checkInWorld();
+		return (byte) world.getLightLevelAt(x, y, z);
 	}
 
 	@Override
 	public byte getLightFromSky()
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		checkInWorld();
+		return (byte) world.getSkyLightAt(x, y, z);
 	}
 
 	@Override
 	public byte getLightFromBlocks()
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		checkInWorld();
+		return (byte) world.getBlockLightAt(x, y, z);
 	}
 
 	@Override
 	public World getWorld()
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		checkInWorld();
+		return world;
 	}
 
 	@Override
 	public int getX()
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		checkInWorld();
+		return x;
 	}
 
 	@Override
 	public int getY()
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		checkInWorld();
+		return y;
 	}
 
 	@Override
 	public int getZ()
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		checkInWorld();
+		return z;
 	}
 
 	@Override
 	public Location getLocation()
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		checkInWorld();
+		return new Location(world, x, y, z);
 	}
 
 	@Override
 	public Location getLocation(Location loc)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		checkInWorld();
+		if (loc != null)
+		{
+			loc.setWorld(world);
+			loc.setX(x);
+			loc.setY(y);
+			loc.setZ(z);
+			loc.setYaw(0);
+			loc.setPitch(0);
+		}
+		return loc;
 	}
 
 	@Override
@@ -186,27 +264,26 @@ public class BlockMock implements org.bukkit.block.Block
 	@Deprecated
 	public void setData(byte data)
 	{
-		this.data = data;
+		setData(data, true);
 	}
 
 	@Override
 	@Deprecated
 	public void setData(byte data, boolean applyPhysics)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		setPackedState(ChunkSection.getState(getType(), data), applyPhysics);
 	}
 
 	@Override
 	public void setType(Material type)
 	{
-		material = type;
+		setType(type, true);
 	}
 
 	@Override
 	public void setType(Material type, boolean applyPhysics)
 	{
-		setType(material);
+		setPackedState(ChunkSection.getState(type, getData()), applyPhysics);
 	}
 
 	@Override
@@ -240,10 +317,26 @@ public class BlockMock implements org.bukkit.block.Block
 		throw new UnimplementedOperationException();
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * The state is created on the first call and returned again by every
+	 * later call. For a block in a world, the state belongs to its position, so
+	 * it is shared with every other block of the same position until the block
+	 * is changed.
+	 */
 	@Override
 	public BlockState getState()
 	{
-		return state;
+		if (world != null)
+		{
+			return world.getBlockStateAt(x, y, z);
+		}
+		if (blockState == null)
+		{
+			blockState = new BlockStateMock();
+		}
+		return blockState;
 	}
 
 	@Override
@@ -365,4 +458,29 @@ public class BlockMock implements org.bukkit.block.Block
 		// TODO Auto-generated method stub
 		throw new UnimplementedOperationException();
 	}
+
+	@Override
+	public boolean equals(Object obj)
+	{
+		if (world == null || !(obj instanceof BlockMock))
+		{
+			return this == obj;
+		}
+		BlockMock other = (BlockMock) obj;
+		return world == other.world && x == other.x && y == other.y && z == other.z;
+	}
+
+	@Override
+	public int hashCode()
+	{
+		if (world == null)
+		{
+			return super.hashCode();
+		}
+		int hash = world.hashCode();
+		hash = 31 * hash + x;
+		hash = 31 * hash + y;
+		hash = 31 * hash + z;
+		return hash;
+	}
 }
@@ -1,7 +1,10 @@
 package be.seeseemelk.mockbukkit.entity;
 
+import be.seeseemelk.mockbukkit.BlockRaycast;
+import be.seeseemelk.mockbukkit.ChunkSection;
 import be.seeseemelk.mockbukkit.MockBukkit;
 import be.seeseemelk.mockbukkit.UnimplementedOperationException;
+import be.seeseemelk.mockbukkit.WorldMock;
 import be.seeseemelk.mockbukkit.command.MessageTarget;
 import be.seeseemelk.mockbukkit.inventory.PlayerInventoryMock;
 import com.google.common.base.Charsets;
@@ -225,7 +228,16 @@ public class PlayerMock implements Player, MessageTarget
 	@Override
 	public boolean teleport(Location location, TeleportCause cause)
 	{
+		World from = this.location.getWorld();
 		this.location = location;
+		if (from instanceof WorldMock)
+		{
+			((WorldMock) from).updateEntity(this);
+		}
+		else if (location.getWorld() instanceof WorldMock)
+		{
+			((WorldMock) location.getWorld()).addEntity(this);
+		}
 		teleported = true;
 		teleportCause = cause;
 		return true;
@@ -449,43 +461,101 @@ public class PlayerMock implements Player, MessageTarget
 	@Override
 	public double getEyeHeight()
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		return getEyeHeight(false);
 	}
 
 	@Override
 	public double getEyeHeight(boolean ignoreSneaking)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		return 1.62;
 	}
 
 	@Override
 	public Location getEyeLocation()
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		return getLocation().add(0, getEyeHeight(), 0);
+	}
+
+	/**
+	 * Get the blocks the player is looking at, up to and including the first
+	 * block that is not transparent.
+	 * @param transparent The materials to look through, or {@code null} to only
+	 * look through air.
+	 * @param maxDistance The maximum distance to look, which is capped at 120.
+	 * @param maxLength The number of blocks to return from the end of the line,
+	 * which is at most 2, or {@code 0} to return every block.
+	 * @return The blocks along the line of sight.
+	 */
+	private List<Block> getLineOfSight(Set<Material> transparent, int maxDistance, int maxLength)
+	{
+		WorldMock world = (WorldMock) location.getWorld();
+		Location eye = getEyeLocation();
+		Vector direction = eye.getDirection();
+		BlockRaycast ray = new BlockRaycast(world, eye.getX(), eye.getY(), eye.getZ(), direction.getX(),
+				direction.getY(), direction.getZ(), Math.min(maxDistance, 120));
+		
+		// When only the last blocks are needed, only their coordinates are kept
+		// while walking and the blocks are created at the end.
+		List<Block> blocks = new ArrayList<>();
+		int count = 0;
+		int previousX = 0;
+		int previousY = 0;
+		int previousZ = 0;
+		int lastX = 0;
+		int lastY = 0;
+		int lastZ = 0;
+		while (ray.next())
+		{
+			if (maxLength == 0)
+			{
+				blocks.add(world.getBlockAt(ray.getX(), ray.getY(), ray.getZ()));
+			}
+			else
+			{
+				previousX = lastX;
+				previousY = lastY;
+				previousZ = lastZ;
+				lastX = ray.getX();
+				lastY = ray.getY();
+				lastZ = ray.getZ();
+				count++;
+			}
+			
+			Material material = ChunkSection.getMaterial(ray.getState());
+			if (transparent == null ? material != Material.AIR : !transparent.contains(material))
+			{
+				break;
+			}
+		}
+		
+		if (maxLength >= 2 && count >= 2)
+		{
+			blocks.add(world.getBlockAt(previousX, previousY, previousZ));
+		}
+		if (maxLength >= 1 && count >= 1)
+		{
+			blocks.add(world.getBlockAt(lastX, lastY, lastZ));
+		}
+		return blocks;
 	}
 
 	@Override
 	public List<Block> getLineOfSight(Set<Material> transparent, int maxDistance)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		return getLineOfSight(transparent, maxDistance, 0);
 	}
 
 	@Override
 	public Block getTargetBlock(Set<Material> transparent, int maxDistance)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		List<Block> blocks = getLineOfSight(transparent, maxDistance, 1);
+		return blocks.isEmpty() ? null : blocks.get(0);
 	}
 
 	@Override
 	public List<Block> getLastTwoTargetBlocks(Set<Material> transparent, int maxDistance)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		return getLineOfSight(transparent, maxDistance, 2);
 	}
 
 	@Override
@@ -764,15 +834,19 @@ public class PlayerMock implements Player, MessageTarget
 	@Override
 	public World getWorld()
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		return location.getWorld();
 	}
 
 	@Override
 	public List<Entity> getNearbyEntities(double x, double y, double z)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		if (!(location.getWorld() instanceof WorldMock))
+		{
+			return new ArrayList<>();
+		}
+		List<Entity> nearby = ((WorldMock) location.getWorld()).getNearbyEntities(location, x, y, z);
+		nearby.remove(this);
+		return nearby;
 	}
 
 	@Override
@@ -0,0 +1,37 @@
+package be.seeseemelk.mockbukkit.generator;
+
+import java.util.Arrays;
+
+import org.bukkit.block.Biome;
+import org.bukkit.generator.ChunkGenerator.BiomeGrid;
+
+/**
+ * A mock implementation of the biomes of a single chunk, as passed to a
+ * {@link org.bukkit.generator.ChunkGenerator}.
+ */
+public class BiomeGridMock implements BiomeGrid
+{
+	private final Biome[] biomes = new Biome[16 * 16];
+
+	/**
+	 * Creates a biome grid in which every column has the same biome.
+	 *
+	 * @param biome The biome of every column.
+	 */
+	public BiomeGridMock(Biome biome)
+	{
+		Arrays.fill(biomes, biome);
+	}
+
+	@Override
+	public Biome getBiome(int x, int z)
+	{
+		return biomes[(z & 15) << 4 | (x & 15)];
+	}
+
+	@Override
+	public void setBiome(int x, int z, Biome bio)
+	{
+		biomes[(z & 15) << 4 | (x & 15)] = bio;
+	}
+}
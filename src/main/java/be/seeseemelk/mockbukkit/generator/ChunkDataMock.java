@@ -0,0 +1,184 @@
+package be.seeseemelk.mockbukkit.generator;
+
+import org.bukkit.Material;
+import org.bukkit.generator.ChunkGenerator.ChunkData;
+import org.bukkit.material.MaterialData;
+
+import be.seeseemelk.mockbukkit.ChunkSection;
+
+/**
+ * A mock implementation of the chunk data a {@link org.bukkit.generator.ChunkGenerator}
+ * fills in. The blocks are stored in {@link ChunkSection}s, so a generated
+ * chunk can be handed to its world without copying any blocks.
+ * <p>
+ * Just like on a real server, blocks outside of the chunk are silently ignored.
+ */
+@SuppressWarnings("deprecation")
+public class ChunkDataMock implements ChunkData
+{
+	private final int maxHeight;
+	private final ChunkSection[] sections;
+
+	/**
+	 * Creates empty chunk data.
+	 *
+	 * @param maxHeight The height of the world the chunk is generated for.
+	 */
+	public ChunkDataMock(int maxHeight)
+	{
+		this.maxHeight = maxHeight;
+		sections = new ChunkSection[(maxHeight + ChunkSection.SIZE - 1) / ChunkSection.SIZE];
+	}
+
+	/**
+	 * Get a section of the chunk.
+	 *
+	 * @param sectionY The y coordinate of the section.
+	 * @return The section, or {@code null} if no block in the section has been
+	 *         set, meaning that it only contains air.
+	 */
+	public ChunkSection getSection(int sectionY)
+	{
+		return sections[sectionY];
+	}
+
+	@Override
+	public int getMaxHeight()
+	{
+		return maxHeight;
+	}
+
+	@Override
+	public void setBlock(int x, int y, int z, Material material)
+	{
+		setState(x, y, z, ChunkSection.getState(material, (byte) 0));
+	}
+
+	@Override
+	public void setBlock(int x, int y, int z, MaterialData material)
+	{
+		setState(x, y, z, ChunkSection.getState(material.getItemType(), material.getData()));
+	}
+
+	@Override
+	public void setBlock(int x, int y, int z, int blockId)
+	{
+		setBlock(x, y, z, blockId, (byte) 0);
+	}
+
+	@Override
+	public void setBlock(int x, int y, int z, int blockId, byte data)
+	{
+		setState(x, y, z, ChunkSection.getState(Material.getMaterial(blockId), data));
+	}
+
+	@Override
+	public void setRegion(int xMin, int yMin, int zMin, int xMax, int yMax, int zMax, Material material)
+	{
+		fillState(xMin, yMin, zMin, xMax, yMax, zMax, ChunkSection.getState(material, (byte) 0));
+	}
+
+	@Override
+	public void setRegion(int xMin, int yMin, int zMin, int xMax, int yMax, int zMax, MaterialData material)
+	{
+		fillState(xMin, yMin, zMin, xMax, yMax, zMax,
+				ChunkSection.getState(material.getItemType(), material.getData()));
+	}
+
+	@Override
+	public void setRegion(int xMin, int yMin, int zMin, int xMax, int yMax, int zMax, int blockId)
+	{
+		setRegion(xMin, yMin, zMin, xMax, yMax, zMax, blockId, 0);
+	}
+
+	@Override
+	public void setRegion(int xMin, int yMin, int zMin, int xMax, int yMax, int zMax, int blockId, int data)
+	{
+		fillState(xMin, yMin, zMin, xMax, yMax, zMax,
+				ChunkSection.getState(Material.getMaterial(blockId), (byte) data));
+	}
+
+	@Override
+	public Material getType(int x, int y, int z)
+	{
+		return ChunkSection.getMaterial(getState(x, y, z));
+	}
+
+	@Override
+	public MaterialData getTypeAndData(int x, int y, int z)
+	{
+		int state = getState(x, y, z);
+		return new MaterialData(ChunkSection.getMaterial(state), ChunkSection.getData(state));
+	}
+
+	@Override
+	public int getTypeId(int x, int y, int z)
+	{
+		return getType(x, y, z).getId();
+	}
+
+	@Override
+	public byte getData(int x, int y, int z)
+	{
+		return ChunkSection.getData(getState(x, y, z));
+	}
+
+	private int getState(int x, int y, int z)
+	{
+		if (!isInside(x, y, z))
+		{
+			return ChunkSection.getState(Material.AIR, (byte) 0);
+		}
+		ChunkSection section = sections[y >> 4];
+		return section == null ? ChunkSection.getState(Material.AIR, (byte) 0) : section.get(x, y, z);
+	}
+
+	private void setState(int x, int y, int z, int state)
+	{
+		if (isInside(x, y, z))
+		{
+			getOrCreateSection(y >> 4).set(x, y, z, state);
+		}
+	}
+
+	/**
+	 * Sets every block in a region to the same state. As in the Bukkit API, the
+	 * minimum coordinates are inclusive and the maximum coordinates exclusive.
+	 */
+	private void fillState(int xMin, int yMin, int zMin, int xMax, int yMax, int zMax, int state)
+	{
+		xMin = Math.max(xMin, 0);
+		yMin = Math.max(yMin, 0);
+		zMin = Math.max(zMin, 0);
+		xMax = Math.min(xMax, ChunkSection.SIZE);
+		yMax = Math.min(yMax, maxHeight);
+		zMax = Math.min(zMax, ChunkSection.SIZE);
+		if (xMin >= xMax || yMin >= yMax || zMin >= zMax)
+		{
+			return;
+		}
+
+		for (int sectionY = yMin >> 4; sectionY <= (yMax - 1) >> 4; sectionY++)
+		{
+			int fromY = Math.max(yMin, sectionY << 4) & 15;
+			int toY = Math.min(yMax - 1, (sectionY << 4) + 15) & 15;
+			getOrCreateSection(sectionY).fill(xMin, fromY, zMin, xMax - 1, toY, zMax - 1, state);
+		}
+	}
+
+	private ChunkSection getOrCreateSection(int sectionY)
+	{
+		ChunkSection section = sections[sectionY];
+		if (section == null)
+		{
+			section = new ChunkSection();
+			sections[sectionY] = section;
+		}
+		return section;
+	}
+
+	private boolean isInside(int x, int y, int z)
+	{
+		return x >= 0 && x < ChunkSection.SIZE && y >= 0 && y < maxHeight && z >= 0 && z < ChunkSection.SIZE;
+	}
+}
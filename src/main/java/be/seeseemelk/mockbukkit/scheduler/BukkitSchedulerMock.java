@@ -1,9 +1,23 @@
 package be.seeseemelk.mockbukkit.scheduler;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntToLongFunction;
 
 import org.bukkit.plugin.Plugin;
 import org.bukkit.scheduler.BukkitRunnable;
@@ -11,17 +25,51 @@ import org.bukkit.scheduler.BukkitScheduler;
 import org.bukkit.scheduler.BukkitTask;
 import org.bukkit.scheduler.BukkitWorker;
 
-import be.seeseemelk.mockbukkit.UnimplementedOperationException;
+import be.seeseemelk.mockbukkit.LongMap;
 
 public class BukkitSchedulerMock implements BukkitScheduler
 {
-	private long currentTick = 0;
+	private final Object lock = new Object();
+	private volatile long currentTick = 0;
 	private int id = 0;
-	private List<ScheduledTask> tasks = new LinkedList<>();
+	private final TaskQueue tasks = new TaskQueue();
+	private final LongMap<ScheduledTask> taskTable = new LongMap<>();
+	private final Map<Plugin, Set<ScheduledTask>> pluginTasks = new HashMap<>();
+	private final Consumer<ScheduledTask> cancelListener = this::onCancelled;
+	private int cancelledTasks = 0;
+	private volatile Thread tickThread;
+	private final TaskProfiler profiler = new TaskProfiler();
+	private volatile boolean profiling = false;
+	private TickLoop tickLoop;
+	private final List<TickListener> tickListeners = new CopyOnWriteArrayList<>();
+	
+	private final int asyncThreads;
+	private ExecutorService asyncExecutor;
+	private final Object asyncLock = new Object();
+	private int asyncTasksRunning = 0;
+	private Throwable asyncException;
+	private final Set<BukkitWorkerMock> activeWorkers = ConcurrentHashMap.newKeySet();
 
+	/**
+	 * Creates a scheduler that runs asynchronous tasks on as many threads as
+	 * there are processors available.
+	 */
 	public BukkitSchedulerMock()
 	{
-		
+		this(Runtime.getRuntime().availableProcessors());
+	}
+	
+	/**
+	 * Creates a scheduler that runs asynchronous tasks on a fixed number of threads.
+	 * @param asyncThreads The number of threads asynchronous tasks can run on in parallel.
+	 */
+	public BukkitSchedulerMock(int asyncThreads)
+	{
+		if (asyncThreads < 1)
+		{
+			throw new IllegalArgumentException("Need at least one thread to run asynchronous tasks on");
+		}
+		this.asyncThreads = asyncThreads;
 	}
 	
 	/**
@@ -33,39 +81,268 @@ public class BukkitSchedulerMock implements BukkitScheduler
 		return currentTick;
 	}
 	
+	/**
+	 * Registers a listener that will be called whenever a tick is performed.
+	 * @param listener The listener to register.
+	 */
+	public void addTickListener(TickListener listener)
+	{
+		tickListeners.add(listener);
+	}
+	
+	/**
+	 * Unregisters a listener that was registered using {@link #addTickListener(TickListener)}.
+	 * @param listener The listener to unregister.
+	 */
+	public void removeTickListener(TickListener listener)
+	{
+		tickListeners.remove(listener);
+	}
+	
 	/**
 	 * Perform one tick on the server.
+	 * Only the tasks that are due on this tick are visited.
 	 */
 	public void performOneTick()
 	{
-		currentTick++;
-		List<ScheduledTask> oldTasks = tasks;
-		tasks = new LinkedList<>();
+		long tick;
+		synchronized (lock)
+		{
+			tick = ++currentTick;
+		}
 		
-		for (ScheduledTask task : oldTasks)
+		Thread previousTickThread = tickThread;
+		tickThread = Thread.currentThread();
+		try
 		{
-			if (task.getScheduledTick() == currentTick)
+			runDueTasks(tick);
+		}
+		finally
+		{
+			tickThread = previousTickThread;
+		}
+	}
+	
+	/**
+	 * Checks if the current thread is in the middle of performing a tick.
+	 * @return {@code true} if the current thread is performing a tick.
+	 */
+	boolean isTickThread()
+	{
+		return tickThread == Thread.currentThread();
+	}
+	
+	private void runDueTasks(long tick)
+	{
+		ScheduledTask task;
+		while ((task = pollDue(tick)) != null)
+		{
+			if (task.isSync())
 			{
-				task.run();
+				try
+				{
+					execute(task);
+				}
+				finally
+				{
+					// A repeating task that throws keeps running, like on a real server.
+					if (task.isRepeating())
+					{
+						reschedule(task, tick);
+					}
+					else
+					{
+						unregister(task);
+					}
+				}
 			}
-			else if (!task.isCancelled())
+			else
+			{
+				executeAsync(task, tick);
+			}
+		}
+		
+		for (TickListener listener : tickListeners)
+		{
+			listener.onTick(tick);
+		}
+	}
+	
+	/**
+	 * Queues a repeating task for its next run, unless it was cancelled.
+	 * @param task The task that ran.
+	 * @param tick The tick on which the task ran.
+	 */
+	private void reschedule(ScheduledTask task, long tick)
+	{
+		synchronized (lock)
+		{
+			if (!task.isCancelled())
 			{
+				task.setScheduledTick(tick + task.getPeriod());
 				tasks.add(task);
 			}
 		}
 	}
 	
+	/**
+	 * Runs a task on the current thread, recording how long it takes if
+	 * profiling is enabled.
+	 * @param task The task to run.
+	 */
+	private void execute(ScheduledTask task)
+	{
+		if (!profiling || task.isCancelled())
+		{
+			task.run();
+			return;
+		}
+		
+		long start = System.nanoTime();
+		try
+		{
+			task.run();
+		}
+		finally
+		{
+			profiler.record(task, System.nanoTime() - start);
+		}
+	}
+	
+	/**
+	 * Enables or disables recording how long each task takes to run.
+	 * The timings can be retrieved using {@link #getProfiler()}.
+	 * @param profiling {@code true} to enable profiling, {@code false} to disable it.
+	 */
+	public void setProfilingEnabled(boolean profiling)
+	{
+		this.profiling = profiling;
+	}
+	
+	/**
+	 * Checks if the scheduler records how long each task takes to run.
+	 * @return {@code true} if profiling is enabled, {@code false} if it isn't.
+	 */
+	public boolean isProfilingEnabled()
+	{
+		return profiling;
+	}
+	
+	/**
+	 * Get the profiler that contains the timings of all tasks that ran while
+	 * profiling was enabled.
+	 * @return The profiler of the scheduler.
+	 */
+	public TaskProfiler getProfiler()
+	{
+		return profiler;
+	}
+	
+	private ScheduledTask pollDue(long tick)
+	{
+		synchronized (lock)
+		{
+			return tasks.pollDue(tick);
+		}
+	}
+	
+	/**
+	 * Starts performing ticks on a dedicated thread at 20 ticks per second of
+	 * wall time, like a real server does.
+	 * <p>
+	 * Worlds are ticked on that thread and are not thread-safe, so while
+	 * ticking they should only be read or modified from scheduled tasks.
+	 * @return The loop that performs the ticks, which can be used to measure the
+	 *         TPS and the duration of ticks.
+	 */
+	public TickLoop startTicking()
+	{
+		return startTicking(TickLoop.DEFAULT_TPS);
+	}
+	
+	/**
+	 * Starts performing ticks on a dedicated thread at a fixed rate of wall time.
+	 * @param ticksPerSecond The number of ticks to perform every second.
+	 * @return The loop that performs the ticks, which can be used to measure the
+	 *         TPS and the duration of ticks.
+	 */
+	public synchronized TickLoop startTicking(int ticksPerSecond)
+	{
+		if (tickLoop != null && tickLoop.isRunning())
+		{
+			throw new IllegalStateException("Scheduler is already ticking");
+		}
+		tickLoop = new TickLoop(this, ticksPerSecond);
+		tickLoop.start();
+		return tickLoop;
+	}
+	
+	/**
+	 * Stops the thread that was started by {@link #startTicking()}.
+	 * @throws InterruptedException If the current thread was interrupted while
+	 *         waiting for the current tick to finish.
+	 */
+	public void stopTicking() throws InterruptedException
+	{
+		TickLoop loop;
+		synchronized (this)
+		{
+			loop = tickLoop;
+		}
+		if (loop != null)
+		{
+			loop.stop();
+		}
+	}
+	
+	/**
+	 * Get the loop that was started by {@link #startTicking()}.
+	 * @return The tick loop, or {@code null} if the scheduler was never started.
+	 */
+	public synchronized TickLoop getTickLoop()
+	{
+		return tickLoop;
+	}
+	
 	/**
 	 * Perform a number of ticks on the server.
+	 * Ranges of ticks in which no task is due and no {@link TickListener} has to
+	 * be called are skipped over, so long periods of time can be simulated quickly.
 	 * @param ticks The number of ticks to executed.
 	 */
 	public void performTicks(long ticks)
 	{
-		for (long i = 0; i < ticks; i++)
+		long targetTick = currentTick + ticks;
+		while (currentTick < targetTick)
 		{
+			synchronized (lock)
+			{
+				long nextTick = getNextTick();
+				if (nextTick > targetTick)
+				{
+					currentTick = targetTick;
+					break;
+				}
+				currentTick = nextTick - 1;
+			}
 			performOneTick();
 		}
 	}
+	
+	/**
+	 * Get the next tick on which something has to happen: either a task is
+	 * due or a tick listener needs to be called.
+	 * @return The next tick on which something has to happen.
+	 */
+	private long getNextTick()
+	{
+		long nextTick = Math.max(tasks.getNextTick(), currentTick + 1);
+		for (TickListener listener : tickListeners)
+		{
+			nextTick = Math.min(nextTick, Math.max(listener.getNextTick(currentTick), currentTick + 1));
+		}
+		return nextTick;
+	}
 
 	@Override
 	public BukkitTask runTask(Plugin plugin, Runnable task) throws IllegalArgumentException
@@ -79,203 +356,481 @@ public class BukkitSchedulerMock implements BukkitScheduler
 		return runTask(plugin, (Runnable) task);
 	}
 
+	/**
+	 * Schedules a task.
+	 * @param plugin The plugin that owns the task.
+	 * @param task The task to run.
+	 * @param isSync Whether the task should run on the main thread.
+	 * @param delay The number of ticks to wait before the task runs for the first time.
+	 * @param period The number of ticks between two runs, or {@code 0} if the task runs only once.
+	 * @return The task that was scheduled.
+	 */
+	private ScheduledTask schedule(Plugin plugin, Runnable task, boolean isSync, long delay, long period)
+	{
+		synchronized (lock)
+		{
+			ScheduledTask scheduledTask = new ScheduledTask(id++, plugin, isSync, currentTick + Math.max(1L, delay),
+					period, task);
+			register(scheduledTask);
+			tasks.add(scheduledTask);
+			return scheduledTask;
+		}
+	}
+	
+	/**
+	 * Adds a task to the indexes that are used to look tasks up by id or by plugin.
+	 * @param task The task to add.
+	 */
+	private void register(ScheduledTask task)
+	{
+		synchronized (lock)
+		{
+			taskTable.put(task.getTaskId(), task);
+			pluginTasks.computeIfAbsent(task.getOwner(), plugin -> new HashSet<>()).add(task);
+			task.setCancelListener(cancelListener);
+		}
+	}
+	
+	/**
+	 * Removes a task that has finished or was cancelled from the indexes.
+	 * @param task The task to remove.
+	 */
+	private void unregister(ScheduledTask task)
+	{
+		synchronized (lock)
+		{
+			if (taskTable.get(task.getTaskId()) == task)
+			{
+				taskTable.remove(task.getTaskId());
+			}
+			Set<ScheduledTask> owned = pluginTasks.get(task.getOwner());
+			if (owned != null && owned.remove(task) && owned.isEmpty())
+			{
+				pluginTasks.remove(task.getOwner());
+			}
+		}
+	}
+	
+	/**
+	 * Called when a task gets cancelled. The task is left in the task queue until
+	 * it would have run, unless the queue consists mostly of cancelled tasks.
+	 * @param task The task that was cancelled.
+	 */
+	private void onCancelled(ScheduledTask task)
+	{
+		synchronized (lock)
+		{
+			unregister(task);
+			if (task.getRunnable() instanceof Future)
+			{
+				((Future<?>) task.getRunnable()).cancel(false);
+			}
+			cancelledTasks++;
+			if (cancelledTasks > 64 && cancelledTasks > tasks.size() / 2)
+			{
+				tasks.removeCancelled();
+				cancelledTasks = 0;
+			}
+		}
+	}
+	
+	/**
+	 * Get the executor that asynchronous tasks are executed on, creating it if
+	 * it doesn't exist yet.
+	 * @return The executor for asynchronous tasks.
+	 */
+	private ExecutorService getAsyncExecutor()
+	{
+		synchronized (asyncLock)
+		{
+			if (asyncExecutor == null)
+			{
+				AtomicInteger threadId = new AtomicInteger();
+				asyncExecutor = Executors.newFixedThreadPool(asyncThreads, runnable -> {
+					Thread thread = new Thread(runnable, "Scheduler Async Worker #" + threadId.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+			}
+			return asyncExecutor;
+		}
+	}
+	
+	/**
+	 * Runs a task on one of the asynchronous worker threads. A repeating task
+	 * is only queued again once its run has finished, so that a run that takes
+	 * longer than the period never overlaps the next one.
+	 * @param task The task to run.
+	 * @param tick The tick on which the task runs.
+	 */
+	private void executeAsync(ScheduledTask task, long tick)
+	{
+		synchronized (asyncLock)
+		{
+			asyncTasksRunning++;
+		}
+		getAsyncExecutor().execute(() -> {
+			BukkitWorkerMock worker = new BukkitWorkerMock(task, Thread.currentThread());
+			activeWorkers.add(worker);
+			try
+			{
+				execute(task);
+			}
+			catch (Throwable e)
+			{
+				synchronized (asyncLock)
+				{
+					if (asyncException == null)
+					{
+						asyncException = e;
+					}
+				}
+			}
+			finally
+			{
+				if (task.isRepeating())
+				{
+					reschedule(task, tick);
+				}
+				else
+				{
+					unregister(task);
+				}
+				activeWorkers.remove(worker);
+				synchronized (asyncLock)
+				{
+					asyncTasksRunning--;
+					asyncLock.notifyAll();
+				}
+			}
+		});
+	}
+	
+	/**
+	 * Get the number of asynchronous tasks that are executing or waiting for a
+	 * free worker thread.
+	 * @return The number of asynchronous tasks that have not finished yet.
+	 */
+	public int getNumberOfAsyncTasksRunning()
+	{
+		synchronized (asyncLock)
+		{
+			return asyncTasksRunning;
+		}
+	}
+	
+	/**
+	 * Waits until all asynchronous tasks that have been started have finished.
+	 * Asynchronous tasks that are scheduled for a later tick are not waited for.
+	 * If one of the tasks threw an exception, it is rethrown wrapped in a
+	 * {@link RuntimeException}.
+	 * @param timeout The maximum number of milliseconds to wait.
+	 * @return {@code true} if all tasks have finished, {@code false} if the
+	 *         timeout elapsed before that.
+	 * @throws InterruptedException If the current thread was interrupted while waiting.
+	 */
+	public boolean waitAsyncTasksFinished(long timeout) throws InterruptedException
+	{
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+		synchronized (asyncLock)
+		{
+			while (asyncTasksRunning > 0)
+			{
+				long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+				if (remaining <= 0)
+				{
+					return false;
+				}
+				asyncLock.wait(remaining);
+			}
+			
+			if (asyncException != null)
+			{
+				Throwable exception = asyncException;
+				asyncException = null;
+				throw new RuntimeException("An asynchronous task threw an exception", exception);
+			}
+			return true;
+		}
+	}
+	
+	/**
+	 * Stops the tick loop and the worker threads of the scheduler. Asynchronous
+	 * tasks that are still running are interrupted.
+	 */
+	public void shutdown()
+	{
+		TickLoop loop;
+		synchronized (this)
+		{
+			loop = tickLoop;
+			tickLoop = null;
+		}
+		if (loop != null)
+		{
+			try
+			{
+				loop.stop();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+		
+		synchronized (asyncLock)
+		{
+			if (asyncExecutor != null)
+			{
+				asyncExecutor.shutdownNow();
+				asyncExecutor = null;
+			}
+		}
+	}
+
+	/**
+	 * Schedules a whole batch of synchronous tasks at once. The tasks are
+	 * inserted into the task queue in a single pass, which is a lot faster than
+	 * scheduling them one by one when the batch is large.
+	 * @param plugin The plugin that owns the tasks.
+	 * @param batch The tasks to schedule.
+	 * @param delay A function that gives the delay in ticks for the task at a
+	 *        certain position of the batch, in iteration order.
+	 * @return An unmodifiable list of the scheduled tasks, in the same order
+	 *         as the batch.
+	 */
+	public List<BukkitTask> scheduleBatch(Plugin plugin, Collection<? extends Runnable> batch, IntToLongFunction delay)
+	{
+		List<ScheduledTask> scheduled = new ArrayList<>(batch.size());
+		synchronized (lock)
+		{
+			int index = 0;
+			for (Runnable task : batch)
+			{
+				long taskDelay = Math.max(1L, delay.applyAsLong(index++));
+				ScheduledTask scheduledTask = new ScheduledTask(id++, plugin, true, currentTick + taskDelay, task);
+				register(scheduledTask);
+				scheduled.add(scheduledTask);
+			}
+			tasks.addAll(scheduled);
+		}
+		return Collections.unmodifiableList(scheduled);
+	}
+
 	@Override
 	public BukkitTask runTaskLater(Plugin plugin, Runnable task, long delay) throws IllegalArgumentException
 	{
-		ScheduledTask scheduledTask = new ScheduledTask(id++, plugin, true, currentTick + delay, task);
-		tasks.add(scheduledTask);
-		return scheduledTask;
+		return schedule(plugin, task, true, delay, 0L);
 	}
 
 	@Override
 	public int scheduleSyncDelayedTask(Plugin plugin, Runnable task, long delay)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		return runTaskLater(plugin, task, delay).getTaskId();
 	}
 
 	@Override
 	public int scheduleSyncDelayedTask(Plugin plugin, BukkitRunnable task, long delay)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		return scheduleSyncDelayedTask(plugin, (Runnable) task, delay);
 	}
 
 	@Override
 	public int scheduleSyncDelayedTask(Plugin plugin, Runnable task)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		return scheduleSyncDelayedTask(plugin, task, 0L);
 	}
 
 	@Override
 	public int scheduleSyncDelayedTask(Plugin plugin, BukkitRunnable task)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		return scheduleSyncDelayedTask(plugin, (Runnable) task);
 	}
 
 	@Override
 	public int scheduleSyncRepeatingTask(Plugin plugin, Runnable task, long delay, long period)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		return runTaskTimer(plugin, task, delay, period).getTaskId();
 	}
 
 	@Override
 	public int scheduleSyncRepeatingTask(Plugin plugin, BukkitRunnable task, long delay, long period)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		return scheduleSyncRepeatingTask(plugin, (Runnable) task, delay, period);
 	}
 
 	@Override
 	public int scheduleAsyncDelayedTask(Plugin plugin, Runnable task, long delay)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		return runTaskLaterAsynchronously(plugin, task, delay).getTaskId();
 	}
 
 	@Override
 	public int scheduleAsyncDelayedTask(Plugin plugin, Runnable task)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		return runTaskAsynchronously(plugin, task).getTaskId();
 	}
 
 	@Override
 	public int scheduleAsyncRepeatingTask(Plugin plugin, Runnable task, long delay, long period)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		return runTaskTimerAsynchronously(plugin, task, delay, period).getTaskId();
 	}
 
 	@Override
 	public <T> Future<T> callSyncMethod(Plugin plugin, Callable<T> task)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		SyncMethodFuture<T> future = new SyncMethodFuture<>(this, task);
+		future.setTask(schedule(plugin, future, true, 1L, 0L));
+		return future;
 	}
 
 	@Override
 	public void cancelTask(int taskId)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
-
+		ScheduledTask task;
+		synchronized (lock)
+		{
+			task = taskTable.get(taskId);
+		}
+		if (task != null)
+		{
+			task.cancel();
+		}
 	}
 
 	@Override
 	public void cancelTasks(Plugin plugin)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
-
+		synchronized (lock)
+		{
+			Set<ScheduledTask> owned = pluginTasks.remove(plugin);
+			if (owned != null)
+			{
+				for (ScheduledTask task : owned)
+				{
+					task.cancel();
+				}
+			}
+		}
 	}
 
 	@Override
 	public void cancelAllTasks()
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
-
+		synchronized (lock)
+		{
+			for (ScheduledTask task : taskTable.values())
+			{
+				task.cancel();
+			}
+			taskTable.clear();
+			pluginTasks.clear();
+			tasks.clear();
+			cancelledTasks = 0;
+		}
 	}
 
 	@Override
 	public boolean isCurrentlyRunning(int taskId)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		synchronized (lock)
+		{
+			ScheduledTask task = taskTable.get(taskId);
+			return task != null && task.isRunning();
+		}
 	}
 
 	@Override
 	public boolean isQueued(int taskId)
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		synchronized (lock)
+		{
+			ScheduledTask task = taskTable.get(taskId);
+			return task != null && !task.isCancelled() && (task.isRepeating() || !task.isRunning());
+		}
 	}
 
 	@Override
 	public List<BukkitWorker> getActiveWorkers()
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		return new ArrayList<>(activeWorkers);
 	}
 
 	@Override
 	public List<BukkitTask> getPendingTasks()
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		synchronized (lock)
+		{
+			return new ArrayList<>(taskTable.values());
+		}
 	}
 
 	@Override
 	public BukkitTask runTaskAsynchronously(Plugin plugin, Runnable task) throws IllegalArgumentException
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		ScheduledTask scheduledTask;
+		synchronized (lock)
+		{
+			scheduledTask = new ScheduledTask(id++, plugin, false, currentTick, task);
+			register(scheduledTask);
+		}
+		executeAsync(scheduledTask, currentTick);
+		return scheduledTask;
 	}
 
 	@Override
 	public BukkitTask runTaskAsynchronously(Plugin plugin, BukkitRunnable task) throws IllegalArgumentException
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		return runTaskAsynchronously(plugin, (Runnable) task);
 	}
 
 	@Override
 	public BukkitTask runTaskLater(Plugin plugin, BukkitRunnable task, long delay) throws IllegalArgumentException
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		return runTaskLater(plugin, (Runnable) task, delay);
 	}
 
 	@Override
 	public BukkitTask runTaskLaterAsynchronously(Plugin plugin, Runnable task, long delay)
 			throws IllegalArgumentException
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		return schedule(plugin, task, false, delay, 0L);
 	}
 
 	@Override
 	public BukkitTask runTaskLaterAsynchronously(Plugin plugin, BukkitRunnable task, long delay)
 			throws IllegalArgumentException
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		return runTaskLaterAsynchronously(plugin, (Runnable) task, delay);
 	}
 
 	@Override
 	public BukkitTask runTaskTimer(Plugin plugin, Runnable task, long delay, long period)
 			throws IllegalArgumentException
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		return schedule(plugin, task, true, delay, Math.max(1L, period));
 	}
 
 	@Override
 	public BukkitTask runTaskTimer(Plugin plugin, BukkitRunnable task, long delay, long period)
 			throws IllegalArgumentException
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		return runTaskTimer(plugin, (Runnable) task, delay, period);
 	}
 
 	@Override
 	public BukkitTask runTaskTimerAsynchronously(Plugin plugin, Runnable task, long delay, long period)
 			throws IllegalArgumentException
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		return schedule(plugin, task, false, delay, Math.max(1L, period));
 	}
 
 	@Override
 	public BukkitTask runTaskTimerAsynchronously(Plugin plugin, BukkitRunnable task, long delay, long period)
 			throws IllegalArgumentException
 	{
-		// TODO Auto-generated method stub
-		throw new UnimplementedOperationException();
+		return runTaskTimerAsynchronously(plugin, (Runnable) task, delay, period);
 	}
 
 }
@@ -0,0 +1,47 @@
+package be.seeseemelk.mockbukkit.scheduler;
+
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitWorker;
+
+/**
+ * A worker thread of the {@link BukkitSchedulerMock} that is currently
+ * executing an asynchronous task.
+ */
+public class BukkitWorkerMock implements BukkitWorker
+{
+	private final ScheduledTask task;
+	private final Thread thread;
+
+	public BukkitWorkerMock(ScheduledTask task, Thread thread)
+	{
+		this.task = task;
+		this.thread = thread;
+	}
+
+	/**
+	 * Get the task that the worker is executing.
+	 * @return The task that the worker is executing.
+	 */
+	public ScheduledTask getTask()
+	{
+		return task;
+	}
+
+	@Override
+	public int getTaskId()
+	{
+		return task.getTaskId();
+	}
+
+	@Override
+	public Plugin getOwner()
+	{
+		return task.getOwner();
+	}
+
+	@Override
+	public Thread getThread()
+	{
+		return thread;
+	}
+}
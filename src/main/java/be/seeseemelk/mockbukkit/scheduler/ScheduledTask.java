@@ -1,5 +1,7 @@
 package be.seeseemelk.mockbukkit.scheduler;
 
+import java.util.function.Consumer;
+
 import org.bukkit.plugin.Plugin;
 import org.bukkit.scheduler.BukkitTask;
 
@@ -8,16 +10,29 @@ public class ScheduledTask implements BukkitTask
 	private int id;
 	private Plugin plugin;
 	private boolean isSync;
-	private boolean isCancelled = false;
+	private volatile boolean isCancelled = false;
+	private volatile boolean isRunning = false;
+	private Consumer<ScheduledTask> cancelListener;
 	private long scheduledTick;
+	private long period;
 	private Runnable runnable;
 
 	public ScheduledTask(int id, Plugin plugin, boolean isSync, long scheduledTick, Runnable runnable)
+	{
+		this(id, plugin, isSync, scheduledTick, 0L, runnable);
+	}
+	
+	/**
+	 * Creates a task that repeats itself every {@code period} ticks.
+	 * A task with a period of {@code 0} or less runs only once.
+	 */
+	public ScheduledTask(int id, Plugin plugin, boolean isSync, long scheduledTick, long period, Runnable runnable)
 	{
 		this.id = id;
 		this.plugin = plugin;
 		this.isSync = isSync;
 		this.scheduledTick = scheduledTick;
+		this.period = period;
 		this.runnable = runnable;
 	}
 	
@@ -29,6 +44,33 @@ public class ScheduledTask implements BukkitTask
 	{
 		return scheduledTick;
 	}
+	
+	/**
+	 * Moves the task to another tick.
+	 * @param scheduledTick The tick the task should run at.
+	 */
+	void setScheduledTick(long scheduledTick)
+	{
+		this.scheduledTick = scheduledTick;
+	}
+	
+	/**
+	 * Get the number of ticks between two runs of the task.
+	 * @return The period of the task, or {@code 0} or less if the task does not repeat.
+	 */
+	public long getPeriod()
+	{
+		return period;
+	}
+	
+	/**
+	 * Checks if the task will repeat itself after it has ran.
+	 * @return {@code true} if the task repeats, {@code false} if it only runs once.
+	 */
+	public boolean isRepeating()
+	{
+		return period > 0;
+	}
 
 	/**
 	 * Get the task itself that will be ran.
@@ -39,6 +81,15 @@ public class ScheduledTask implements BukkitTask
 		return runnable;
 	}
 	
+	/**
+	 * Sets a listener that will be called when the task gets cancelled.
+	 * @param cancelListener The listener to call.
+	 */
+	void setCancelListener(Consumer<ScheduledTask> cancelListener)
+	{
+		this.cancelListener = cancelListener;
+	}
+	
 	/**
 	 * Runs the task if it has not been cancelled.
 	 */
@@ -46,9 +97,26 @@ public class ScheduledTask implements BukkitTask
 	{
 		if (!isCancelled())
 		{
-			runnable.run();
+			isRunning = true;
+			try
+			{
+				runnable.run();
+			}
+			finally
+			{
+				isRunning = false;
+			}
 		}
 	}
+	
+	/**
+	 * Checks if the task is being executed at the moment.
+	 * @return {@code true} if the task is running, {@code false} if it isn't.
+	 */
+	public boolean isRunning()
+	{
+		return isRunning;
+	}
 
 	@Override
 	public int getTaskId()
@@ -77,7 +145,14 @@ public class ScheduledTask implements BukkitTask
 	@Override
 	public void cancel()
 	{
-		isCancelled = true;
+		if (!isCancelled)
+		{
+			isCancelled = true;
+			if (cancelListener != null)
+			{
+				cancelListener.accept(this);
+			}
+		}
 	}
 
 }
@@ -0,0 +1,120 @@
+package be.seeseemelk.mockbukkit.scheduler;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The {@link java.util.concurrent.Future Future} that is returned by
+ * {@link BukkitSchedulerMock#callSyncMethod}. The callable is executed on the
+ * main thread the next time the scheduler performs a tick.
+ * <p>
+ * The future also keeps track of how long it took before the callable got
+ * executed, both in ticks and in wall time.
+ *
+ * @param <T> The type of the value returned by the callable.
+ */
+public class SyncMethodFuture<T> extends FutureTask<T>
+{
+	private final BukkitSchedulerMock scheduler;
+	private final long createdTick;
+	private final long createdNanos;
+	private volatile ScheduledTask task;
+	private volatile long completedTick = -1;
+	private volatile long completedNanos;
+
+	SyncMethodFuture(BukkitSchedulerMock scheduler, Callable<T> callable)
+	{
+		super(callable);
+		this.scheduler = scheduler;
+		this.createdTick = scheduler.getCurrentTick();
+		this.createdNanos = System.nanoTime();
+	}
+
+	/**
+	 * Sets the task that will execute this future.
+	 * @param task The task that will execute this future.
+	 */
+	void setTask(ScheduledTask task)
+	{
+		this.task = task;
+	}
+
+	/**
+	 * Get the task that will execute the callable.
+	 * @return The task that will execute the callable.
+	 */
+	public ScheduledTask getTask()
+	{
+		return task;
+	}
+
+	@Override
+	public void run()
+	{
+		super.run();
+		completedTick = scheduler.getCurrentTick();
+		completedNanos = System.nanoTime();
+	}
+
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning)
+	{
+		boolean cancelled = super.cancel(mayInterruptIfRunning);
+		if (cancelled && task != null)
+		{
+			task.cancel();
+		}
+		return cancelled;
+	}
+
+	@Override
+	public T get() throws InterruptedException, ExecutionException
+	{
+		checkNotOnTickThread();
+		return super.get();
+	}
+
+	@Override
+	public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException
+	{
+		checkNotOnTickThread();
+		return super.get(timeout, unit);
+	}
+
+	/**
+	 * Waiting for the future from within a tick would block forever, because the
+	 * callable can only run on a later tick of the same thread.
+	 */
+	private void checkNotOnTickThread()
+	{
+		if (!isDone() && scheduler.isTickThread())
+		{
+			throw new IllegalStateException("Cannot wait for a sync method from within a tick");
+		}
+	}
+
+	/**
+	 * Get the number of ticks between the call to {@code callSyncMethod} and the
+	 * execution of the callable.
+	 * @return The latency in ticks, or {@code -1} if the callable has not been
+	 *         executed yet.
+	 */
+	public long getLatencyTicks()
+	{
+		return completedTick < 0 ? -1 : completedTick - createdTick;
+	}
+
+	/**
+	 * Get the wall time between the call to {@code callSyncMethod} and the
+	 * moment the callable finished executing.
+	 * @param unit The unit in which to return the latency.
+	 * @return The latency, or {@code -1} if the callable has not been executed yet.
+	 */
+	public long getLatency(TimeUnit unit)
+	{
+		return completedTick < 0 ? -1 : unit.convert(completedNanos - createdNanos, TimeUnit.NANOSECONDS);
+	}
+}
@@ -0,0 +1,127 @@
+package be.seeseemelk.mockbukkit.scheduler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Records how long the tasks of a {@link BukkitSchedulerMock} take to run.
+ * Timings are kept per plugin that owns the task and per class of the runnable
+ * that was scheduled.
+ */
+public class TaskProfiler
+{
+	private final Map<Plugin, TimingHistogram> pluginTimings = new HashMap<>();
+	private final Map<Class<?>, TimingHistogram> taskTimings = new HashMap<>();
+
+	/**
+	 * Records a single run of a task.
+	 * @param task The task that was run.
+	 * @param nanos The number of nanoseconds the task took.
+	 */
+	public void record(ScheduledTask task, long nanos)
+	{
+		TimingHistogram pluginHistogram;
+		TimingHistogram taskHistogram;
+		synchronized (this)
+		{
+			pluginHistogram = pluginTimings.computeIfAbsent(task.getOwner(), plugin -> new TimingHistogram());
+			taskHistogram = taskTimings.computeIfAbsent(task.getRunnable().getClass(), type -> new TimingHistogram());
+		}
+		pluginHistogram.record(nanos);
+		taskHistogram.record(nanos);
+	}
+
+	/**
+	 * Get the timings of all tasks owned by a plugin.
+	 * @param plugin The plugin to get the timings of.
+	 * @return The timings of the plugin, or {@code null} if none of its tasks have run.
+	 */
+	public synchronized TimingHistogram getTimings(Plugin plugin)
+	{
+		return pluginTimings.get(plugin);
+	}
+
+	/**
+	 * Get the timings of all tasks that have a runnable of a certain class.
+	 * @param taskClass The class of the runnable.
+	 * @return The timings of the class, or {@code null} if no such task has run.
+	 */
+	public synchronized TimingHistogram getTimings(Class<?> taskClass)
+	{
+		return taskTimings.get(taskClass);
+	}
+
+	/**
+	 * Get all plugins for which timings have been recorded.
+	 * @return The plugins for which timings have been recorded.
+	 */
+	public synchronized Set<Plugin> getPlugins()
+	{
+		return new HashSet<>(pluginTimings.keySet());
+	}
+
+	/**
+	 * Get all runnable classes for which timings have been recorded.
+	 * @return The runnable classes for which timings have been recorded.
+	 */
+	public synchronized Set<Class<?>> getTaskClasses()
+	{
+		return new HashSet<>(taskTimings.keySet());
+	}
+
+	/**
+	 * Removes all recorded timings.
+	 */
+	public synchronized void reset()
+	{
+		pluginTimings.clear();
+		taskTimings.clear();
+	}
+
+	/**
+	 * Creates a human readable report of all recorded timings, with the slowest
+	 * plugins and tasks first.
+	 * @return The report.
+	 */
+	public synchronized String report()
+	{
+		StringBuilder builder = new StringBuilder();
+		builder.append("Plugins:\n");
+		List<Map.Entry<Plugin, TimingHistogram>> plugins = new ArrayList<>(pluginTimings.entrySet());
+		plugins.sort((a, b) -> Long.compare(b.getValue().getTotalNanos(), a.getValue().getTotalNanos()));
+		for (Map.Entry<Plugin, TimingHistogram> entry : plugins)
+		{
+			String name = entry.getKey() == null ? "<no plugin>" : entry.getKey().getName();
+			appendLine(builder, name, entry.getValue());
+		}
+
+		builder.append("Tasks:\n");
+		List<Map.Entry<Class<?>, TimingHistogram>> tasks = new ArrayList<>(taskTimings.entrySet());
+		tasks.sort((a, b) -> Long.compare(b.getValue().getTotalNanos(), a.getValue().getTotalNanos()));
+		for (Map.Entry<Class<?>, TimingHistogram> entry : tasks)
+		{
+			appendLine(builder, entry.getKey().getName(), entry.getValue());
+		}
+		return builder.toString();
+	}
+
+	private static void appendLine(StringBuilder builder, String name, TimingHistogram histogram)
+	{
+		builder.append(String.format("  %s: count=%d p50=%.3fms p99=%.3fms max=%.3fms total=%.3fms\n", name,
+				histogram.getCount(), toMillis(histogram.getPercentileNanos(50)),
+				toMillis(histogram.getPercentileNanos(99)), toMillis(histogram.getMaxNanos()),
+				toMillis(histogram.getTotalNanos())));
+	}
+
+	private static double toMillis(long nanos)
+	{
+		return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+	}
+}
@@ -0,0 +1,243 @@
+package be.seeseemelk.mockbukkit.scheduler;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A priority queue of {@link ScheduledTask}s, ordered by the tick at which they
+ * are scheduled to run. Tasks that are scheduled for the same tick are ordered
+ * by their task id, so they run in the order in which they were created.
+ * <p>
+ * The queue is a binary heap backed by a plain array. Cancelled tasks are not
+ * removed when they are cancelled, they are dropped once they reach the head of
+ * the queue instead.
+ */
+class TaskQueue
+{
+	private static final int INITIAL_CAPACITY = 16;
+
+	private ScheduledTask[] heap = new ScheduledTask[INITIAL_CAPACITY];
+	private int size = 0;
+
+	/**
+	 * Get the number of tasks in the queue, including cancelled tasks that have
+	 * not been dropped yet.
+	 * @return The number of tasks in the queue.
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Checks if the queue contains no tasks at all.
+	 * @return {@code true} if the queue is empty, {@code false} if it isn't.
+	 */
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	/**
+	 * Adds a task to the queue.
+	 * @param task The task to add.
+	 */
+	public void add(ScheduledTask task)
+	{
+		if (size == heap.length)
+		{
+			heap = Arrays.copyOf(heap, size * 2);
+		}
+		siftUp(size++, task);
+	}
+
+	/**
+	 * Adds a batch of tasks to the queue. When the batch is at least as large as
+	 * the queue itself, the heap is rebuilt in a single linear pass instead of
+	 * inserting the tasks one by one.
+	 * @param batch The tasks to add.
+	 */
+	public void addAll(List<ScheduledTask> batch)
+	{
+		int oldSize = size;
+		int newSize = size + batch.size();
+		if (newSize > heap.length)
+		{
+			heap = Arrays.copyOf(heap, Math.max(newSize, heap.length * 2));
+		}
+
+		if (batch.size() >= oldSize)
+		{
+			for (ScheduledTask task : batch)
+			{
+				heap[size++] = task;
+			}
+			heapify();
+		}
+		else
+		{
+			for (ScheduledTask task : batch)
+			{
+				siftUp(size++, task);
+			}
+		}
+	}
+
+	/**
+	 * Get the task that is scheduled to run first without removing it.
+	 * @return The first task in the queue, or {@code null} if the queue is empty.
+	 */
+	public ScheduledTask peek()
+	{
+		return size == 0 ? null : heap[0];
+	}
+
+	/**
+	 * Removes and returns the task that is scheduled to run first.
+	 * @return The first task in the queue, or {@code null} if the queue is empty.
+	 */
+	public ScheduledTask poll()
+	{
+		if (size == 0)
+		{
+			return null;
+		}
+
+		ScheduledTask first = heap[0];
+		ScheduledTask last = heap[--size];
+		heap[size] = null;
+		if (size > 0)
+		{
+			siftDown(0, last);
+		}
+		return first;
+	}
+
+	/**
+	 * Removes and returns the first task that is due on or before a given tick
+	 * and that has not been cancelled. Cancelled tasks that are encountered are
+	 * removed from the queue.
+	 * @param tick The current tick.
+	 * @return The first task that is due, or {@code null} if no task is due.
+	 */
+	public ScheduledTask pollDue(long tick)
+	{
+		while (size > 0)
+		{
+			ScheduledTask first = heap[0];
+			if (first.isCancelled())
+			{
+				poll();
+			}
+			else if (first.getScheduledTick() <= tick)
+			{
+				return poll();
+			}
+			else
+			{
+				return null;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Get the tick at which the first task that has not been cancelled is
+	 * scheduled. Cancelled tasks at the head of the queue are removed.
+	 * @return The tick of the first task, or {@link Long#MAX_VALUE} if the queue
+	 *         contains no tasks.
+	 */
+	public long getNextTick()
+	{
+		while (size > 0 && heap[0].isCancelled())
+		{
+			poll();
+		}
+		return size == 0 ? Long.MAX_VALUE : heap[0].getScheduledTick();
+	}
+
+	/**
+	 * Removes every cancelled task from the queue at once.
+	 */
+	public void removeCancelled()
+	{
+		int newSize = 0;
+		for (int i = 0; i < size; i++)
+		{
+			if (!heap[i].isCancelled())
+			{
+				heap[newSize++] = heap[i];
+			}
+		}
+		Arrays.fill(heap, newSize, size, null);
+		size = newSize;
+		heapify();
+	}
+
+	/**
+	 * Removes all tasks from the queue.
+	 */
+	public void clear()
+	{
+		Arrays.fill(heap, 0, size, null);
+		size = 0;
+	}
+
+	/**
+	 * Restores the heap order of the whole array in linear time.
+	 */
+	private void heapify()
+	{
+		for (int i = (size >>> 1) - 1; i >= 0; i--)
+		{
+			siftDown(i, heap[i]);
+		}
+	}
+
+	private void siftUp(int index, ScheduledTask task)
+	{
+		while (index > 0)
+		{
+			int parent = (index - 1) >>> 1;
+			ScheduledTask other = heap[parent];
+			if (compare(task, other) >= 0)
+			{
+				break;
+			}
+			heap[index] = other;
+			index = parent;
+		}
+		heap[index] = task;
+	}
+
+	private void siftDown(int index, ScheduledTask task)
+	{
+		int half = size >>> 1;
+		while (index < half)
+		{
+			int child = (index << 1) + 1;
+			int right = child + 1;
+			if (right < size && compare(heap[right], heap[child]) < 0)
+			{
+				child = right;
+			}
+			if (compare(task, heap[child]) <= 0)
+			{
+				break;
+			}
+			heap[index] = heap[child];
+			index = child;
+		}
+		heap[index] = task;
+	}
+
+	private static int compare(ScheduledTask a, ScheduledTask b)
+	{
+		int result = Long.compare(a.getScheduledTick(), b.getScheduledTick());
+		if (result == 0)
+		{
+			result = Integer.compare(a.getTaskId(), b.getTaskId());
+		}
+		return result;
+	}
+}
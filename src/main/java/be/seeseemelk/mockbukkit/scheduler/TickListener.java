@@ -0,0 +1,27 @@
+package be.seeseemelk.mockbukkit.scheduler;
+
+/**
+ * A hook that is called by the {@link BukkitSchedulerMock} whenever it performs
+ * a tick.
+ */
+@FunctionalInterface
+public interface TickListener
+{
+	/**
+	 * Called after all tasks that were due on a tick have been executed.
+	 * @param tick The tick that was just performed.
+	 */
+	void onTick(long tick);
+
+	/**
+	 * Get the next tick on which this listener has to be called. The scheduler
+	 * will never skip over this tick when fast-forwarding. By default a
+	 * listener is called on every tick.
+	 * @param currentTick The current tick of the scheduler.
+	 * @return The next tick on which the listener has to be called.
+	 */
+	default long getNextTick(long currentTick)
+	{
+		return currentTick + 1;
+	}
+}
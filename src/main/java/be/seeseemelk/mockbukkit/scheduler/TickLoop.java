@@ -0,0 +1,238 @@
+package be.seeseemelk.mockbukkit.scheduler;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Performs the ticks of a {@link BukkitSchedulerMock} on a dedicated thread at a
+ * fixed rate in wall time, the way the main loop of a real server does.
+ * <p>
+ * When a tick takes longer than its share of time, the loop catches up by
+ * performing the ticks that are due without sleeping in between. When the loop
+ * falls more than two seconds behind, it is considered overloaded and the
+ * missed ticks are skipped instead.
+ */
+public class TickLoop implements Runnable
+{
+	/**
+	 * The default number of ticks per second.
+	 */
+	public static final int DEFAULT_TPS = 20;
+	private static final long MAX_CATCH_UP_MILLIS = 2000;
+	private static final int SAMPLES = 100;
+
+	private final Logger logger = Logger.getLogger("TickLoop");
+	private final BukkitSchedulerMock scheduler;
+	private final long nanosPerTick;
+	private final long[] tickStarts = new long[SAMPLES];
+	private final long[] tickDurations = new long[SAMPLES];
+	private int samples = 0;
+	private long ticks = 0;
+	private long skippedTicks = 0;
+	private long overloads = 0;
+	private Throwable exception;
+	private volatile boolean running = false;
+	private Thread thread;
+
+	/**
+	 * Creates a tick loop.
+	 * @param scheduler The scheduler to perform ticks on.
+	 * @param ticksPerSecond The number of ticks to perform every second.
+	 */
+	public TickLoop(BukkitSchedulerMock scheduler, int ticksPerSecond)
+	{
+		if (ticksPerSecond < 1)
+		{
+			throw new IllegalArgumentException("Need to perform at least one tick per second");
+		}
+		this.scheduler = scheduler;
+		this.nanosPerTick = TimeUnit.SECONDS.toNanos(1) / ticksPerSecond;
+	}
+
+	/**
+	 * Starts performing ticks on a new thread.
+	 */
+	public synchronized void start()
+	{
+		if (running)
+		{
+			throw new IllegalStateException("Tick loop is already running");
+		}
+		running = true;
+		thread = new Thread(this, "Server thread");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Stops performing ticks and waits for the current tick to finish.
+	 * If a tick threw an exception, the first one is rethrown wrapped in a
+	 * {@link RuntimeException}.
+	 * @throws InterruptedException If the current thread was interrupted while waiting.
+	 */
+	public void stop() throws InterruptedException
+	{
+		Thread thread;
+		synchronized (this)
+		{
+			running = false;
+			thread = this.thread;
+			this.thread = null;
+		}
+		if (thread != null && thread != Thread.currentThread())
+		{
+			thread.join();
+		}
+
+		synchronized (this)
+		{
+			if (exception != null)
+			{
+				Throwable exception = this.exception;
+				this.exception = null;
+				throw new RuntimeException("A tick threw an exception", exception);
+			}
+		}
+	}
+
+	/**
+	 * Checks if the loop is performing ticks.
+	 * @return {@code true} if the loop is running, {@code false} if it isn't.
+	 */
+	public boolean isRunning()
+	{
+		return running;
+	}
+
+	@Override
+	public void run()
+	{
+		long lastTime = System.nanoTime();
+		long behind = 0;
+		while (running)
+		{
+			long now = System.nanoTime();
+			long elapsed = now - lastTime;
+			lastTime = now;
+			if (elapsed > TimeUnit.MILLISECONDS.toNanos(MAX_CATCH_UP_MILLIS))
+			{
+				long skipped = (elapsed - TimeUnit.MILLISECONDS.toNanos(MAX_CATCH_UP_MILLIS)) / nanosPerTick;
+				logger.warning(String.format("Can't keep up! Running %dms behind, skipping %d tick(s)",
+						TimeUnit.NANOSECONDS.toMillis(elapsed), skipped));
+				synchronized (this)
+				{
+					skippedTicks += skipped;
+					overloads++;
+				}
+				elapsed = TimeUnit.MILLISECONDS.toNanos(MAX_CATCH_UP_MILLIS);
+			}
+
+			behind += elapsed;
+			while (running && behind >= nanosPerTick)
+			{
+				behind -= nanosPerTick;
+				tick();
+			}
+
+			long sleep = TimeUnit.NANOSECONDS.toMillis(nanosPerTick - behind);
+			try
+			{
+				Thread.sleep(Math.max(1L, sleep));
+			}
+			catch (InterruptedException e)
+			{
+				return;
+			}
+		}
+	}
+
+	private void tick()
+	{
+		long start = System.nanoTime();
+		try
+		{
+			scheduler.performOneTick();
+		}
+		catch (Throwable e)
+		{
+			synchronized (this)
+			{
+				if (exception == null)
+				{
+					exception = e;
+				}
+			}
+		}
+
+		synchronized (this)
+		{
+			int index = (int) (ticks % SAMPLES);
+			tickStarts[index] = start;
+			tickDurations[index] = System.nanoTime() - start;
+			samples = Math.min(samples + 1, SAMPLES);
+			ticks++;
+		}
+	}
+
+	/**
+	 * Get the number of ticks the loop has performed.
+	 * @return The number of ticks that were performed.
+	 */
+	public synchronized long getTicks()
+	{
+		return ticks;
+	}
+
+	/**
+	 * Get the number of ticks that were skipped because the loop was overloaded.
+	 * @return The number of ticks that were skipped.
+	 */
+	public synchronized long getSkippedTicks()
+	{
+		return skippedTicks;
+	}
+
+	/**
+	 * Get the number of times the loop fell so far behind that it had to skip ticks.
+	 * @return The number of times the loop was overloaded.
+	 */
+	public synchronized long getOverloadCount()
+	{
+		return overloads;
+	}
+
+	/**
+	 * Get the number of ticks per second that were measured over the last 100
+	 * ticks.
+	 * @return The measured number of ticks per second.
+	 */
+	public synchronized double getTps()
+	{
+		if (samples < 2)
+		{
+			return 0;
+		}
+		int newest = (int) ((ticks - 1) % SAMPLES);
+		int oldest = (int) ((ticks - samples) % SAMPLES);
+		long elapsed = tickStarts[newest] - tickStarts[oldest];
+		return elapsed <= 0 ? 0 : (samples - 1) * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+	}
+
+	/**
+	 * Get the average number of milliseconds a tick took over the last 100 ticks.
+	 * @return The average number of milliseconds per tick.
+	 */
+	public synchronized double getMspt()
+	{
+		if (samples == 0)
+		{
+			return 0;
+		}
+		long total = 0;
+		for (int i = 0; i < samples; i++)
+		{
+			total += tickDurations[i];
+		}
+		return total / (double) samples / TimeUnit.MILLISECONDS.toNanos(1);
+	}
+}
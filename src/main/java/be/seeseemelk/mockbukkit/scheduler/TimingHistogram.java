@@ -0,0 +1,147 @@
+package be.seeseemelk.mockbukkit.scheduler;
+
+import java.util.Arrays;
+
+/**
+ * A histogram of durations in nanoseconds.
+ * <p>
+ * Durations are counted in buckets whose width grows with the size of the
+ * duration: every power of two is split into 16 buckets. This keeps the memory
+ * used by the histogram constant, while every percentile is accurate to within
+ * about 6%.
+ */
+public class TimingHistogram
+{
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	private final long[] buckets = new long[64 * SUB_BUCKETS];
+	private long count = 0;
+	private long total = 0;
+	private long min = Long.MAX_VALUE;
+	private long max = 0;
+
+	/**
+	 * Adds a duration to the histogram.
+	 * @param nanos The duration in nanoseconds.
+	 */
+	public synchronized void record(long nanos)
+	{
+		nanos = Math.max(0L, nanos);
+		buckets[getBucket(nanos)]++;
+		count++;
+		total += nanos;
+		min = Math.min(min, nanos);
+		max = Math.max(max, nanos);
+	}
+
+	/**
+	 * Get the number of durations that were recorded.
+	 * @return The number of durations that were recorded.
+	 */
+	public synchronized long getCount()
+	{
+		return count;
+	}
+
+	/**
+	 * Get the sum of all recorded durations.
+	 * @return The sum of all durations in nanoseconds.
+	 */
+	public synchronized long getTotalNanos()
+	{
+		return total;
+	}
+
+	/**
+	 * Get the average of all recorded durations.
+	 * @return The average duration in nanoseconds, or {@code 0} if nothing was recorded.
+	 */
+	public synchronized long getMeanNanos()
+	{
+		return count == 0 ? 0 : total / count;
+	}
+
+	/**
+	 * Get the shortest recorded duration.
+	 * @return The shortest duration in nanoseconds, or {@code 0} if nothing was recorded.
+	 */
+	public synchronized long getMinNanos()
+	{
+		return count == 0 ? 0 : min;
+	}
+
+	/**
+	 * Get the longest recorded duration.
+	 * @return The longest duration in nanoseconds, or {@code 0} if nothing was recorded.
+	 */
+	public synchronized long getMaxNanos()
+	{
+		return max;
+	}
+
+	/**
+	 * Get a percentile of the recorded durations.
+	 * @param percentile The percentile to get, between {@code 0} and {@code 100}.
+	 * @return The duration in nanoseconds below which the given percentage of
+	 *         durations fall, or {@code 0} if nothing was recorded.
+	 */
+	public synchronized long getPercentileNanos(double percentile)
+	{
+		if (percentile < 0 || percentile > 100)
+		{
+			throw new IllegalArgumentException("Percentile must be between 0 and 100");
+		}
+		if (count == 0)
+		{
+			return 0;
+		}
+
+		long rank = Math.max(1L, (long) Math.ceil(percentile / 100.0 * count));
+		long seen = 0;
+		for (int bucket = 0; bucket < buckets.length; bucket++)
+		{
+			seen += buckets[bucket];
+			if (seen >= rank)
+			{
+				return Math.max(min, Math.min(max, getBucketUpperBound(bucket)));
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * Removes all recorded durations.
+	 */
+	public synchronized void reset()
+	{
+		Arrays.fill(buckets, 0);
+		count = 0;
+		total = 0;
+		min = Long.MAX_VALUE;
+		max = 0;
+	}
+
+	private static int getBucket(long nanos)
+	{
+		if (nanos < SUB_BUCKETS)
+		{
+			return (int) nanos;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+		int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	private static long getBucketUpperBound(int bucket)
+	{
+		if (bucket < SUB_BUCKETS)
+		{
+			return bucket;
+		}
+		int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		long subBucket = bucket % SUB_BUCKETS;
+		long width = 1L << (exponent - SUB_BUCKET_BITS);
+		return ((SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS)) + width - 1;
+	}
+}
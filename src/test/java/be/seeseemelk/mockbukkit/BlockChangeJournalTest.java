@@ -0,0 +1,69 @@
+package be.seeseemelk.mockbukkit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.bukkit.Material;
+import org.junit.Test;
+
+public class BlockChangeJournalTest
+{
+	private static final int STONE = ChunkSection.getState(Material.STONE, (byte) 0);
+	private static final int DIRT = ChunkSection.getState(Material.DIRT, (byte) 0);
+	private static final int AIR = ChunkSection.getState(Material.AIR, (byte) 0);
+
+	@Test
+	public void diff_ChangedTwice_FirstOldAndLastNew()
+	{
+		BlockChangeJournal journal = new BlockChangeJournal(16);
+		long checkpoint = journal.checkpoint();
+		journal.record(-5, 10, 7, AIR, STONE);
+		journal.record(-5, 10, 7, STONE, DIRT);
+		List<BlockChangeJournal.Change> changes = journal.diff(checkpoint);
+		assertEquals(1, changes.size());
+		BlockChangeJournal.Change change = changes.get(0);
+		assertEquals(-5, change.getX());
+		assertEquals(10, change.getY());
+		assertEquals(7, change.getZ());
+		assertEquals(Material.AIR, change.getOldType());
+		assertEquals(Material.DIRT, change.getNewType());
+	}
+
+	@Test
+	public void diff_ChangedBack_Empty()
+	{
+		BlockChangeJournal journal = new BlockChangeJournal(16);
+		journal.record(1, 2, 3, AIR, STONE);
+		long checkpoint = journal.checkpoint();
+		journal.record(1, 2, 3, STONE, DIRT);
+		journal.record(1, 2, 3, DIRT, STONE);
+		assertTrue(journal.diff(checkpoint).isEmpty());
+		assertEquals(1, journal.diff(0, 1).size());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void diff_Overwritten_Exception()
+	{
+		BlockChangeJournal journal = new BlockChangeJournal(4);
+		for (int x = 0; x < 5; x++)
+		{
+			journal.record(x, 0, 0, AIR, STONE);
+		}
+		assertEquals(1, journal.getOldestCheckpoint());
+		assertEquals(4, journal.diff(1).size());
+		journal.diff(0);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void diff_Cleared_Exception()
+	{
+		BlockChangeJournal journal = new BlockChangeJournal(4);
+		journal.record(0, 0, 0, AIR, STONE);
+		journal.clear();
+		assertEquals(0, journal.size());
+		assertTrue(journal.diff(1).isEmpty());
+		journal.diff(0);
+	}
+}
@@ -0,0 +1,87 @@
+package be.seeseemelk.mockbukkit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.bukkit.Material;
+import org.junit.Test;
+
+public class BlockRaycastTest
+{
+	@Test
+	public void next_AlongXAxis_EveryBlockVisited()
+	{
+		WorldMock world = new WorldMock();
+		BlockRaycast ray = new BlockRaycast(world, 0.5, 10.5, 0.5, 1, 0, 0, 3);
+		for (int x = 0; x <= 3; x++)
+		{
+			assertTrue(ray.next());
+			assertEquals(x, ray.getX());
+			assertEquals(10, ray.getY());
+			assertEquals(0, ray.getZ());
+		}
+		assertFalse(ray.next());
+	}
+	
+	@Test
+	public void next_Diagonal_NeighbouringBlocksVisited()
+	{
+		WorldMock world = new WorldMock();
+		BlockRaycast ray = new BlockRaycast(world, 0.5, 10.5, 0.5, -1, 0, 1, 10);
+		int previousX = 0;
+		int previousZ = 0;
+		assertTrue(ray.next());
+		for (int i = 0; i < 10; i++)
+		{
+			assertTrue(ray.next());
+			assertEquals(1, Math.abs(ray.getX() - previousX) + Math.abs(ray.getZ() - previousZ));
+			previousX = ray.getX();
+			previousZ = ray.getZ();
+		}
+	}
+	
+	@Test
+	public void next_Downwards_StopsAtBottomOfWorld()
+	{
+		WorldMock world = new WorldMock();
+		BlockRaycast ray = new BlockRaycast(world, 0.5, 2.5, 0.5, 0, -1, 0, 100);
+		assertTrue(ray.next());
+		assertTrue(ray.next());
+		assertTrue(ray.next());
+		assertEquals(0, ray.getY());
+		assertEquals(ChunkSection.getState(Material.BEDROCK, (byte) 0), ray.getState());
+		assertFalse(ray.next());
+	}
+	
+	@Test
+	public void next_AboveWorld_StartsAtTopOfWorld()
+	{
+		WorldMock world = new WorldMock();
+		int height = world.getMaxHeight();
+		world.getBlockAt(0, height - 5, 0).setType(Material.STONE);
+		BlockRaycast ray = new BlockRaycast(world, 0.5, height + 40.5, 0.5, 0, -1, 0, 100);
+		for (int y = height - 1; y >= height - 5; y--)
+		{
+			assertTrue(ray.next());
+			assertEquals(y, ray.getY());
+		}
+		assertEquals(ChunkSection.getState(Material.STONE, (byte) 0), ray.getState());
+		assertTrue(ray.next());
+		assertEquals(height - 6, ray.getY());
+	}
+	
+	@Test
+	public void next_AboveWorldOutOfReach_NoBlocks()
+	{
+		WorldMock world = new WorldMock();
+		assertFalse(new BlockRaycast(world, 0.5, world.getMaxHeight() + 40.5, 0.5, 0, -1, 0, 10).next());
+		assertFalse(new BlockRaycast(world, 0.5, world.getMaxHeight() + 40.5, 0.5, 1, 0, 0, 100).next());
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void constructor_ZeroDirection_Exception()
+	{
+		new BlockRaycast(new WorldMock(), 0, 0, 0, 0, 0, 0, 10);
+	}
+}
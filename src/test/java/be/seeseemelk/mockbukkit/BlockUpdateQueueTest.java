@@ -0,0 +1,87 @@
+package be.seeseemelk.mockbukkit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class BlockUpdateQueueTest
+{
+	private BlockUpdateQueue queue;
+
+	@Before
+	public void setUp()
+	{
+		queue = new BlockUpdateQueue();
+	}
+
+	@Test
+	public void poll_Empty_Null()
+	{
+		assertFalse(queue.poll(100));
+		assertEquals(Long.MAX_VALUE, queue.getNextTick());
+	}
+
+	@Test
+	public void poll_DifferentTicks_InOrderOfTick()
+	{
+		queue.schedule(1, 2, 3, 5, 0, false);
+		queue.schedule(-4, 5, -6, 3, 0, false);
+		assertEquals(3, queue.getNextTick());
+		assertFalse(queue.poll(2));
+
+		assertTrue(queue.poll(5));
+		assertEquals(-4, queue.getX());
+		assertEquals(5, queue.getY());
+		assertEquals(-6, queue.getZ());
+		assertTrue(queue.poll(5));
+		assertEquals(1, queue.getX());
+		assertFalse(queue.poll(5));
+		assertEquals(0, queue.size());
+	}
+
+	@Test
+	public void schedule_SamePositionLater_Ignored()
+	{
+		assertTrue(queue.schedule(1, 2, 3, 5, 0, false));
+		assertFalse(queue.schedule(1, 2, 3, 5, 0, true));
+		assertFalse(queue.schedule(1, 2, 3, 8, 0, true));
+		assertEquals(1, queue.size());
+		assertTrue(queue.poll(10));
+		assertFalse(queue.isScheduled());
+		assertFalse(queue.poll(10));
+	}
+
+	@Test
+	public void schedule_SamePositionEarlier_Replaced()
+	{
+		queue.schedule(1, 2, 3, 8, 0, false);
+		assertTrue(queue.schedule(1, 2, 3, 5, 0, true));
+		assertEquals(1, queue.size());
+		assertEquals(5, queue.getNextTick());
+		assertTrue(queue.poll(5));
+		assertTrue(queue.isScheduled());
+		assertEquals(Long.MAX_VALUE, queue.getNextTick());
+		assertFalse(queue.poll(10));
+	}
+
+	@Test
+	public void poll_ManyTicks_InOrderOfTick()
+	{
+		for (int i = 0; i < 100; i++)
+		{
+			queue.schedule(i, 0, 0, (i * 37) % 100, 7, false);
+		}
+		for (long tick = 0; tick < 100; tick++)
+		{
+			assertEquals(tick, queue.getNextTick());
+			assertTrue(queue.poll(tick));
+			assertEquals(tick, (queue.getX() * 37) % 100);
+			assertEquals(7, queue.getChanged());
+			assertFalse(queue.poll(tick));
+		}
+		assertEquals(0, queue.size());
+	}
+}
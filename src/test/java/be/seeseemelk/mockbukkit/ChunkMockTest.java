@@ -0,0 +1,176 @@
+package be.seeseemelk.mockbukkit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ChunkMockTest
+{
+	private ServerMock server;
+	private WorldMock world;
+	private ChunkListener listener;
+
+	@Before
+	public void setUp()
+	{
+		server = MockBukkit.mock();
+		world = server.addSimpleWorld("world");
+		listener = new ChunkListener();
+		server.getPluginManager().registerEvents(listener, MockBukkit.createMockPlugin());
+	}
+
+	@After
+	public void tearDown()
+	{
+		MockBukkit.unload();
+	}
+
+	@Test
+	public void getChunkAt_NotLoaded_LoadedWithEvent()
+	{
+		ChunkMock chunk = world.getChunkAt(3, -2);
+		assertEquals(3, chunk.getX());
+		assertEquals(-2, chunk.getZ());
+		assertSame(world, chunk.getWorld());
+		assertTrue(chunk.isLoaded());
+		assertTrue(world.isChunkLoaded(3, -2));
+		assertEquals(1, listener.loaded.size());
+		assertSame(chunk, listener.loaded.get(0));
+
+		assertSame(chunk, world.getChunkAt(3, -2));
+		assertEquals(1, listener.loaded.size());
+	}
+
+	@Test
+	public void getBlock_InChunk_BlockOfWorld()
+	{
+		ChunkMock chunk = world.getChunkAt(2, 1);
+		chunk.getBlock(1, 10, 2).setType(Material.STONE);
+		assertEquals(Material.STONE, world.getBlockAt(33, 10, 18).getType());
+		assertSame(chunk, world.getChunkAt(world.getBlockAt(33, 10, 18)));
+	}
+
+	@Test
+	public void unload_Loaded_UnloadedWithEvent()
+	{
+		ChunkMock chunk = world.getChunkAt(0, 5);
+		assertTrue(chunk.unload());
+		assertFalse(chunk.isLoaded());
+		assertFalse(world.isChunkLoaded(0, 5));
+		assertArrayEquals(new Chunk[] { chunk }, listener.unloaded.toArray());
+		assertNotSame(chunk, world.getChunkAt(0, 5));
+	}
+
+	@Test
+	public void unload_EventCancelled_StaysLoaded()
+	{
+		ChunkMock chunk = world.getChunkAt(0, 5);
+		listener.cancelUnload = true;
+		assertFalse(chunk.unload());
+		assertTrue(chunk.isLoaded());
+	}
+
+	@Test
+	public void unload_PlayerInChunk_StaysLoaded()
+	{
+		world.getChunkAt(2, 2);
+		server.addPlayer();
+		server.getPlayer(0).teleport(new Location(world, 40, 10, 40));
+		assertTrue(world.isChunkInUse(2, 2));
+		assertFalse(world.unloadChunk(2, 2));
+		assertTrue(world.isChunkLoaded(2, 2));
+		assertTrue(world.unloadChunk(2, 2, true, false));
+		assertFalse(world.isChunkLoaded(2, 2));
+	}
+
+	@Test
+	public void unload_WithoutSaving_ChangesDiscarded()
+	{
+		world.getBlockAt(1, 10, 1).setType(Material.STONE);
+		world.getBlockAt(20, 10, 1).setType(Material.STONE);
+		assertTrue(world.unloadChunk(0, 0, false));
+		assertTrue(world.unloadChunk(1, 0, true));
+		assertEquals(Material.AIR, world.getBlockAt(1, 10, 1).getType());
+		assertEquals(Material.STONE, world.getBlockAt(20, 10, 1).getType());
+	}
+
+	@Test
+	public void setMaxLoadedChunks_TooManyLoaded_LeastRecentlyUsedUnloaded()
+	{
+		world.getChunkAt(0, 0);
+		world.getChunkAt(1, 0);
+		world.getChunkAt(2, 0);
+		world.getChunkAt(0, 0);
+		world.setMaxLoadedChunks(2);
+		assertFalse(world.isChunkLoaded(1, 0));
+		assertTrue(world.isChunkLoaded(0, 0));
+		assertTrue(world.isChunkLoaded(2, 0));
+
+		world.getChunkAt(3, 0);
+		assertFalse(world.isChunkLoaded(2, 0));
+		assertEquals(2, world.getLoadedChunks().length);
+	}
+
+	@Test
+	public void setMaxLoadedChunks_RandomWalk_StorageBounded()
+	{
+		world.setMaxLoadedChunks(4);
+		for (int i = 0; i < 100; i++)
+		{
+			world.getBlockAt(i * 16, 10, 0).getType();
+		}
+		assertEquals(4, world.getLoadedChunks().length);
+		assertEquals(0, world.getStoredSectionCount());
+	}
+
+	@Test
+	public void loadChunk_WithoutGenerating_OnlyStoredChunksLoaded()
+	{
+		world.setStateAt(1, 10, 1, ChunkSection.getState(Material.STONE, (byte) 0));
+		assertTrue(world.loadChunk(0, 0, false));
+		assertFalse(listener.newChunk);
+		assertFalse(world.loadChunk(1, 0, false));
+		assertFalse(world.isChunkLoaded(1, 0));
+		assertTrue(world.loadChunk(1, 0, true));
+		assertTrue(listener.newChunk);
+	}
+
+	public static class ChunkListener implements Listener
+	{
+		private final List<Chunk> loaded = new ArrayList<>();
+		private final List<Chunk> unloaded = new ArrayList<>();
+		private boolean newChunk;
+		private boolean cancelUnload;
+
+		@EventHandler
+		public void onChunkLoad(ChunkLoadEvent event)
+		{
+			loaded.add(event.getChunk());
+			newChunk = event.isNewChunk();
+		}
+
+		@EventHandler
+		public void onChunkUnload(ChunkUnloadEvent event)
+		{
+			unloaded.add(event.getChunk());
+			event.setCancelled(cancelUnload);
+		}
+	}
+}
@@ -0,0 +1,136 @@
+package be.seeseemelk.mockbukkit;
+
+import static org.junit.Assert.*;
+
+import org.bukkit.Material;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ChunkSectionTest
+{
+	private static final int AIR = ChunkSection.getState(Material.AIR, (byte) 0);
+	private static final int STONE = ChunkSection.getState(Material.STONE, (byte) 0);
+
+	private ChunkSection section;
+
+	@Before
+	public void setUp()
+	{
+		section = new ChunkSection();
+	}
+
+	@Test
+	public void getState_MaterialAndData_Unpacked()
+	{
+		int state = ChunkSection.getState(Material.WOOL, (byte) 14);
+		assertEquals(Material.WOOL, ChunkSection.getMaterial(state));
+		assertEquals(14, ChunkSection.getData(state));
+	}
+
+	@Test
+	public void get_New_Air()
+	{
+		assertEquals(AIR, section.get(0, 0, 0));
+		assertEquals(AIR, section.get(15, 15, 15));
+		assertTrue(section.isUniform());
+	}
+
+	@Test
+	public void set_SingleBlock_OnlyThatBlockChanged()
+	{
+		assertEquals(AIR, section.set(3, 4, 5, STONE));
+		assertEquals(STONE, section.get(3, 4, 5));
+		assertEquals(AIR, section.get(4, 4, 5));
+		assertEquals(AIR, section.get(3, 5, 5));
+		assertFalse(section.isUniform());
+		assertEquals(1, section.getBitsPerBlock());
+	}
+
+	@Test
+	public void set_ManyStates_AllStored()
+	{
+		for (int i = 0; i < ChunkSection.VOLUME; i++)
+		{
+			section.set(i, ChunkSection.getState(Material.WOOL, (byte) (i % 200)));
+		}
+		for (int i = 0; i < ChunkSection.VOLUME; i++)
+		{
+			assertEquals(ChunkSection.getState(Material.WOOL, (byte) (i % 200)), section.get(i));
+		}
+		assertEquals(8, section.getBitsPerBlock());
+	}
+
+	@Test
+	public void set_OverwrittenManyTimes_PaletteCompacted()
+	{
+		for (int i = 0; i < 1000; i++)
+		{
+			section.set(0, ChunkSection.getState(Material.WOOL, (byte) i));
+		}
+		assertEquals(ChunkSection.getState(Material.WOOL, (byte) 999), section.get(0));
+		assertEquals(AIR, section.get(1));
+		assertTrue(section.getBitsPerBlock() <= 2);
+	}
+
+	@Test
+	public void fillLayer_Stone_OnlyLayerChanged()
+	{
+		section.fillLayer(2, STONE);
+		assertEquals(STONE, section.get(0, 2, 0));
+		assertEquals(STONE, section.get(15, 2, 15));
+		assertEquals(AIR, section.get(0, 1, 0));
+		assertEquals(AIR, section.get(0, 3, 0));
+	}
+
+	@Test
+	public void fill_Stone_Uniform()
+	{
+		section.set(1, 1, 1, STONE);
+		section.fill(STONE);
+		assertTrue(section.isUniform());
+		assertEquals(STONE, section.get(0, 0, 0));
+		assertEquals(STONE, section.get(1, 1, 1));
+	}
+
+	@Test
+	public void fill_Box_OnlyBoxChanged()
+	{
+		section.fill(2, 3, 4, 5, 6, 7, STONE);
+		assertEquals(STONE, section.get(2, 3, 4));
+		assertEquals(STONE, section.get(5, 6, 7));
+		assertEquals(AIR, section.get(1, 3, 4));
+		assertEquals(AIR, section.get(6, 6, 7));
+		assertEquals(AIR, section.get(5, 7, 7));
+		assertEquals(AIR, section.get(5, 6, 8));
+	}
+
+	@Test
+	public void copy_Modified_Independent()
+	{
+		section.set(1, 1, 1, STONE);
+		ChunkSection copy = section.copy();
+		copy.set(2, 2, 2, STONE);
+		section.set(1, 1, 1, AIR);
+		assertEquals(STONE, copy.get(1, 1, 1));
+		assertEquals(STONE, copy.get(2, 2, 2));
+		assertEquals(AIR, section.get(2, 2, 2));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void set_Frozen_Exception()
+	{
+		section.freeze();
+		section.set(0, STONE);
+	}
+
+	@Test
+	public void copy_Frozen_CopyNotFrozen()
+	{
+		section.freeze();
+		ChunkSection copy = section.copy();
+		assertTrue(section.isFrozen());
+		assertFalse(copy.isFrozen());
+		copy.set(0, STONE);
+		assertEquals(STONE, copy.get(0));
+	}
+}
@@ -5,6 +5,9 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -58,6 +61,17 @@ public class CoordinateTest
 		assertNotEquals(c1.hashCode(), c2.hashCode());
 	}
 	
+	@Test
+	public void hashCode_NeighbouringCoordinates_AllDifferent()
+	{
+		Set<Integer> hashes = new HashSet<>();
+		for (int x = 0; x < 16; x++)
+			for (int y = 0; y < 16; y++)
+				for (int z = 0; z < 16; z++)
+					hashes.add(new Coordinate(x, y, z).hashCode());
+		assertEquals(16 * 16 * 16, hashes.size());
+	}
+	
 	@Test
 	public void equals_Null_False()
 	{
@@ -0,0 +1,78 @@
+package be.seeseemelk.mockbukkit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.junit.Before;
+import org.junit.Test;
+
+public class EntityIndexTest
+{
+	private EntityIndex index;
+
+	@Before
+	public void setUp()
+	{
+		index = new EntityIndex();
+	}
+
+	private static Entity createEntity(double x, double y, double z)
+	{
+		Entity entity = mock(Entity.class);
+		when(entity.getUniqueId()).thenReturn(UUID.randomUUID());
+		when(entity.getLocation()).thenReturn(new Location(null, x, y, z));
+		return entity;
+	}
+
+	@Test
+	public void query_EntitiesAround_OnlyInsideBox()
+	{
+		Entity inside = createEntity(5, 10, 5);
+		Entity otherChunk = createEntity(-3, 10, 17);
+		Entity above = createEntity(5, 30, 5);
+		Entity far = createEntity(500, 10, 500);
+		index.update(inside);
+		index.update(otherChunk);
+		index.update(above);
+		index.update(far);
+		
+		assertEquals(Arrays.asList(inside, otherChunk), index.query(-5, 0, 0, 10, 20, 20));
+		assertEquals(4, index.query(-1000, 0, -1000, 1000, 100, 1000).size());
+	}
+
+	@Test
+	public void update_MovedToOtherChunk_FoundAtNewLocation()
+	{
+		Entity entity = createEntity(5, 10, 5);
+		index.update(entity);
+		when(entity.getLocation()).thenReturn(new Location(null, 100, 10, 100));
+		index.update(entity);
+		
+		assertEquals(Collections.emptyList(), index.query(0, 0, 0, 15, 20, 15));
+		assertEquals(Collections.singletonList(entity), index.query(95, 0, 95, 105, 20, 105));
+		assertEquals(Collections.singletonList(entity), index.getInChunk(6, 6));
+		assertEquals(1, index.getAll().size());
+	}
+
+	@Test
+	public void remove_Added_NotFoundAnymore()
+	{
+		Entity first = createEntity(5, 10, 5);
+		Entity second = createEntity(6, 10, 5);
+		index.update(first);
+		index.update(second);
+		assertTrue(index.remove(first));
+		assertFalse(index.remove(first));
+		assertFalse(index.contains(first));
+		assertEquals(Collections.singletonList(second), index.query(0, 0, 0, 15, 20, 15));
+	}
+}
@@ -0,0 +1,173 @@
+package be.seeseemelk.mockbukkit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.junit.Test;
+
+public class LightEngineTest
+{
+	private static final Material[] MATERIALS = { Material.AIR, Material.STONE, Material.GLASS, Material.TORCH,
+			Material.GLOWSTONE, Material.LEAVES, Material.WATER };
+
+	@Test
+	public void getSkyLightAt_DefaultWorld_DarkBelowGround()
+	{
+		WorldMock world = new WorldMock(Material.DIRT, 64, 3);
+		assertEquals(15, world.getSkyLightAt(5, 63, 5));
+		assertEquals(15, world.getSkyLightAt(5, 4, 5));
+		assertEquals(0, world.getSkyLightAt(5, 3, 5));
+		assertEquals(0, world.getBlockLightAt(5, 4, 5));
+		assertEquals(0, world.getStoredSectionCount());
+	}
+
+	@Test
+	public void getLightLevelAt_DefaultChunks_NoColumnsCreated()
+	{
+		WorldMock world = new WorldMock(Material.DIRT, 64, 3);
+		for (int x = -64; x < 64; x += 8)
+		{
+			for (int z = -64; z < 64; z += 8)
+			{
+				assertEquals(15, world.getLightLevelAt(x, 10, z));
+			}
+		}
+		assertEquals(0, world.getStoredColumnCount());
+	}
+
+	@Test
+	public void getBlockLightAt_TorchPlaced_OnlyReachedColumnsCreated()
+	{
+		WorldMock world = new WorldMock(Material.DIRT, 64, 3);
+		world.getBlockAt(0, 10, 8).setType(Material.TORCH);
+		assertEquals(1, world.getStoredColumnCount());
+		assertEquals(13, world.getBlockLightAt(-1, 10, 8));
+		// The torch lights the chunks next to it on the negative x side and on both z sides.
+		assertEquals(6, world.getStoredColumnCount());
+		assertEquals(0, world.getBlockLightAt(-17, 10, 8));
+		assertEquals(0, world.getBlockLightAt(20, 10, 8));
+		assertEquals(6, world.getStoredColumnCount());
+	}
+
+	@Test
+	public void getBlockLightAt_TorchPlaced_LightSpreads()
+	{
+		WorldMock world = new WorldMock(Material.DIRT, 64, 3);
+		assertEquals(0, world.getBlockLightAt(0, 10, 0));
+		world.getBlockAt(0, 10, 0).setType(Material.TORCH);
+		assertEquals(14, world.getBlockLightAt(0, 10, 0));
+		assertEquals(11, world.getBlockLightAt(3, 10, 0));
+		assertEquals(13, world.getBlockLightAt(0, 10, -1));
+		assertEquals(8, world.getBlockLightAt(-2, 7, -1));
+		assertEquals(0, world.getBlockLightAt(0, 3, 0));
+	}
+
+	@Test
+	public void getBlockLightAt_TorchRemoved_Dark()
+	{
+		WorldMock world = new WorldMock(Material.DIRT, 64, 3);
+		Block torch = world.getBlockAt(15, 10, 15);
+		torch.setType(Material.TORCH);
+		assertEquals(12, world.getBlockLightAt(17, 10, 15));
+		torch.setType(Material.AIR);
+		assertEquals(0, world.getBlockLightAt(15, 10, 15));
+		assertEquals(0, world.getBlockLightAt(17, 10, 15));
+	}
+
+	@Test
+	public void getSkyLightAt_UnderRoof_LightFromSides()
+	{
+		WorldMock world = new WorldMock(Material.DIRT, 64, 3);
+		world.fill(-10, 20, -10, 10, 20, 10, Material.STONE);
+		assertEquals(4, world.getSkyLightAt(0, 10, 0));
+		assertEquals(14, world.getSkyLightAt(10, 10, 0));
+
+		world.getBlockAt(0, 20, 0).setType(Material.AIR);
+		assertEquals(15, world.getSkyLightAt(0, 10, 0));
+		assertEquals(14, world.getSkyLightAt(1, 10, 0));
+
+		world.getBlockAt(0, 20, 0).setType(Material.STONE);
+		assertEquals(4, world.getSkyLightAt(0, 10, 0));
+	}
+
+	@Test
+	public void restore_TorchPlacedSinceSnapshot_OnlyChunksAroundRelit()
+	{
+		WorldMock world = new WorldMock(Material.DIRT, 64, 3);
+		world.getBlockAt(80, 10, 80).setType(Material.STONE);
+		assertEquals(15, world.getSkyLightAt(80, 11, 80));
+		WorldSnapshot snapshot = world.snapshot();
+		world.getBlockAt(15, 10, 8).setType(Material.TORCH);
+		assertEquals(12, world.getBlockLightAt(17, 10, 8));
+
+		world.restore(snapshot);
+		assertTrue(world.getStoredColumn(5, 5).isLit());
+		assertEquals(0, world.getBlockLightAt(17, 10, 8));
+		assertEquals(0, world.getBlockLightAt(15, 10, 8));
+	}
+
+	@Test
+	public void getSkyLightAt_WallBuiltInDefaultChunk_NeighbourRelit()
+	{
+		WorldMock incremental = new WorldMock(Material.DIRT, 64, 3);
+		WorldMock computed = new WorldMock(Material.DIRT, 64, 3);
+		incremental.fill(16, 20, 0, 40, 20, 15, Material.STONE);
+		computed.fill(16, 20, 0, 40, 20, 15, Material.STONE);
+		assertEquals(10, incremental.getSkyLightAt(20, 10, 8));
+
+		for (int y = 4; y <= 30; y++)
+		{
+			for (int z = 0; z <= 15; z++)
+			{
+				incremental.getBlockAt(15, y, z).setType(Material.STONE);
+				computed.getBlockAt(15, y, z).setType(Material.STONE);
+			}
+		}
+		for (int x = 16; x < 32; x++)
+		{
+			assertEquals(computed.getSkyLightAt(x, 10, 8), incremental.getSkyLightAt(x, 10, 8));
+		}
+		assertEquals(7, incremental.getSkyLightAt(20, 10, 8));
+	}
+
+	@Test
+	public void update_RandomChanges_SameAsComputedAfterwards()
+	{
+		WorldMock incremental = new WorldMock(Material.DIRT, 64, 3);
+		WorldMock computed = new WorldMock(Material.DIRT, 64, 3);
+		for (int chunkX = 0; chunkX < 2; chunkX++)
+		{
+			for (int chunkZ = 0; chunkZ < 2; chunkZ++)
+			{
+				incremental.getLightLevelAt(chunkX << 4, 0, chunkZ << 4);
+			}
+		}
+
+		Random random = new Random(42);
+		for (int i = 0; i < 500; i++)
+		{
+			int x = random.nextInt(32);
+			int y = 1 + random.nextInt(30);
+			int z = random.nextInt(32);
+			Material material = MATERIALS[random.nextInt(MATERIALS.length)];
+			incremental.getBlockAt(x, y, z).setType(material);
+			computed.getBlockAt(x, y, z).setType(material);
+		}
+
+		for (int x = 0; x < 32; x++)
+		{
+			for (int y = 0; y < 40; y++)
+			{
+				for (int z = 0; z < 32; z++)
+				{
+					assertEquals(computed.getSkyLightAt(x, y, z), incremental.getSkyLightAt(x, y, z));
+					assertEquals(computed.getBlockLightAt(x, y, z), incremental.getBlockLightAt(x, y, z));
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,80 @@
+package be.seeseemelk.mockbukkit;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class LongMapTest
+{
+	private LongMap<String> map;
+
+	@Before
+	public void setUp()
+	{
+		map = new LongMap<>();
+	}
+
+	@Test
+	public void get_Empty_Null()
+	{
+		assertNull(map.get(5));
+		assertEquals(0, map.size());
+	}
+
+	@Test
+	public void put_NewKey_CanBeFound()
+	{
+		assertNull(map.put(-5L, "a"));
+		assertEquals("a", map.get(-5L));
+		assertEquals(1, map.size());
+	}
+
+	@Test
+	public void put_SameKey_Replaced()
+	{
+		map.put(5L, "a");
+		assertEquals("a", map.put(5L, "b"));
+		assertEquals("b", map.get(5L));
+		assertEquals(1, map.size());
+	}
+
+	@Test
+	public void remove_Key_CannotBeFound()
+	{
+		map.put(5L, "a");
+		assertEquals("a", map.remove(5L));
+		assertNull(map.get(5L));
+		assertNull(map.remove(5L));
+		assertEquals(0, map.size());
+	}
+
+	@Test
+	public void remove_ManyKeys_RemainingKeysFound()
+	{
+		for (long key = 0; key < 1000; key++)
+		{
+			map.put(key << 32 | key, Long.toString(key));
+		}
+		for (long key = 0; key < 1000; key += 2)
+		{
+			map.remove(key << 32 | key);
+		}
+		assertEquals(500, map.size());
+		assertEquals(500, map.values().size());
+		for (long key = 0; key < 1000; key++)
+		{
+			assertEquals(key % 2 == 0 ? null : Long.toString(key), map.get(key << 32 | key));
+		}
+	}
+
+	@Test
+	public void clear_Entries_Empty()
+	{
+		map.put(1L, "a");
+		map.put(2L, "b");
+		map.clear();
+		assertEquals(0, map.size());
+		assertNull(map.get(1L));
+	}
+}
@@ -4,16 +4,29 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
+import org.bukkit.Location;
+import org.bukkit.Material;
 import org.bukkit.OfflinePlayer;
+import org.bukkit.World;
+import org.bukkit.WorldCreator;
 import org.bukkit.command.Command;
 import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockPhysicsEvent;
 import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.generator.ChunkGenerator;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.PlayerInventory;
 import org.junit.After;
@@ -241,27 +254,199 @@ public class ServerMockTest
 	{
 		assertNotNull(server.getScheduler());
 	}
+	
+	@Test
+	public void createWorld_WithGenerator_ChunksGenerated()
+	{
+		WorldMock world = server.createWorld(new WorldCreator("generated").seed(42).generator(new PillarGenerator()));
+		assertSame(world, server.getWorld("generated"));
+		assertEquals(42, world.getSeed());
+		assertEquals(Material.BEDROCK, world.getBlockAt(100, 0, -100).getType());
+		assertEquals(Material.AIR, world.getBlockAt(100, 1, -100).getType());
+		assertEquals(Material.STONE, world.getBlockAt(96, 1, -112).getType());
+	}
+	
+	@Test
+	public void createWorld_ExistingName_SameWorld()
+	{
+		World world = server.createWorld(new WorldCreator("world"));
+		assertSame(world, server.createWorld(new WorldCreator("world")));
+		assertEquals(1, server.getWorlds().size());
+	}
+	
+	@Test
+	public void pregenerate_SameSeed_SameBlocksAsLazilyGenerated()
+	{
+		WorldMock pregenerated = server.createWorld(new WorldCreator("a").seed(7).generator(new PillarGenerator()));
+		pregenerated.pregenerate(4, new ForkJoinPool(4));
+		assertEquals(81, pregenerated.getStoredSectionCount() / 16);
+		
+		WorldMock lazy = server.createWorld(new WorldCreator("b").seed(7).generator(new PillarGenerator()));
+		for (int x = -64; x < 80; x += 16)
+		{
+			for (int z = -64; z < 80; z += 16)
+			{
+				for (int y = 0; y < 40; y++)
+				{
+					assertEquals(lazy.getBlockAt(x, y, z).getType(), pregenerated.getBlockAt(x, y, z).getType());
+				}
+			}
+		}
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void pregenerate_NoGenerator_Exception()
+	{
+		server.createWorld(new WorldCreator("flat")).pregenerate(1);
+	}
+	
+	@Test
+	public void getWorld_ManyWorlds_FoundByNameAndId()
+	{
+		List<WorldMock> added = new ArrayList<>();
+		for (int i = 0; i < 40; i++)
+		{
+			added.add(server.addSimpleWorld("world" + i));
+		}
+		assertEquals(new ArrayList<World>(added), server.getWorlds());
+		for (WorldMock world : added)
+		{
+			assertSame(world, server.getWorld(world.getName()));
+			assertSame(world, server.getWorld(world.getUID()));
+		}
+		assertNull(server.getWorld("world40"));
+	}
+	
+	@Test
+	public void unloadWorld_OtherWorld_Removed()
+	{
+		WorldMock main = server.addSimpleWorld("main");
+		WorldMock other = server.createWorld(new WorldCreator("other"));
+		assertFalse(server.unloadWorld(main, false));
+		assertFalse(server.unloadWorld("unknown", false));
+		assertTrue(server.unloadWorld("other", true));
+		assertNull(server.getWorld("other"));
+		assertNull(server.getWorld(other.getUID()));
+		assertEquals(1, server.getWorlds().size());
+		assertFalse(server.unloadWorld(other, true));
+		assertNotSame(other, server.createWorld(new WorldCreator("other")));
+	}
+	
+	@Test
+	public void unloadWorld_PlayerInWorld_NotUnloaded()
+	{
+		server.addSimpleWorld("main");
+		WorldMock other = server.addSimpleWorld("other");
+		server.addPlayer();
+		server.getPlayer(0).teleport(new Location(other, 0, 10, 0));
+		assertFalse(server.unloadWorld(other, false));
+		assertSame(other, server.getWorld("other"));
+	}
+	
+	@Test
+	public void addWorld_WhileTicking_NoException() throws InterruptedException
+	{
+		server.addSimpleWorld("main");
+		server.getScheduler().startTicking(1000);
+		try
+		{
+			for (int i = 0; i < 2000; i++)
+			{
+				WorldMock world = server.addSimpleWorld("world" + i);
+				assertTrue(server.unloadWorld(world, false));
+			}
+		}
+		finally
+		{
+			server.getScheduler().stopTicking();
+		}
+		assertEquals(1, server.getWorlds().size());
+	}
+	
+	@Test
+	public void setWorldTickPool_ManyWorlds_AllTicked()
+	{
+		server.setWorldTickPool(new ForkJoinPool(4));
+		List<WorldMock> added = new ArrayList<>();
+		for (int i = 0; i < 8; i++)
+		{
+			WorldMock world = server.addSimpleWorld("world" + i);
+			world.getBlockAt(i, 20, 0).setType(Material.SAND);
+			added.add(world);
+		}
+		server.getScheduler().performTicks(5);
+		for (int i = 0; i < added.size(); i++)
+		{
+			assertEquals(Material.AIR, added.get(i).getBlockAt(i, 20, 0).getType());
+			assertEquals(0, added.get(i).getPendingBlockUpdates());
+		}
+	}
+	
+	@Test
+	public void scheduleBlockUpdate_AfterSkippedTicks_CountedFromCurrentTick()
+	{
+		WorldMock world = server.addSimpleWorld("world");
+		server.getScheduler().performTicks(100);
+		world.scheduleBlockUpdate(0, 10, 0, 5);
+		assertEquals(105, world.getNextBlockUpdateTick());
+		server.getScheduler().performTicks(1);
+		assertEquals(1, world.getPendingBlockUpdates());
+		server.getScheduler().performTicks(4);
+		assertEquals(0, world.getPendingBlockUpdates());
+	}
+	
+	@Test
+	public void performTicks_BlockChanged_PhysicsEventsCalled()
+	{
+		WorldMock world = server.addSimpleWorld("world");
+		PhysicsListener listener = new PhysicsListener();
+		server.getPluginManager().registerEvents(listener, MockBukkit.createMockPlugin());
+		world.getBlockAt(0, 10, 0).setType(Material.SAND);
+		world.getBlockAt(0, 9, 0).setType(Material.STONE);
+		assertEquals(0, listener.events);
+		
+		server.getScheduler().performTicks(1);
+		assertEquals(12, listener.events);
+		
+		listener.cancel = true;
+		world.getBlockAt(0, 9, 0).setType(Material.AIR);
+		server.getScheduler().performTicks(10);
+		assertEquals(Material.SAND, world.getBlockAt(0, 10, 0).getType());
+		
+		listener.cancel = false;
+		world.getBlockAt(0, 9, 0).setType(Material.GLASS);
+		world.getBlockAt(0, 9, 0).setType(Material.AIR);
+		server.getScheduler().performTicks(10);
+		assertEquals(Material.AIR, world.getBlockAt(0, 10, 0).getType());
+		assertEquals(Material.SAND, world.getHighestBlockAt(0, 0).getRelative(0, -1, 0).getType());
+	}
+	
+	public static class PhysicsListener implements Listener
+	{
+		private int events;
+		private boolean cancel;
+		
+		@EventHandler
+		public void onBlockPhysics(BlockPhysicsEvent event)
+		{
+			events++;
+			event.setCancelled(cancel);
+		}
+	}
+	
+	/**
+	 * Generates bedrock at the bottom of every chunk and a stone pillar of a
+	 * random height in the corner of it.
+	 */
+	public static class PillarGenerator extends ChunkGenerator
+	{
+		@Override
+		public ChunkData generateChunkData(World world, Random random, int x, int z, BiomeGrid biome)
+		{
+			ChunkData data = createChunkData(world);
+			data.setRegion(0, 0, 0, 16, 1, 16, Material.BEDROCK);
+			data.setRegion(0, 1, 0, 1, 2 + random.nextInt(30), 1, Material.STONE);
+			return data;
+		}
+	}
 }
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
@@ -0,0 +1,148 @@
+package be.seeseemelk.mockbukkit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.bukkit.Material;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class WorldFixtureTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File write(int[] palette, int bits, long[] data) throws IOException
+	{
+		File file = folder.newFile();
+		WorldFixture.write(file, 256, 3, Material.GRASS, new long[] { 5L << 32 | 7 }, new int[] { 2 },
+				Collections.singletonList(new ChunkSection(palette, bits, data)));
+		return file;
+	}
+
+	@Test
+	public void readSection_ValidSection_BlocksRead() throws IOException
+	{
+		long[] data = new long[ChunkSection.getDataLength(4)];
+		data[0] = 1;
+		int stone = ChunkSection.getState(Material.STONE, (byte) 0);
+		try (WorldFixture fixture = WorldFixture.open(write(new int[] { 0, stone }, 4, data)))
+		{
+			ChunkSection section = fixture.readSection(5L << 32 | 7, 2);
+			assertEquals(stone, section.get(0, 0, 0));
+			assertEquals(0, section.get(1, 0, 0));
+			assertNull(fixture.readSection(5L << 32 | 7, 3));
+		}
+	}
+
+	@Test
+	public void readSection_IndexOutsidePalette_ExceptionNamesSection() throws IOException
+	{
+		long[] data = new long[ChunkSection.getDataLength(4)];
+		data[10] = 5;
+		try (WorldFixture fixture = WorldFixture.open(write(new int[] { 0, 1 << 8 }, 4, data)))
+		{
+			fixture.readSection(5L << 32 | 7, 2);
+			fail("Expected an IOException");
+		}
+		catch (IOException e)
+		{
+			assertTrue(e.getMessage(), e.getMessage().contains("Section 2 of chunk 5, 7"));
+		}
+	}
+
+	@Test
+	public void open_Truncated_IOException() throws IOException
+	{
+		byte[] bytes = Files.readAllBytes(write(new int[] { 0 }, 0, null).toPath());
+		for (int length = 0; length < bytes.length; length++)
+		{
+			File file = folder.newFile();
+			Files.write(file.toPath(), Arrays.copyOf(bytes, length));
+			try
+			{
+				WorldFixture.open(file).close();
+				fail("Expected an IOException for length " + length);
+			}
+			catch (IOException e)
+			{
+				// Expected
+			}
+		}
+	}
+
+	@Test
+	public void open_SectionOutsideWorld_ExceptionNamesSection() throws IOException
+	{
+		File file = write(new int[] { 0 }, 0, null);
+		byte[] bytes = Files.readAllBytes(file.toPath());
+		ByteBuffer.wrap(bytes).putInt(bytes.length - 12, 99);
+		Files.write(file.toPath(), bytes);
+		try
+		{
+			WorldFixture.open(file);
+			fail("Expected an IOException");
+		}
+		catch (IOException e)
+		{
+			assertTrue(e.getMessage(), e.getMessage().contains("Section 99 of chunk 5, 7"));
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void open_SectionOffsetInHeader_Exception() throws IOException
+	{
+		File file = write(new int[] { 0 }, 0, null);
+		byte[] bytes = Files.readAllBytes(file.toPath());
+		ByteBuffer.wrap(bytes).putInt(bytes.length - 8, 3);
+		Files.write(file.toPath(), bytes);
+		WorldFixture.open(file);
+	}
+
+	@Test(expected = IOException.class)
+	public void open_TrailerOutsideFile_Exception() throws IOException
+	{
+		File file = write(new int[] { 0 }, 0, null);
+		byte[] bytes = Files.readAllBytes(file.toPath());
+		ByteBuffer.wrap(bytes).putInt(bytes.length - 4, Integer.MAX_VALUE);
+		Files.write(file.toPath(), bytes);
+		WorldFixture.open(file);
+	}
+
+	@Test
+	public void readSection_PaletteLongerThanSection_ExceptionNamesSection() throws IOException
+	{
+		File file = write(new int[] { 0 }, 0, null);
+		byte[] bytes = Files.readAllBytes(file.toPath());
+		int offset = ByteBuffer.wrap(bytes).getInt(bytes.length - 8);
+		ByteBuffer.wrap(bytes).put(offset, (byte) 12).putShort(offset + 1, (short) 4000);
+		Files.write(file.toPath(), bytes);
+		try (WorldFixture fixture = WorldFixture.open(file))
+		{
+			fixture.readSection(5L << 32 | 7, 2);
+			fail("Expected an IOException");
+		}
+		catch (IOException e)
+		{
+			assertTrue(e.getMessage(), e.getMessage().contains("Section 2 of chunk 5, 7"));
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void readSection_Closed_Exception() throws IOException
+	{
+		WorldFixture fixture = WorldFixture.open(write(new int[] { 0 }, 0, null));
+		fixture.close();
+		fixture.readSection(5L << 32 | 7, 2);
+	}
+}
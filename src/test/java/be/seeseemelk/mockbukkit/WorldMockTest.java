@@ -1,14 +1,29 @@
 package be.seeseemelk.mockbukkit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
 
 import org.bukkit.Location;
 import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 public class WorldMockTest
 {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
 	@Test
 	public void getBlockAt_StandardWorld_DefaultBlocks()
 	{
@@ -29,6 +44,425 @@ public class WorldMockTest
 		assertEquals(Material.WOOD, world.getBlockAt(0, 10, 0).getType());
 	}
 	
+	@Test
+	public void getBlockAt_NegativeCoordinates_DefaultBlocks()
+	{
+		WorldMock world = new WorldMock(Material.DIRT, 3);
+		assertEquals(Material.BEDROCK, world.getBlockAt(-1, 0, -1).getType());
+		assertEquals(Material.DIRT, world.getBlockAt(-17, 3, -33).getType());
+		assertEquals(Material.AIR, world.getBlockAt(-100, 20, 100).getType());
+	}
+	
+	@Test
+	public void getBlockAt_BlockChanged_NeighboursUnchanged()
+	{
+		WorldMock world = new WorldMock();
+		world.getBlockAt(15, 10, 16).setType(Material.STONE);
+		assertEquals(Material.STONE, world.getBlockAt(15, 10, 16).getType());
+		assertEquals(Material.AIR, world.getBlockAt(16, 10, 16).getType());
+		assertEquals(Material.AIR, world.getBlockAt(15, 10, 15).getType());
+		assertEquals(Material.AIR, world.getBlockAt(15, 11, 16).getType());
+	}
+	
+	@SuppressWarnings("deprecation")
+	@Test
+	public void getBlockAt_DataChanged_DataStored()
+	{
+		WorldMock world = new WorldMock();
+		Block block = world.getBlockAt(1, 20, 1);
+		block.setType(Material.WOOL);
+		block.setData((byte) 5);
+		assertEquals(Material.WOOL, world.getBlockAt(1, 20, 1).getType());
+		assertEquals(5, world.getBlockAt(1, 20, 1).getData());
+	}
+	
+	@Test
+	public void getBlockAt_SamePosition_EqualBlocks()
+	{
+		WorldMock world = new WorldMock();
+		Block block = world.getBlockAt(5, 6, 7);
+		assertEquals(block, world.getBlockAt(5, 6, 7));
+		assertEquals(block.hashCode(), world.getBlockAt(5, 6, 7).hashCode());
+		assertNotEquals(block, world.getBlockAt(5, 6, 8));
+		assertEquals(5, block.getX());
+		assertEquals(6, block.getY());
+		assertEquals(7, block.getZ());
+		assertSame(world, block.getWorld());
+	}
+	
+	@Test
+	public void getBlockAt_LargeAreaRead_NothingStored()
+	{
+		WorldMock world = new WorldMock();
+		for (int x = -100; x < 100; x++)
+		{
+			for (int z = -100; z < 100; z++)
+			{
+				assertEquals(Material.GRASS, world.getBlockAt(x, 4, z).getType());
+				assertEquals(Material.AIR, world.getBlockAt(x, 5, z).getType());
+			}
+		}
+		assertEquals(0, world.getStoredSectionCount());
+	}
+	
+	@Test
+	public void setType_SameAsDefault_NothingStored()
+	{
+		WorldMock world = new WorldMock();
+		world.getBlockAt(0, 0, 0).setType(Material.BEDROCK);
+		world.getBlockAt(0, 50, 0).setType(Material.AIR);
+		assertEquals(0, world.getStoredSectionCount());
+		world.getBlockAt(0, 50, 0).setType(Material.STONE);
+		assertEquals(1, world.getStoredSectionCount());
+		assertEquals(Material.STONE, world.getBlockAt(0, 50, 0).getType());
+		assertEquals(Material.AIR, world.getBlockAt(0, 49, 0).getType());
+		assertEquals(Material.GRASS, world.getBlockAt(0, 4, 0).getType());
+	}
+	
+	@SuppressWarnings("deprecation")
+	@Test
+	public void getBlockTypeIdAt_BlockChanged_IdOfMaterial()
+	{
+		WorldMock world = new WorldMock();
+		world.getBlockAt(3, 10, -3).setType(Material.STONE);
+		assertEquals(Material.STONE.getId(), world.getBlockTypeIdAt(3, 10, -3));
+		assertEquals(Material.AIR.getId(), world.getBlockTypeIdAt(3, 11, -3));
+	}
+	
+	@Test
+	public void fill_Box_OnlyBoxChanged()
+	{
+		WorldMock world = new WorldMock();
+		world.fill(-20, 10, 40, 20, 40, -3, Material.STONE);
+		assertEquals(Material.STONE, world.getBlockAt(-20, 10, -3).getType());
+		assertEquals(Material.STONE, world.getBlockAt(20, 40, 40).getType());
+		assertEquals(Material.STONE, world.getBlockAt(0, 25, 16).getType());
+		assertEquals(Material.AIR, world.getBlockAt(-21, 10, 0).getType());
+		assertEquals(Material.AIR, world.getBlockAt(21, 10, 0).getType());
+		assertEquals(Material.AIR, world.getBlockAt(0, 9, 0).getType());
+		assertEquals(Material.AIR, world.getBlockAt(0, 41, 0).getType());
+		assertEquals(Material.AIR, world.getBlockAt(0, 20, 41).getType());
+		assertEquals(Material.AIR, world.getBlockAt(0, 20, -4).getType());
+	}
+	
+	@Test
+	public void getHighestBlockYAt_DefaultWorld_AboveGrass()
+	{
+		WorldMock world = new WorldMock(Material.DIRT, 3);
+		assertEquals(4, world.getHighestBlockYAt(10, -20));
+		assertEquals(0, world.getStoredSectionCount());
+		Block block = world.getHighestBlockAt(new Location(world, 10, 50, -20));
+		assertEquals(4, block.getY());
+		assertEquals(Material.AIR, block.getType());
+	}
+	
+	@Test
+	public void getHighestBlockYAt_BlocksPlacedAndRemoved_HeightUpdated()
+	{
+		WorldMock world = new WorldMock(Material.DIRT, 3);
+		world.getBlockAt(1, 3, 1).setType(Material.STONE);
+		assertEquals(4, world.getHighestBlockYAt(1, 1));
+		world.getBlockAt(1, 20, 1).setType(Material.STONE);
+		world.getBlockAt(1, 40, 1).setType(Material.STONE);
+		assertEquals(41, world.getHighestBlockYAt(1, 1));
+		assertEquals(4, world.getHighestBlockYAt(2, 1));
+		world.getBlockAt(1, 40, 1).setType(Material.AIR);
+		assertEquals(21, world.getHighestBlockYAt(1, 1));
+		world.getBlockAt(1, 10, 1).setType(Material.GLASS);
+		world.getBlockAt(1, 20, 1).setType(Material.AIR);
+		assertEquals(11, world.getHighestBlockYAt(1, 1));
+		world.getBlockAt(1, 10, 1).setType(Material.AIR);
+		world.getBlockAt(1, 3, 1).setType(Material.AIR);
+		assertEquals(3, world.getHighestBlockYAt(1, 1));
+	}
+	
+	@Test
+	public void getHighestBlockYAt_FilledAndRestored_HeightUpdated()
+	{
+		WorldMock world = new WorldMock(Material.DIRT, 3);
+		assertEquals(4, world.getHighestBlockYAt(5, 5));
+		WorldSnapshot snapshot = world.snapshot();
+		world.fill(0, 0, 0, 20, 30, 20, Material.STONE);
+		assertEquals(31, world.getHighestBlockYAt(5, 5));
+		assertEquals(31, world.getHighestBlockYAt(20, 20));
+		world.fill(0, 0, 0, 20, 30, 20, Material.AIR);
+		assertEquals(0, world.getHighestBlockYAt(5, 5));
+		world.restore(snapshot);
+		assertEquals(4, world.getHighestBlockYAt(5, 5));
+	}
+	
+	@Test
+	public void getHighestBlockAt_FullColumn_TopBlock()
+	{
+		WorldMock world = new WorldMock(Material.DIRT, 3);
+		world.fill(0, 0, 0, 0, world.getMaxHeight() - 1, 0, Material.STONE);
+		assertEquals(world.getMaxHeight(), world.getHighestBlockYAt(0, 0));
+		assertEquals(world.getMaxHeight() - 1, world.getHighestBlockAt(0, 0).getY());
+	}
+	
+	@Test
+	public void setType_BlockChanged_NeighboursUpdatedNextTick()
+	{
+		WorldMock world = new WorldMock(Material.DIRT, 64, 3);
+		world.setPhysicsEnabled(true);
+		world.getBlockAt(0, 10, 0).setType(Material.STONE);
+		assertEquals(6, world.getPendingBlockUpdates());
+		assertEquals(1, world.getNextBlockUpdateTick());
+		assertEquals(0, world.performBlockUpdates(0));
+		assertEquals(6, world.performBlockUpdates(1));
+		assertEquals(0, world.getPendingBlockUpdates());
+	}
+	
+	@Test
+	public void createBlock_Coordinate_NothingStored()
+	{
+		WorldMock world = new WorldMock(Material.DIRT, 64, 3);
+		Block block = world.createBlock(new Coordinate(20, 2, -5));
+		assertEquals(Material.DIRT, block.getType());
+		assertEquals(0, world.getStoredSectionCount());
+		assertEquals(0, world.getStoredColumnCount());
+	}
+	
+	@Test
+	public void setType_StandaloneWorld_NoUpdates()
+	{
+		WorldMock world = new WorldMock(Material.DIRT, 64, 3);
+		assertFalse(world.isPhysicsEnabled());
+		world.getBlockAt(0, 10, 0).setType(Material.SAND);
+		assertEquals(0, world.getPendingBlockUpdates());
+		world.performBlockUpdates(5);
+		assertEquals(Material.SAND, world.getBlockAt(0, 10, 0).getType());
+	}
+	
+	@Test
+	public void setType_WithoutPhysics_NoUpdates()
+	{
+		WorldMock world = new WorldMock(Material.DIRT, 64, 3);
+		world.setPhysicsEnabled(true);
+		world.getBlockAt(0, 10, 0).setType(Material.SAND, false);
+		assertEquals(0, world.getPendingBlockUpdates());
+		world.performBlockUpdates(5);
+		assertEquals(Material.SAND, world.getBlockAt(0, 10, 0).getType());
+	}
+	
+	@Test
+	public void setType_SandInAir_FallsAfterDelay()
+	{
+		WorldMock world = new WorldMock(Material.DIRT, 64, 3);
+		world.setPhysicsEnabled(true);
+		world.getBlockAt(0, 10, 0).setType(Material.SAND);
+		world.performBlockUpdates(1);
+		assertEquals(Material.SAND, world.getBlockAt(0, 10, 0).getType());
+		world.performBlockUpdates(2);
+		assertEquals(Material.AIR, world.getBlockAt(0, 10, 0).getType());
+		assertEquals(Material.SAND, world.getBlockAt(0, 4, 0).getType());
+	}
+	
+	@Test
+	public void setType_SupportRemoved_StackFallsOverSeveralTicks()
+	{
+		WorldMock world = new WorldMock(Material.DIRT, 64, 3);
+		world.setPhysicsEnabled(false);
+		world.getBlockAt(0, 4, 0).setType(Material.STONE);
+		world.fill(0, 5, 0, 0, 7, 0, Material.SAND);
+		world.setPhysicsEnabled(true);
+		world.getBlockAt(0, 4, 0).setType(Material.AIR);
+		for (long tick = 1; tick <= 20; tick++)
+		{
+			world.performBlockUpdates(tick);
+		}
+		assertEquals(Material.SAND, world.getBlockAt(0, 4, 0).getType());
+		assertEquals(Material.SAND, world.getBlockAt(0, 5, 0).getType());
+		assertEquals(Material.SAND, world.getBlockAt(0, 6, 0).getType());
+		assertEquals(Material.AIR, world.getBlockAt(0, 7, 0).getType());
+	}
+	
+	@Test
+	public void performBlockUpdates_MaxPerTick_RestOnNextTick()
+	{
+		WorldMock world = new WorldMock(Material.DIRT, 64, 3);
+		world.setPhysicsEnabled(true);
+		world.setMaxBlockUpdatesPerTick(4);
+		world.getBlockAt(0, 10, 0).setType(Material.STONE);
+		world.getBlockAt(10, 10, 0).setType(Material.STONE);
+		assertEquals(4, world.performBlockUpdates(1));
+		assertEquals(8, world.getPendingBlockUpdates());
+		assertEquals(1, world.getNextBlockUpdateTick());
+		assertEquals(4, world.performBlockUpdates(2));
+		assertEquals(4, world.performBlockUpdates(3));
+		assertEquals(0, world.performBlockUpdates(4));
+	}
+	
+	@Test
+	public void copyRegion_Unaligned_BlocksCopied()
+	{
+		WorldMock world = new WorldMock();
+		world.getBlockAt(5, 10, 7).setType(Material.STONE);
+		BlockRegion region = world.copyRegion(3, 3, 3, 40, 20, 40);
+		assertEquals(38, region.getWidth());
+		assertEquals(18, region.getHeight());
+		assertEquals(38, region.getLength());
+		assertEquals(Material.GRASS, region.getType(0, 1, 0));
+		assertEquals(Material.AIR, region.getType(0, 2, 0));
+		assertEquals(Material.STONE, region.getType(2, 7, 4));
+	}
+	
+	@Test
+	public void pasteRegion_Unaligned_BlocksPasted()
+	{
+		WorldMock world = new WorldMock();
+		world.fill(0, 10, 0, 2, 12, 2, Material.STONE);
+		world.getBlockAt(1, 11, 1).setType(Material.GLASS);
+		BlockRegion region = world.copyRegion(0, 10, 0, 2, 12, 2);
+		world.pasteRegion(region, 14, 30, -1);
+		assertEquals(Material.STONE, world.getBlockAt(14, 30, -1).getType());
+		assertEquals(Material.GLASS, world.getBlockAt(15, 31, 0).getType());
+		assertEquals(Material.STONE, world.getBlockAt(16, 32, 1).getType());
+		assertEquals(Material.AIR, world.getBlockAt(17, 32, 1).getType());
+	}
+	
+	@Test
+	public void pasteRegion_Aligned_CopiesAreIndependent()
+	{
+		WorldMock world = new WorldMock();
+		world.fill(0, 16, 0, 31, 47, 31, Material.STONE);
+		world.getBlockAt(3, 20, 3).setType(Material.GLASS);
+		BlockRegion region = world.copyRegion(0, 16, 0, 31, 47, 31);
+		world.getBlockAt(3, 20, 3).setType(Material.DIRT);
+		world.pasteRegion(region, 64, 16, -32);
+		assertEquals(Material.GLASS, world.getBlockAt(67, 20, -29).getType());
+		assertEquals(Material.STONE, world.getBlockAt(95, 47, -1).getType());
+		world.getBlockAt(67, 20, -29).setType(Material.SAND);
+		assertEquals(Material.GLASS, region.getType(3, 4, 3));
+		assertEquals(Material.DIRT, world.getBlockAt(3, 20, 3).getType());
+	}
+	
+	@Test
+	public void restore_BlocksChanged_BlocksRestored()
+	{
+		WorldMock world = new WorldMock();
+		world.fill(0, 10, 0, 40, 20, 40, Material.STONE);
+		WorldSnapshot snapshot = world.snapshot();
+		world.getBlockAt(5, 15, 5).setType(Material.GLASS);
+		world.getBlockAt(100, 15, 100).setType(Material.GLASS);
+		world.fill(0, 10, 0, 15, 25, 15, Material.DIRT);
+		world.restore(snapshot);
+		assertEquals(Material.STONE, world.getBlockAt(5, 15, 5).getType());
+		assertEquals(Material.STONE, world.getBlockAt(0, 10, 0).getType());
+		assertEquals(Material.AIR, world.getBlockAt(0, 25, 0).getType());
+		assertEquals(Material.AIR, world.getBlockAt(100, 15, 100).getType());
+	}
+	
+	@Test
+	public void restore_Twice_BlocksRestoredBothTimes()
+	{
+		WorldMock world = new WorldMock();
+		world.getBlockAt(1, 10, 1).setType(Material.STONE);
+		WorldSnapshot snapshot = world.snapshot();
+		world.getBlockAt(1, 10, 1).setType(Material.GLASS);
+		world.restore(snapshot);
+		world.getBlockAt(1, 10, 1).setType(Material.DIRT);
+		assertEquals(Material.DIRT, world.getBlockAt(1, 10, 1).getType());
+		world.restore(snapshot);
+		assertEquals(Material.STONE, world.getBlockAt(1, 10, 1).getType());
+	}
+	
+	@Test
+	public void restore_OlderSnapshot_BlocksRestored()
+	{
+		WorldMock world = new WorldMock();
+		world.getBlockAt(1, 10, 1).setType(Material.STONE);
+		WorldSnapshot first = world.snapshot();
+		world.getBlockAt(1, 10, 1).setType(Material.GLASS);
+		world.getBlockAt(50, 10, 1).setType(Material.GLASS);
+		WorldSnapshot second = world.snapshot();
+		world.restore(first);
+		assertEquals(Material.STONE, world.getBlockAt(1, 10, 1).getType());
+		assertEquals(Material.AIR, world.getBlockAt(50, 10, 1).getType());
+		world.restore(second);
+		assertEquals(Material.GLASS, world.getBlockAt(1, 10, 1).getType());
+		assertEquals(Material.GLASS, world.getBlockAt(50, 10, 1).getType());
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void restore_SnapshotOfOtherWorld_Exception()
+	{
+		new WorldMock().restore(new WorldMock().snapshot());
+	}
+	
+	@Test
+	public void loadFixture_SavedWorld_SameBlocks() throws IOException
+	{
+		WorldMock world = new WorldMock(Material.DIRT, 64, 3);
+		world.fill(0, 10, 0, 40, 20, 40, Material.STONE);
+		world.getBlockAt(5, 15, 5).setType(Material.GLASS);
+		world.getBlockAt(-100, 2, 300).setType(Material.GOLD_BLOCK);
+		File file = folder.newFile();
+		world.saveFixture(file);
+		
+		WorldMock loaded = WorldMock.loadFixture(file);
+		assertEquals(64, loaded.getMaxHeight());
+		assertEquals(0, loaded.getStoredSectionCount());
+		assertEquals(Material.GLASS, loaded.getBlockAt(5, 15, 5).getType());
+		assertEquals(Material.STONE, loaded.getBlockAt(40, 20, 40).getType());
+		assertEquals(Material.AIR, loaded.getBlockAt(41, 20, 40).getType());
+		assertEquals(Material.GOLD_BLOCK, loaded.getBlockAt(-100, 2, 300).getType());
+		assertEquals(Material.DIRT, loaded.getBlockAt(-100, 3, 300).getType());
+		assertEquals(Material.DIRT, loaded.getBlockAt(1000, 3, 1000).getType());
+		assertEquals(21, loaded.getHighestBlockYAt(5, 5));
+		assertEquals(4, loaded.getHighestBlockYAt(41, 40));
+		assertEquals(4, loaded.getHighestBlockYAt(1000, 1000));
+	}
+	
+	@Test
+	public void loadFixture_ModifiedAndSavedAgain_ChangesKept() throws IOException
+	{
+		WorldMock world = new WorldMock();
+		world.getBlockAt(1, 10, 1).setType(Material.STONE);
+		world.getBlockAt(100, 10, 1).setType(Material.STONE);
+		File first = folder.newFile();
+		world.saveFixture(first);
+		
+		WorldMock loaded = WorldMock.loadFixture(first);
+		loaded.getBlockAt(1, 11, 1).setType(Material.GLASS);
+		File second = folder.newFile();
+		loaded.saveFixture(second);
+		
+		WorldMock reloaded = WorldMock.loadFixture(second);
+		assertEquals(Material.STONE, reloaded.getBlockAt(1, 10, 1).getType());
+		assertEquals(Material.GLASS, reloaded.getBlockAt(1, 11, 1).getType());
+		assertEquals(Material.STONE, reloaded.getBlockAt(100, 10, 1).getType());
+	}
+	
+	@Test
+	public void restore_FixtureWorld_FixtureBlocksRestored() throws IOException
+	{
+		WorldMock world = new WorldMock();
+		world.getBlockAt(1, 10, 1).setType(Material.STONE);
+		File file = folder.newFile();
+		world.saveFixture(file);
+		
+		WorldMock loaded = WorldMock.loadFixture(file);
+		WorldSnapshot snapshot = loaded.snapshot();
+		loaded.getBlockAt(1, 10, 1).setType(Material.GLASS);
+		loaded.restore(snapshot);
+		assertEquals(Material.STONE, loaded.getBlockAt(1, 10, 1).getType());
+	}
+	
+	@Test(expected = IOException.class)
+	public void loadFixture_NotAFixture_Exception() throws IOException
+	{
+		File file = folder.newFile();
+		Files.write(file.toPath(), new byte[64]);
+		WorldMock.loadFixture(file);
+	}
+	
+	@Test(expected = ArrayIndexOutOfBoundsException.class)
+	public void getBlockAt_AboveHeight_Exception()
+	{
+		new WorldMock(Material.DIRT, 64, 3).getBlockAt(0, 64, 0);
+	}
+	
 	@Test
 	public void getSpawnLocation_Default_JustAboveDirt()
 	{
@@ -54,4 +488,73 @@ public class WorldMockTest
 		assertEquals(spawn.getBlockY(), world.getSpawnLocation().getBlockY());
 		assertEquals(spawn.getBlockZ(), world.getSpawnLocation().getBlockZ());
 	}
+
+	@Test
+	public void setJournal_BlocksChanged_Recorded()
+	{
+		WorldMock world = new WorldMock(Material.DIRT, 3);
+		world.setPhysicsEnabled(false);
+		BlockChangeJournal journal = new BlockChangeJournal(1024);
+		world.setJournal(journal);
+		long checkpoint = journal.checkpoint();
+		world.getBlockAt(20, 5, -3).setType(Material.STONE);
+		world.fill(0, 1, 0, 1, 2, 1, Material.STONE);
+		world.fill(0, 1, 0, 1, 1, 1, Material.GLASS);
+		List<BlockChangeJournal.Change> changes = journal.diff(checkpoint);
+		assertEquals(9, changes.size());
+		assertEquals(Material.AIR, changes.get(0).getOldType());
+		assertEquals(Material.STONE, changes.get(0).getNewType());
+		assertEquals(Material.DIRT, changes.get(1).getOldType());
+		assertEquals(Material.GLASS, changes.get(1).getNewType());
+		assertEquals(2, changes.get(5).getY());
+		assertEquals(Material.DIRT, changes.get(5).getOldType());
+		assertEquals(Material.STONE, changes.get(5).getNewType());
+	}
+
+	@Test
+	public void setJournal_SnapshotRestored_ChangesUndone()
+	{
+		WorldMock world = new WorldMock(Material.DIRT, 3);
+		world.setPhysicsEnabled(false);
+		BlockChangeJournal journal = new BlockChangeJournal(1 << 16);
+		world.setJournal(journal);
+		WorldSnapshot snapshot = world.snapshot();
+		long checkpoint = journal.checkpoint();
+		world.getBlockAt(100, 10, 100).setType(Material.STONE);
+		world.fill(0, 0, 0, 15, 15, 15, Material.GLASS);
+		assertEquals(4097, journal.diff(checkpoint).size());
+		world.restore(snapshot);
+		assertTrue(journal.diff(checkpoint).isEmpty());
+
+		long restored = journal.checkpoint();
+		world.fill(0, 0, 0, 15, 15, 15, Material.GLASS);
+		long filled = journal.checkpoint();
+		world.restore(world.snapshot());
+		world.restore(snapshot);
+		assertEquals(4096, journal.diff(restored, filled).size());
+		assertEquals(4096, journal.diff(filled).size());
+		assertTrue(journal.diff(restored).isEmpty());
+	}
+
+	@Test
+	public void setJournal_ChunkUnloadedAndChangedAgain_RestoreUndoesChanges()
+	{
+		WorldMock world = new WorldMock(Material.DIRT, 3);
+		world.setPhysicsEnabled(false);
+		BlockChangeJournal journal = new BlockChangeJournal(1024);
+		world.setJournal(journal);
+		WorldSnapshot snapshot = world.snapshot();
+		long checkpoint = journal.checkpoint();
+		world.getBlockAt(100, 10, 100).setType(Material.STONE);
+		assertTrue(world.unloadChunk(6, 6, false));
+		world.getBlockAt(100, 10, 100).setType(Material.GLASS);
+		long changed = journal.checkpoint();
+		world.restore(snapshot);
+		List<BlockChangeJournal.Change> changes = journal.diff(changed);
+		assertEquals(1, changes.size());
+		assertEquals(Material.GLASS, changes.get(0).getOldType());
+		assertEquals(Material.AIR, changes.get(0).getNewType());
+		assertTrue(journal.diff(checkpoint).isEmpty());
+		assertEquals(Material.AIR, world.getBlockAt(100, 10, 100).getType());
+	}
 }
@@ -3,9 +3,14 @@ package be.seeseemelk.mockbukkit.block;
 import static org.junit.Assert.*;
 
 import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.material.MaterialData;
 import org.junit.Before;
 import org.junit.Test;
 
+import be.seeseemelk.mockbukkit.WorldMock;
+
 public class BlockMockTest
 {
 	private BlockMock block;
@@ -35,4 +40,54 @@ public class BlockMockTest
 		assertNotNull(block.getState());
 	}
 
+	@Test
+	public void getState_Twice_SameState()
+	{
+		assertSame(block.getState(), block.getState());
+	}
+
+	@Test
+	@SuppressWarnings("deprecation")
+	public void getState_SamePositionOfWorld_SameState()
+	{
+		WorldMock world = new WorldMock();
+		MaterialData data = new MaterialData(Material.WOOL, (byte) 3);
+		world.getBlockAt(0, 10, 0).getState().setData(data);
+		assertSame(data, world.getBlockAt(0, 10, 0).getState().getData());
+		assertNotSame(world.getBlockAt(0, 10, 0).getState(), world.getBlockAt(1, 10, 0).getState());
+	}
+	
+	@Test
+	public void getState_WorldBlockChanged_NewState()
+	{
+		WorldMock world = new WorldMock();
+		Block worldBlock = world.getBlockAt(0, 10, 0);
+		BlockState state = worldBlock.getState();
+		worldBlock.setType(Material.STONE);
+		assertNotSame(state, world.getBlockAt(0, 10, 0).getState());
+	}
+	
+	@Test
+	@SuppressWarnings("deprecation")
+	public void setData_Stone_TypeKept()
+	{
+		block.setType(Material.STONE);
+		block.setData((byte) 3);
+		assertEquals(Material.STONE, block.getType());
+		assertEquals(3, block.getData());
+		block.setType(Material.WOOL);
+		assertEquals(3, block.getData());
+	}
+	
+	@Test
+	public void getLightLevel_NextToGlowstone_LightOfWorld()
+	{
+		WorldMock world = new WorldMock(Material.DIRT, 64, 3);
+		world.getBlockAt(0, 5, 0).setType(Material.GLOWSTONE);
+		BlockMock next = (BlockMock) world.getBlockAt(1, 5, 0);
+		assertEquals(14, next.getLightFromBlocks());
+		assertEquals(15, next.getLightFromSky());
+		assertEquals(15, next.getLightLevel());
+	}
+
 }
@@ -8,16 +8,24 @@ import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 import org.bukkit.GameMode;
 import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.block.Block;
 import org.bukkit.event.player.PlayerTeleportEvent.TeleportCause;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
 import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.ServerMock;
 import be.seeseemelk.mockbukkit.WorldMock;
 
 public class PlayerMockTest
@@ -236,28 +244,83 @@ public class PlayerMockTest
 		player.assertGameMode(GameMode.CREATIVE);
 	}
 	
+	@Test
+	public void getNearbyEntities_OtherPlayersAround_OnlyNearbyOthers()
+	{
+		ServerMock server = MockBukkit.getMock();
+		server.addPlayer(player);
+		server.addPlayer();
+		server.addPlayer();
+		PlayerMock near = server.getPlayer(1);
+		PlayerMock far = server.getPlayer(2);
+		Location location = player.getLocation();
+		near.teleport(location.clone().add(3, 0, 3));
+		far.teleport(location.clone().add(300, 0, 0));
+		
+		assertEquals(Collections.singletonList(near), player.getNearbyEntities(5, 5, 5));
+		assertEquals(3, player.getWorld().getEntities().size());
+		assertEquals(Arrays.asList(player, near), ((WorldMock) player.getWorld()).getNearbyEntities(location, 5));
+		
+		far.teleport(location.clone().add(1, 0, 0));
+		assertEquals(Arrays.asList(near, far), player.getNearbyEntities(5, 5, 5));
+	}
+	
+	@Test
+	public void teleport_OtherWorld_MovedToWorld()
+	{
+		ServerMock server = MockBukkit.getMock();
+		server.addPlayer(player);
+		WorldMock other = server.addSimpleWorld("other");
+		player.teleport(new Location(other, 0, 10, 0));
+		assertEquals(Collections.singletonList(player), other.getPlayers());
+		assertEquals(Collections.emptyList(), ((WorldMock) server.getWorld("world")).getPlayers());
+	}
+	
+	@Test
+	public void teleport_NeverAddedToWorld_AddedToDestination()
+	{
+		ServerMock server = MockBukkit.getMock();
+		WorldMock other = server.addSimpleWorld("other");
+		Location destination = new Location(other, 0, 10, 0);
+		player.teleport(destination);
+		assertEquals(Collections.singletonList(player), other.getNearbyEntities(destination, 2));
+	}
+	
+	@Test
+	public void getTargetBlock_LookingAtWall_WallReturned()
+	{
+		WorldMock world = (WorldMock) player.getWorld();
+		world.fill(5, 0, -3, 5, 10, 3, Material.STONE);
+		player.teleport(new Location(world, 0.5, 5, 0.5, -90, 0));
+		
+		Block target = player.getTargetBlock(null, 50);
+		assertEquals(5, target.getX());
+		assertEquals(6, target.getY());
+		assertEquals(Material.STONE, target.getType());
+		
+		List<Block> lastTwo = player.getLastTwoTargetBlocks(null, 50);
+		assertEquals(2, lastTwo.size());
+		assertEquals(4, lastTwo.get(0).getX());
+		assertEquals(target, lastTwo.get(1));
+		assertEquals(6, player.getLineOfSight(null, 50).size());
+	}
+	
+	@Test
+	public void getTargetBlock_TransparentWall_LooksThrough()
+	{
+		WorldMock world = (WorldMock) player.getWorld();
+		world.fill(5, 0, -3, 5, 10, 3, Material.GLASS);
+		world.fill(8, 0, -3, 8, 10, 3, Material.STONE);
+		player.teleport(new Location(world, 0.5, 5, 0.5, -90, 0));
+		Set<Material> transparent = EnumSet.of(Material.AIR, Material.GLASS);
+		assertEquals(8, player.getTargetBlock(transparent, 50).getX());
+	}
+	
+	@Test
+	public void getTargetBlock_NothingInRange_LastBlockInRange()
+	{
+		player.teleport(new Location(player.getWorld(), 0.5, 50, 0.5, -90, 0));
+		assertEquals(Material.AIR, player.getTargetBlock(null, 10).getType());
+		assertEquals(10, player.getTargetBlock(null, 10).getX());
+	}
 }
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
-
@@ -0,0 +1,57 @@
+package be.seeseemelk.mockbukkit.generator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.bukkit.Material;
+import org.bukkit.material.MaterialData;
+import org.junit.Test;
+
+public class ChunkDataMockTest
+{
+	@Test
+	public void getType_NothingSet_Air()
+	{
+		ChunkDataMock data = new ChunkDataMock(64);
+		assertEquals(64, data.getMaxHeight());
+		assertEquals(Material.AIR, data.getType(3, 10, 3));
+		assertNull(data.getSection(0));
+	}
+	
+	@Test
+	public void setBlock_InsideChunk_BlockSet()
+	{
+		ChunkDataMock data = new ChunkDataMock(64);
+		data.setBlock(3, 10, 4, Material.STONE);
+		data.setBlock(4, 10, 4, new MaterialData(Material.WOOL, (byte) 5));
+		assertEquals(Material.STONE, data.getType(3, 10, 4));
+		assertEquals(Material.WOOL, data.getTypeAndData(4, 10, 4).getItemType());
+		assertEquals(5, data.getData(4, 10, 4));
+		assertEquals(Material.AIR, data.getType(3, 11, 4));
+	}
+	
+	@Test
+	public void setBlock_OutsideChunk_Ignored()
+	{
+		ChunkDataMock data = new ChunkDataMock(64);
+		data.setBlock(16, 10, 0, Material.STONE);
+		data.setBlock(0, 64, 0, Material.STONE);
+		data.setBlock(0, -1, 0, Material.STONE);
+		for (int sectionY = 0; sectionY < 4; sectionY++)
+		{
+			assertNull(data.getSection(sectionY));
+		}
+	}
+	
+	@Test
+	public void setRegion_AcrossSections_MaximumExclusive()
+	{
+		ChunkDataMock data = new ChunkDataMock(64);
+		data.setRegion(0, 10, 0, 16, 40, 8, Material.STONE);
+		assertEquals(Material.STONE, data.getType(0, 10, 0));
+		assertEquals(Material.STONE, data.getType(15, 39, 7));
+		assertEquals(Material.AIR, data.getType(15, 40, 7));
+		assertEquals(Material.AIR, data.getType(15, 39, 8));
+		assertEquals(Material.AIR, data.getType(0, 9, 0));
+	}
+}
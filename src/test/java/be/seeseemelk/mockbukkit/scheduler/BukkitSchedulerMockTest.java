@@ -1,9 +1,27 @@
 package be.seeseemelk.mockbukkit.scheduler;
 
 import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+import org.bukkit.scheduler.BukkitWorker;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -16,6 +34,12 @@ public class BukkitSchedulerMockTest
 	{
 		scheduler = new BukkitSchedulerMock();
 	}
+	
+	@After
+	public void tearDown()
+	{
+		scheduler.shutdown();
+	}
 
 	@Test
 	public void runTask()
@@ -44,5 +68,509 @@ public class BukkitSchedulerMockTest
 		scheduler.performTicks(20L);
 		assertTrue(executed.get());
 	}
+	
+	@Test
+	public void runTaskLater_ManyTasks_RunOnTheirTick()
+	{
+		AtomicInteger executed = new AtomicInteger();
+		for (int i = 1; i <= 1000; i++)
+		{
+			scheduler.runTaskLater(null, executed::incrementAndGet, i);
+		}
+		scheduler.performTicks(500L);
+		assertEquals(500, executed.get());
+		scheduler.performTicks(500L);
+		assertEquals(1000, executed.get());
+	}
+	
+	@Test
+	public void runTaskLater_Cancelled_NotExecuted()
+	{
+		AtomicBoolean executed = new AtomicBoolean(false);
+		scheduler.runTaskLater(null, () -> executed.set(true), 10L).cancel();
+		scheduler.performTicks(20L);
+		assertFalse(executed.get());
+	}
+	
+	@Test
+	public void runTask_ScheduledFromTask_RunsNextTick()
+	{
+		AtomicInteger executed = new AtomicInteger();
+		scheduler.runTask(null, () -> scheduler.runTask(null, executed::incrementAndGet));
+		scheduler.performOneTick();
+		assertEquals(0, executed.get());
+		scheduler.performOneTick();
+		assertEquals(1, executed.get());
+	}
+	
+	@Test
+	public void performTicks_LongRange_TasksRunOnTheirTick()
+	{
+		AtomicLong executedAt = new AtomicLong(-1);
+		scheduler.runTaskLater(null, () -> executedAt.set(scheduler.getCurrentTick()), 1_000_000L);
+		scheduler.performTicks(1_728_000L);
+		assertEquals(1_000_000L, executedAt.get());
+		assertEquals(1_728_000L, scheduler.getCurrentTick());
+	}
+	
+	@Test
+	public void performTicks_TickListener_CalledEveryTick()
+	{
+		AtomicInteger calls = new AtomicInteger();
+		scheduler.addTickListener(tick -> calls.incrementAndGet());
+		scheduler.performTicks(100L);
+		assertEquals(100, calls.get());
+	}
+	
+	@Test
+	public void performTicks_SparseTickListener_CalledOnRequestedTicks()
+	{
+		List<Long> ticks = new ArrayList<>();
+		scheduler.addTickListener(new TickListener()
+		{
+			@Override
+			public void onTick(long tick)
+			{
+				ticks.add(tick);
+			}
+			
+			@Override
+			public long getNextTick(long currentTick)
+			{
+				return (currentTick / 1000 + 1) * 1000;
+			}
+		});
+		scheduler.performTicks(3500L);
+		assertEquals(Arrays.asList(1000L, 2000L, 3000L), ticks);
+	}
+	
+	@Test
+	public void removeTickListener_Removed_NotCalled()
+	{
+		AtomicInteger calls = new AtomicInteger();
+		TickListener listener = tick -> calls.incrementAndGet();
+		scheduler.addTickListener(listener);
+		scheduler.performOneTick();
+		scheduler.removeTickListener(listener);
+		scheduler.performOneTick();
+		assertEquals(1, calls.get());
+	}
+	
+	@Test
+	public void runTaskTimer_Period_RunsEveryPeriod()
+	{
+		AtomicInteger executed = new AtomicInteger();
+		scheduler.runTaskTimer(null, executed::incrementAndGet, 10L, 5L);
+		scheduler.performTicks(9L);
+		assertEquals(0, executed.get());
+		scheduler.performOneTick();
+		assertEquals(1, executed.get());
+		scheduler.performTicks(5L);
+		assertEquals(2, executed.get());
+		scheduler.performTicks(50L);
+		assertEquals(12, executed.get());
+	}
+	
+	@Test
+	public void runTaskTimer_Cancelled_StopsRepeating()
+	{
+		AtomicInteger executed = new AtomicInteger();
+		BukkitTask task = scheduler.runTaskTimer(null, executed::incrementAndGet, 1L, 1L);
+		scheduler.performTicks(10L);
+		task.cancel();
+		scheduler.performTicks(10L);
+		assertEquals(10, executed.get());
+	}
+	
+	@Test
+	public void runTaskTimer_Throws_StillQueued()
+	{
+		AtomicInteger executed = new AtomicInteger();
+		BukkitTask task = scheduler.runTaskTimer(null, () -> {
+			if (executed.incrementAndGet() == 1)
+			{
+				throw new IllegalStateException();
+			}
+		}, 1L, 1L);
+		try
+		{
+			scheduler.performOneTick();
+			fail("Exception was not rethrown");
+		}
+		catch (IllegalStateException e)
+		{
+			// The exception of the task is passed on to the test.
+		}
+		assertTrue(scheduler.isQueued(task.getTaskId()));
+		scheduler.performTicks(5L);
+		assertEquals(6, executed.get());
+	}
+	
+	@Test
+	public void runTaskTimer_Repeating_SameTaskInstance()
+	{
+		ScheduledTask task = (ScheduledTask) scheduler.runTaskTimer(null, () -> {}, 1L, 3L);
+		scheduler.performOneTick();
+		assertEquals(4L, task.getScheduledTick());
+		scheduler.performTicks(3L);
+		assertEquals(7L, task.getScheduledTick());
+	}
+	
+	@Test
+	public void scheduleSyncRepeatingTask_Period_RunsEveryPeriod()
+	{
+		AtomicInteger executed = new AtomicInteger();
+		int id = scheduler.scheduleSyncRepeatingTask(null, executed::incrementAndGet, 0L, 2L);
+		assertTrue(id >= 0);
+		scheduler.performTicks(10L);
+		assertEquals(5, executed.get());
+	}
+	
+	@Test
+	public void scheduleSyncDelayedTask_Delay_RunsOnce()
+	{
+		AtomicInteger executed = new AtomicInteger();
+		scheduler.scheduleSyncDelayedTask(null, executed::incrementAndGet, 5L);
+		scheduler.performTicks(20L);
+		assertEquals(1, executed.get());
+	}
+	
+	@Test
+	public void runTaskAsynchronously_Task_RunsOnOtherThread() throws InterruptedException
+	{
+		AtomicReference<Thread> thread = new AtomicReference<>();
+		BukkitTask task = scheduler.runTaskAsynchronously(null, () -> thread.set(Thread.currentThread()));
+		assertFalse(task.isSync());
+		assertTrue(scheduler.waitAsyncTasksFinished(1000L));
+		assertNotNull(thread.get());
+		assertNotSame(Thread.currentThread(), thread.get());
+	}
+	
+	@Test
+	public void runTaskAsynchronously_TwoTasks_RunInParallel() throws InterruptedException
+	{
+		scheduler = new BukkitSchedulerMock(2);
+		CountDownLatch latch = new CountDownLatch(2);
+		AtomicBoolean bothRunning = new AtomicBoolean(true);
+		Runnable task = () -> {
+			latch.countDown();
+			try
+			{
+				bothRunning.compareAndSet(true, latch.await(5, TimeUnit.SECONDS));
+			}
+			catch (InterruptedException e)
+			{
+				bothRunning.set(false);
+			}
+		};
+		scheduler.runTaskAsynchronously(null, task);
+		scheduler.runTaskAsynchronously(null, task);
+		assertTrue(scheduler.waitAsyncTasksFinished(10000L));
+		assertTrue(bothRunning.get());
+	}
+	
+	@Test
+	public void getActiveWorkers_TaskRunning_ReportsWorker() throws InterruptedException
+	{
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		BukkitTask task = scheduler.runTaskAsynchronously(null, () -> {
+			started.countDown();
+			try
+			{
+				release.await();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		});
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		List<BukkitWorker> workers = scheduler.getActiveWorkers();
+		assertEquals(1, workers.size());
+		assertEquals(task.getTaskId(), workers.get(0).getTaskId());
+		assertNotSame(Thread.currentThread(), workers.get(0).getThread());
+		release.countDown();
+		assertTrue(scheduler.waitAsyncTasksFinished(1000L));
+		assertTrue(scheduler.getActiveWorkers().isEmpty());
+	}
+	
+	@Test
+	public void runTaskLaterAsynchronously_Delay_StartsAfterDelay() throws InterruptedException
+	{
+		AtomicBoolean executed = new AtomicBoolean(false);
+		scheduler.runTaskLaterAsynchronously(null, () -> executed.set(true), 10L);
+		scheduler.performTicks(9L);
+		assertTrue(scheduler.waitAsyncTasksFinished(1000L));
+		assertFalse(executed.get());
+		scheduler.performOneTick();
+		assertTrue(scheduler.waitAsyncTasksFinished(1000L));
+		assertTrue(executed.get());
+	}
+	
+	@Test
+	public void runTaskTimerAsynchronously_Period_RunsEveryPeriod() throws InterruptedException
+	{
+		AtomicInteger executed = new AtomicInteger();
+		scheduler.runTaskTimerAsynchronously(null, executed::incrementAndGet, 1L, 2L);
+		for (int i = 0; i < 10; i++)
+		{
+			scheduler.performOneTick();
+			assertTrue(scheduler.waitAsyncTasksFinished(1000L));
+		}
+		assertEquals(5, executed.get());
+	}
+	
+	@Test
+	public void runTaskTimerAsynchronously_SlowerThanPeriod_RunsNeverOverlap() throws InterruptedException
+	{
+		scheduler = new BukkitSchedulerMock(4);
+		AtomicInteger running = new AtomicInteger();
+		AtomicBoolean overlapped = new AtomicBoolean(false);
+		AtomicInteger executed = new AtomicInteger();
+		scheduler.runTaskTimerAsynchronously(null, () -> {
+			if (running.incrementAndGet() > 1)
+			{
+				overlapped.set(true);
+			}
+			try
+			{
+				Thread.sleep(20L);
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+			running.decrementAndGet();
+			executed.incrementAndGet();
+		}, 0L, 1L);
+		for (int i = 0; i < 10; i++)
+		{
+			scheduler.performOneTick();
+			Thread.sleep(5L);
+		}
+		assertTrue(scheduler.waitAsyncTasksFinished(1000L));
+		assertFalse(overlapped.get());
+		assertTrue(executed.get() > 0);
+	}
+	
+	@Test(expected = RuntimeException.class)
+	public void waitAsyncTasksFinished_TaskThrows_Rethrown() throws InterruptedException
+	{
+		scheduler.runTaskAsynchronously(null, () -> {
+			throw new IllegalStateException();
+		});
+		scheduler.waitAsyncTasksFinished(1000L);
+	}
+	
+	@Test
+	public void cancelTask_Queued_NotExecuted()
+	{
+		AtomicBoolean executed = new AtomicBoolean(false);
+		BukkitTask task = scheduler.runTaskLater(null, () -> executed.set(true), 5L);
+		assertTrue(scheduler.isQueued(task.getTaskId()));
+		scheduler.cancelTask(task.getTaskId());
+		assertTrue(task.isCancelled());
+		assertFalse(scheduler.isQueued(task.getTaskId()));
+		scheduler.performTicks(10L);
+		assertFalse(executed.get());
+	}
+	
+	@Test
+	public void isQueued_TaskFinished_False()
+	{
+		BukkitTask task = scheduler.runTask(null, () -> {});
+		scheduler.performOneTick();
+		assertFalse(scheduler.isQueued(task.getTaskId()));
+		assertTrue(scheduler.getPendingTasks().isEmpty());
+	}
+	
+	@Test
+	public void isCurrentlyRunning_InsideTask_True()
+	{
+		AtomicBoolean running = new AtomicBoolean(false);
+		AtomicInteger id = new AtomicInteger();
+		id.set(scheduler.runTask(null, () -> running.set(scheduler.isCurrentlyRunning(id.get()))).getTaskId());
+		assertFalse(scheduler.isCurrentlyRunning(id.get()));
+		scheduler.performOneTick();
+		assertTrue(running.get());
+		assertFalse(scheduler.isCurrentlyRunning(id.get()));
+	}
+	
+	@Test
+	public void cancelTasks_Plugin_OnlyTasksOfPluginCancelled()
+	{
+		Plugin plugin1 = mock(Plugin.class);
+		Plugin plugin2 = mock(Plugin.class);
+		AtomicInteger executed = new AtomicInteger();
+		for (int i = 0; i < 10; i++)
+		{
+			scheduler.runTaskLater(plugin1, () -> fail("Task should have been cancelled"), 5L);
+			scheduler.runTaskTimer(plugin1, () -> fail("Task should have been cancelled"), 1L, 1L);
+			scheduler.runTaskLater(plugin2, executed::incrementAndGet, 5L);
+		}
+		assertEquals(30, scheduler.getPendingTasks().size());
+		scheduler.cancelTasks(plugin1);
+		assertEquals(10, scheduler.getPendingTasks().size());
+		scheduler.performTicks(10L);
+		assertEquals(10, executed.get());
+	}
+	
+	@Test
+	public void cancelAllTasks_Tasks_NothingExecuted()
+	{
+		scheduler.runTaskLater(null, () -> fail("Task should have been cancelled"), 5L);
+		scheduler.runTaskTimer(null, () -> fail("Task should have been cancelled"), 1L, 1L);
+		scheduler.cancelAllTasks();
+		assertTrue(scheduler.getPendingTasks().isEmpty());
+		scheduler.performTicks(10L);
+	}
+	
+	@Test
+	public void cancel_ManyTasks_RemainingTasksStillRun()
+	{
+		AtomicInteger executed = new AtomicInteger();
+		List<BukkitTask> cancelled = new ArrayList<>();
+		for (int i = 0; i < 1000; i++)
+		{
+			cancelled.add(scheduler.runTaskLater(null, () -> fail("Task should have been cancelled"), 100L));
+			scheduler.runTaskLater(null, executed::incrementAndGet, 50L + i);
+		}
+		cancelled.forEach(BukkitTask::cancel);
+		scheduler.performTicks(2000L);
+		assertEquals(1000, executed.get());
+	}
+	
+	@Test
+	public void callSyncMethod_NextTick_Completed() throws Exception
+	{
+		Future<Integer> future = scheduler.callSyncMethod(null, () -> 5);
+		assertFalse(future.isDone());
+		scheduler.performOneTick();
+		assertTrue(future.isDone());
+		assertEquals(5, (int) future.get());
+		assertEquals(1L, ((SyncMethodFuture<Integer>) future).getLatencyTicks());
+	}
+	
+	@Test(expected = TimeoutException.class)
+	public void callSyncMethod_NoTick_TimesOut() throws Exception
+	{
+		scheduler.callSyncMethod(null, () -> 5).get(10, TimeUnit.MILLISECONDS);
+	}
+	
+	@Test
+	public void callSyncMethod_FromAsyncTask_CompletedByTickingThread() throws Exception
+	{
+		AtomicReference<Thread> mainThread = new AtomicReference<>();
+		AtomicReference<Thread> callThread = new AtomicReference<>();
+		scheduler.runTaskAsynchronously(null, () -> {
+			try
+			{
+				mainThread.set(scheduler.callSyncMethod(null, Thread::currentThread).get(5, TimeUnit.SECONDS));
+			}
+			catch (Exception e)
+			{
+				throw new RuntimeException(e);
+			}
+		});
+		while (!scheduler.waitAsyncTasksFinished(1L))
+		{
+			callThread.set(Thread.currentThread());
+			scheduler.performOneTick();
+		}
+		assertSame(callThread.get(), mainThread.get());
+	}
+	
+	@Test(expected = CancellationException.class)
+	public void callSyncMethod_TaskCancelled_FutureCancelled() throws Exception
+	{
+		Future<Integer> future = scheduler.callSyncMethod(null, () -> 5);
+		scheduler.cancelAllTasks();
+		assertTrue(future.isCancelled());
+		future.get();
+	}
+	
+	@Test
+	public void callSyncMethod_FutureCancelled_NotExecuted()
+	{
+		AtomicBoolean executed = new AtomicBoolean(false);
+		Future<Boolean> future = scheduler.callSyncMethod(null, () -> {
+			executed.set(true);
+			return true;
+		});
+		future.cancel(false);
+		assertTrue(scheduler.getPendingTasks().isEmpty());
+		scheduler.performOneTick();
+		assertFalse(executed.get());
+	}
+	
+	@Test(expected = IllegalStateException.class)
+	public void callSyncMethod_GetFromWithinTick_Throws() throws Throwable
+	{
+		scheduler.runTask(null, () -> {
+			try
+			{
+				scheduler.callSyncMethod(null, () -> 5).get();
+			}
+			catch (InterruptedException | ExecutionException e)
+			{
+				throw new RuntimeException(e);
+			}
+		});
+		scheduler.performOneTick();
+	}
+	
+	@Test
+	public void getProfiler_ProfilingDisabled_NothingRecorded()
+	{
+		scheduler.runTask(null, () -> {});
+		scheduler.performOneTick();
+		assertTrue(scheduler.getProfiler().getTaskClasses().isEmpty());
+	}
+	
+	@Test
+	public void getProfiler_ProfilingEnabled_TimingsPerPluginAndClass()
+	{
+		Plugin plugin = mock(Plugin.class);
+		when(plugin.getName()).thenReturn("TestPlugin");
+		Runnable task = () -> {};
+		scheduler.setProfilingEnabled(true);
+		scheduler.runTaskTimer(plugin, task, 1L, 1L);
+		scheduler.performTicks(10L);
+		
+		TaskProfiler profiler = scheduler.getProfiler();
+		assertEquals(10, profiler.getTimings(plugin).getCount());
+		assertEquals(10, profiler.getTimings(task.getClass()).getCount());
+		assertTrue(profiler.getTimings(plugin).getPercentileNanos(99) <= profiler.getTimings(plugin).getMaxNanos());
+		assertTrue(profiler.report().contains("TestPlugin: count=10"));
+	}
+	
+	@Test
+	public void scheduleBatch_StaggeredTasks_RunOnTheirTick()
+	{
+		List<Long> executedAt = new ArrayList<>();
+		List<Runnable> batch = new ArrayList<>();
+		for (int i = 0; i < 100; i++)
+		{
+			batch.add(() -> executedAt.add(scheduler.getCurrentTick()));
+		}
+		scheduler.runTaskLater(null, () -> executedAt.add(-1L), 50L);
+		List<BukkitTask> tasks = scheduler.scheduleBatch(null, batch, index -> 100 - index);
+		assertEquals(100, tasks.size());
+		assertEquals(101, scheduler.getPendingTasks().size());
+		assertTrue(scheduler.isQueued(tasks.get(0).getTaskId()));
+		
+		scheduler.performTicks(100L);
+		assertEquals(101, executedAt.size());
+		for (int i = 0; i < 49; i++)
+		{
+			assertEquals(i + 1, (long) executedAt.get(i));
+		}
+		assertEquals(-1L, (long) executedAt.get(49));
+		for (int i = 50; i < 101; i++)
+		{
+			assertEquals(i, (long) executedAt.get(i));
+		}
+	}
 
 }
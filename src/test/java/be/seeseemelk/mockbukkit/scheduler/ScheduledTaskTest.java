@@ -39,6 +39,16 @@ public class ScheduledTaskTest
 		assertEquals(false, task.isSync());
 	}
 	
+	@Test
+	public void isRepeating_Period_Repeating()
+	{
+		ScheduledTask task = new ScheduledTask(0, null, true, 0, 20, null);
+		assertEquals(20, task.getPeriod());
+		assertTrue(task.isRepeating());
+		task = new ScheduledTask(0, null, true, 0, null);
+		assertFalse(task.isRepeating());
+	}
+	
 	@Test
 	public void cancel()
 	{
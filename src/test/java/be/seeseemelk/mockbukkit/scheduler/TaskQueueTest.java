@@ -0,0 +1,122 @@
+package be.seeseemelk.mockbukkit.scheduler;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TaskQueueTest
+{
+	private TaskQueue queue;
+
+	@Before
+	public void setUp()
+	{
+		queue = new TaskQueue();
+	}
+
+	@Test
+	public void isEmpty_New_True()
+	{
+		assertTrue(queue.isEmpty());
+		assertNull(queue.peek());
+		assertNull(queue.poll());
+	}
+
+	@Test
+	public void poll_DifferentTicks_OrderedByTick()
+	{
+		queue.add(new ScheduledTask(0, null, true, 30, null));
+		queue.add(new ScheduledTask(1, null, true, 10, null));
+		queue.add(new ScheduledTask(2, null, true, 20, null));
+		assertEquals(3, queue.size());
+		assertEquals(10, queue.poll().getScheduledTick());
+		assertEquals(20, queue.poll().getScheduledTick());
+		assertEquals(30, queue.poll().getScheduledTick());
+		assertTrue(queue.isEmpty());
+	}
+
+	@Test
+	public void poll_SameTick_OrderedById()
+	{
+		for (int i = 99; i >= 0; i--)
+		{
+			queue.add(new ScheduledTask(i, null, true, 5, null));
+		}
+		for (int i = 0; i < 100; i++)
+		{
+			assertEquals(i, queue.poll().getTaskId());
+		}
+	}
+
+	@Test
+	public void pollDue_NotDue_Null()
+	{
+		queue.add(new ScheduledTask(0, null, true, 10, null));
+		assertNull(queue.pollDue(9));
+		assertEquals(1, queue.size());
+		assertNotNull(queue.pollDue(10));
+	}
+
+	@Test
+	public void pollDue_CancelledTask_Dropped()
+	{
+		ScheduledTask cancelled = new ScheduledTask(0, null, true, 5, null);
+		cancelled.cancel();
+		queue.add(cancelled);
+		queue.add(new ScheduledTask(1, null, true, 20, null));
+		assertNull(queue.pollDue(10));
+		assertEquals(1, queue.size());
+	}
+
+	@Test
+	public void clear_TasksAdded_Empty()
+	{
+		queue.add(new ScheduledTask(0, null, true, 5, null));
+		queue.add(new ScheduledTask(1, null, true, 6, null));
+		queue.clear();
+		assertTrue(queue.isEmpty());
+		assertNull(queue.peek());
+	}
+
+	@Test
+	public void addAll_LargeBatch_Ordered()
+	{
+		queue.add(new ScheduledTask(0, null, true, 50, null));
+		List<ScheduledTask> batch = new ArrayList<>();
+		for (int i = 1; i <= 100; i++)
+		{
+			batch.add(new ScheduledTask(i, null, true, 101 - i, null));
+		}
+		queue.addAll(batch);
+		assertEquals(101, queue.size());
+		long previous = Long.MIN_VALUE;
+		while (!queue.isEmpty())
+		{
+			long tick = queue.poll().getScheduledTick();
+			assertTrue(tick >= previous);
+			previous = tick;
+		}
+	}
+
+	@Test
+	public void addAll_SmallBatch_Ordered()
+	{
+		for (int i = 0; i < 100; i++)
+		{
+			queue.add(new ScheduledTask(i, null, true, 100 - i, null));
+		}
+		queue.addAll(Arrays.asList(new ScheduledTask(100, null, true, 0, null),
+				new ScheduledTask(101, null, true, 1000, null)));
+		assertEquals(0, queue.poll().getScheduledTick());
+		for (int i = 1; i <= 100; i++)
+		{
+			assertEquals(i, queue.poll().getScheduledTick());
+		}
+		assertEquals(1000, queue.poll().getScheduledTick());
+	}
+}
@@ -0,0 +1,71 @@
+package be.seeseemelk.mockbukkit.scheduler;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TickLoopTest
+{
+	private BukkitSchedulerMock scheduler;
+
+	@Before
+	public void setUp()
+	{
+		scheduler = new BukkitSchedulerMock();
+	}
+
+	@After
+	public void tearDown()
+	{
+		scheduler.shutdown();
+	}
+
+	@Test
+	public void startTicking_Running_TicksAtRate() throws InterruptedException
+	{
+		TickLoop loop = scheduler.startTicking(100);
+		assertTrue(loop.isRunning());
+		Thread.sleep(1500);
+		scheduler.stopTicking();
+		assertFalse(loop.isRunning());
+		assertEquals(150, loop.getTicks(), 30);
+		assertEquals(loop.getTicks(), scheduler.getCurrentTick());
+		assertEquals(100, loop.getTps(), 15);
+		assertTrue(loop.getMspt() < 10);
+		assertEquals(0, loop.getSkippedTicks());
+	}
+
+	@Test
+	public void startTicking_Task_RunsOnTickThread() throws InterruptedException
+	{
+		AtomicReference<Thread> thread = new AtomicReference<>();
+		scheduler.runTask(null, () -> thread.set(Thread.currentThread()));
+		scheduler.startTicking();
+		Thread.sleep(200);
+		scheduler.stopTicking();
+		assertNotNull(thread.get());
+		assertNotSame(Thread.currentThread(), thread.get());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void startTicking_AlreadyTicking_Exception()
+	{
+		scheduler.startTicking();
+		scheduler.startTicking();
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void stopTicking_TaskThrew_Rethrown() throws InterruptedException
+	{
+		scheduler.runTask(null, () -> {
+			throw new IllegalStateException();
+		});
+		scheduler.startTicking();
+		Thread.sleep(200);
+		scheduler.stopTicking();
+	}
+}
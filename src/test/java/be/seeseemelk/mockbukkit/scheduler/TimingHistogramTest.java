@@ -0,0 +1,76 @@
+package be.seeseemelk.mockbukkit.scheduler;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TimingHistogramTest
+{
+	private TimingHistogram histogram;
+
+	@Before
+	public void setUp()
+	{
+		histogram = new TimingHistogram();
+	}
+
+	@Test
+	public void getCount_Empty_Zero()
+	{
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getMaxNanos());
+		assertEquals(0, histogram.getPercentileNanos(50));
+	}
+
+	@Test
+	public void record_Values_StatisticsUpdated()
+	{
+		histogram.record(10);
+		histogram.record(20);
+		histogram.record(30);
+		assertEquals(3, histogram.getCount());
+		assertEquals(60, histogram.getTotalNanos());
+		assertEquals(20, histogram.getMeanNanos());
+		assertEquals(10, histogram.getMinNanos());
+		assertEquals(30, histogram.getMaxNanos());
+	}
+
+	@Test
+	public void getPercentileNanos_UniformValues_WithinPrecision()
+	{
+		for (long i = 1; i <= 100_000; i++)
+		{
+			histogram.record(i * 1000);
+		}
+		assertEquals(50_000_000, histogram.getPercentileNanos(50), 50_000_000 * 0.07);
+		assertEquals(99_000_000, histogram.getPercentileNanos(99), 99_000_000 * 0.07);
+		assertEquals(100_000_000, histogram.getPercentileNanos(100));
+	}
+
+	@Test
+	public void getPercentileNanos_SmallValues_Exact()
+	{
+		for (long i = 0; i < 10; i++)
+		{
+			histogram.record(i);
+		}
+		assertEquals(4, histogram.getPercentileNanos(50));
+		assertEquals(9, histogram.getPercentileNanos(100));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void getPercentileNanos_OutOfRange_Exception()
+	{
+		histogram.getPercentileNanos(101);
+	}
+
+	@Test
+	public void reset_Values_Empty()
+	{
+		histogram.record(100);
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getMaxNanos());
+	}
+}